@@ -3,9 +3,11 @@ package com.fruits.ecommerce;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 @RequiredArgsConstructor
 public class FruitsEcommerceApplication {
     public static void main(String[] args) {
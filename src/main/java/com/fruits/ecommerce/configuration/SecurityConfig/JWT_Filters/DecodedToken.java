@@ -0,0 +1,35 @@
+package com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Immutable result of verifying a JWT once.
+ * Instances are shared between requests through the verified-token cache, so they must never be mutated.
+ */
+@Getter
+public final class DecodedToken {
+    private final String tokenId;
+    private final String subject;
+    // Null for tokens issued before user ids were embedded
+    private final Long userId;
+    private final int securityVersion;
+    private final List<GrantedAuthority> authorities;
+    private final long expiresAtMillis;
+
+    public DecodedToken(String tokenId, String subject, Long userId, int securityVersion,
+                        List<GrantedAuthority> authorities, long expiresAtMillis) {
+        this.tokenId = tokenId;
+        this.subject = subject;
+        this.userId = userId;
+        this.securityVersion = securityVersion;
+        this.authorities = List.copyOf(authorities);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
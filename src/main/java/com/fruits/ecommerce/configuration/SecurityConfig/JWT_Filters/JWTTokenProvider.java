@@ -3,9 +3,16 @@ package com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.SecurityProperties;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
@@ -17,9 +24,15 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
@@ -27,21 +40,61 @@ import static java.util.Arrays.stream;
 
 @Component@RequiredArgsConstructor
 public class JWTTokenProvider {
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String SECURITY_VERSION_CLAIM = "ver";
 
     @Value("${jwt.secret}")
     private String secret;
     private final SecurityProperties securityProperties;
+    private final MeterRegistry meterRegistry;
+
+    // Built once: the HMAC key and verifier are thread-safe and reusable
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    // Keyed by SHA-256 digest of the raw token, so we never keep whole tokens in memory
+    private Cache<String, DecodedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        algorithm = HMAC512(secret.getBytes());
+        verifier = JWT.require(algorithm).withIssuer(securityProperties.getIssuer()).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getVerifiedCacheMaxSize())
+                .expireAfter(new TokenExpiry(securityProperties.getVerifiedCacheMaxTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
+
     public String generateJwtToken(UserData userData) {
         String[] claims = getClaimsFromUser(userData);
         return JWT.create().withIssuer(securityProperties.getIssuer()).withAudience(securityProperties.getAudience())
-                .withIssuedAt(new Date()).withSubject(userData.getUsername())
+                .withJWTId(UUID.randomUUID().toString()).withIssuedAt(new Date()).withSubject(userData.getUsername())
+                .withClaim(USER_ID_CLAIM, userData.getId()).withClaim(SECURITY_VERSION_CLAIM, userData.getSecurityVersion())
                 .withArrayClaim(securityProperties.getAuthorities(), claims).withExpiresAt(new Date(System.currentTimeMillis() + securityProperties.getExpirationTime() ))
-                .sign(HMAC512(secret.getBytes()));
+                .sign(algorithm);
+    }
+
+    /**
+     * Verifies the token signature and claims once, then serves repeat requests from the cache.
+     *
+     * @param token raw JWT without the "Bearer " prefix.
+     * @return the immutable decoded token.
+     * @throws JWTVerificationException if the token is invalid or expired.
+     */
+    public DecodedToken verifyToken(String token) {
+        String key = digest(token);
+        DecodedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached;
+        }
+        DecodedToken decoded = decode(verifier.verify(token));
+        verifiedTokens.put(key, decoded);
+        return decoded;
     }
 
     public List<GrantedAuthority> getAuthorities(String token) {
-        String[] claims = getClaimsFromToken(token);
-        return stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return verifyToken(token).getAuthorities();
     }
 
     public Authentication getAuthentication(String username, List<GrantedAuthority> authorities, HttpServletRequest request) {
@@ -52,34 +105,34 @@ public class JWTTokenProvider {
     }
 
     public boolean isTokenValid(String username, String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return StringUtils.isNotEmpty(username) && !isTokenExpired(verifier, token);
+        return StringUtils.isNotEmpty(username) && !verifyToken(token).isExpired(System.currentTimeMillis());
     }
 
     public String getSubject(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getSubject();
+        return verifyToken(token).getSubject();
     }
 
-    private boolean isTokenExpired(JWTVerifier verifier, String token) {
-        Date expiration = verifier.verify(token).getExpiresAt();
-        return expiration.before(new Date());
+    public JWTVerifier getJWTVerifier() {
+        return verifier;
     }
 
-    private String[] getClaimsFromToken(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getClaim(securityProperties.getAuthorities()).asArray(String.class);
+    private DecodedToken decode(DecodedJWT jwt) {
+        String[] claims = jwt.getClaim(securityProperties.getAuthorities()).asArray(String.class);
+        List<GrantedAuthority> authorities = claims == null ? List.of()
+                : stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        Long userId = jwt.getClaim(USER_ID_CLAIM).asLong();
+        Integer securityVersion = jwt.getClaim(SECURITY_VERSION_CLAIM).asInt();
+        return new DecodedToken(jwt.getId(), jwt.getSubject(), userId, securityVersion == null ? 0 : securityVersion,
+                authorities, jwt.getExpiresAt().getTime());
     }
 
-    public JWTVerifier getJWTVerifier() {
-        JWTVerifier verifier;
+    private static String digest(String token) {
         try {
-            Algorithm algorithm = HMAC512(secret);
-            verifier = JWT.require(algorithm).withIssuer(securityProperties.getIssuer()).build();
-        }catch (JWTVerificationException exception) {
-            throw new JWTVerificationException(securityProperties.getTokenCannotBeVerified());
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return verifier;
     }
 
     private String[] getClaimsFromUser(UserData user) {
@@ -89,4 +142,31 @@ public class JWTTokenProvider {
         }
         return authorities.toArray(new String[0]);
     }
+
+    /**
+     * Evicts a decoded token when the JWT itself expires, capped by the configured maximum TTL.
+     */
+    private static final class TokenExpiry implements Expiry<String, DecodedToken> {
+        private final long maxTtlNanos;
+
+        private TokenExpiry(long maxTtlMillis) {
+            this.maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(maxTtlMillis);
+        }
+
+        @Override
+        public long expireAfterCreate(String key, DecodedToken value, long currentTime) {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(value.getExpiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, DecodedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, DecodedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters;
 
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.SecurityProperties;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.TokenDenylist;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserSecurityVersions;
 import com.fruits.ecommerce.models.entities.User;
 import com.fruits.ecommerce.services.Interfaces.IUserService;
 import jakarta.servlet.FilterChain;
@@ -9,6 +11,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -32,13 +35,19 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
     private final JWTTokenProvider jwtTokenProvider;
     private final SecurityProperties securityProperties;
     private final IUserService userService;
+    private final UserSecurityVersions userSecurityVersions;
+    private final TokenDenylist tokenDenylist;
 
     public JwtAuthorizationFilter(JWTTokenProvider jwtTokenProvider,
                                   SecurityProperties securityProperties,
-                                  @Lazy IUserService userService) {
+                                  @Lazy IUserService userService,
+                                  UserSecurityVersions userSecurityVersions,
+                                  TokenDenylist tokenDenylist) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.securityProperties = securityProperties;
         this.userService = userService;
+        this.userSecurityVersions = userSecurityVersions;
+        this.tokenDenylist = tokenDenylist;
     }
 
     @Override
@@ -56,17 +65,19 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
                 return;
             }
             String token = authorizationHeader.substring(securityProperties.getTokenPrefix().length());
-            String username = jwtTokenProvider.getSubject(token);
-            if (jwtTokenProvider.isTokenValid(username, token) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                List<GrantedAuthority> authorities = jwtTokenProvider.getAuthorities(token);
-                Optional<User> userOptional = userService.findByUsername(username);
-                if (userOptional.isPresent()) {
-                    User user = userOptional.get();
-                    UserData userPrincipal = new UserData(user);
+            // Verified once per token; repeat requests are served from the decoded-token cache
+            DecodedToken decodedToken = jwtTokenProvider.verifyToken(token);
+            String username = decodedToken.getSubject();
+            if (tokenDenylist.isRevoked(decodedToken.getTokenId())) {
+                log.warn("Rejected revoked token for username: {}", username);
+                SecurityContextHolder.clearContext();
+            } else if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
+                List<GrantedAuthority> authorities = decodedToken.getAuthorities();
+                UserData userPrincipal = resolvePrincipal(decodedToken);
+                if (userPrincipal != null) {
                     Authentication authentication = new UsernamePasswordAuthenticationToken(userPrincipal, null, authorities);
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 } else {
-                    log.warn("User not found for username: {}", username);
                     SecurityContextHolder.clearContext();
                 }
             } else {
@@ -75,4 +86,26 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Builds the principal straight from the token claims when they carry a user id,
+     * checking only the in-memory security version; older tokens fall back to loading the user.
+     */
+    private UserData resolvePrincipal(DecodedToken decodedToken) {
+        String username = decodedToken.getSubject();
+        if (securityProperties.isStatelessPrincipal() && decodedToken.getUserId() != null) {
+            if (!userSecurityVersions.isCurrent(decodedToken.getUserId(), decodedToken.getSecurityVersion())) {
+                log.warn("Rejected token with outdated security version for username: {}", username);
+                return null;
+            }
+            return UserData.fromClaims(decodedToken.getUserId(), username,
+                    decodedToken.getSecurityVersion(), decodedToken.getAuthorities());
+        }
+        Optional<User> userOptional = userService.findByUsername(username);
+        if (userOptional.isEmpty()) {
+            log.warn("User not found for username: {}", username);
+            return null;
+        }
+        return new UserData(userOptional.get());
+    }
 }
\ No newline at end of file
@@ -1,27 +1,34 @@
 package com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore;
 
-import com.fruits.ecommerce.models.entities.User;
 import com.fruits.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
     @Override
     public UserDetails loadUserByUsername(String identifier) throws UsernameNotFoundException {
-        //Allow login using username or email
-        User user = userRepository.findByUsername(identifier)
-                .orElseGet(() -> userRepository.findByEmail(identifier)
-                        .orElseThrow(
-                                () -> new UsernameNotFoundException(
-                                        "User not found with username or email: " + identifier)));
-        return new UserData(user);
+        //Allow login using username or email; usually already cached by the login lookup
+        return userDetailsCache.find(identifier)
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        "User not found with username or email: " + identifier));
+    }
+
+    // Called after a successful login when the stored hash was produced with a different cost
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        UserData userData = (UserData) userDetails;
+        userRepository.updatePasswordById(userData.getId(), newEncodedPassword);
+        userData.setPassword(newEncodedPassword);
+        return userData;
     }
 
 }
@@ -19,4 +19,11 @@ public class SecurityProperties {
     private String forbiddenMessage;
     private String accessDeniedMessage;
     private String optionsHttpMethod;
+    private long verifiedCacheMaxSize;
+    private long verifiedCacheMaxTtl;
+    private boolean statelessPrincipal;
+    private long versionCacheMaxSize;
+    private long versionCacheTtl;
+    private int denylistExpectedInsertions;
+    private double denylistFalsePositiveRate;
 }
\ No newline at end of file
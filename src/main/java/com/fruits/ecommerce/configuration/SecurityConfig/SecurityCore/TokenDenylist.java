@@ -0,0 +1,191 @@
+package com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore;
+
+import com.fruits.ecommerce.models.entities.RevokedToken;
+import com.fruits.ecommerce.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Denylist of revoked token ids (jti).
+ * A Bloom filter sits in front of the exact jti -> expiry map: a token that was never revoked
+ * is answered by a single filter probe without allocating, only possible hits consult the map.
+ * Revocations are persisted to revoked_tokens and reloaded on startup and on every refresh,
+ * which also propagates logouts between instances and rebuilds the filter without expired ids.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenDenylist {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final SecurityProperties securityProperties;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Snapshot snapshot;
+    // Taken by revoke() to add to the snapshot and by refresh() to copy it and swap: no revocation falls in between
+    private final Object swapLock = new Object();
+    private Counter revokedHits;
+
+    @PostConstruct
+    public void init() {
+        revokedHits = meterRegistry.counter("security.token-denylist.rejected");
+        snapshot = newSnapshot();
+        refresh();
+    }
+
+    /**
+     * Hot path: true only if the token id has been revoked and the token has not expired yet.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        if (!current.filter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = current.revoked.get(tokenId);
+        boolean revoked = expiresAt != null && expiresAt > System.currentTimeMillis();
+        if (revoked) {
+            revokedHits.increment();
+        }
+        return revoked;
+    }
+
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, toLocalDateTime(expiresAtMillis)));
+        synchronized (swapLock) {
+            snapshot.add(tokenId, expiresAtMillis);
+        }
+        log.info("Token revoked: {}", tokenId);
+    }
+
+    /**
+     * Reloads live revocations from the database, drops expired ones and rebuilds the Bloom filter.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.denylist-refresh-interval}",
+            initialDelayString = "${security.jwt.denylist-refresh-interval}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int purged = revokedTokenRepository.deleteExpired(now);
+        Snapshot rebuilt = newSnapshot();
+        for (RevokedToken revokedToken : revokedTokenRepository.findAllByExpiresAtAfter(now)) {
+            rebuilt.add(revokedToken.getJti(), toEpochMillis(revokedToken.getExpiresAt()));
+        }
+        // Keep revocations added while the table was being read, including ones committed after the read
+        synchronized (swapLock) {
+            long nowMillis = System.currentTimeMillis();
+            for (Map.Entry<String, Long> entry : snapshot.revoked.entrySet()) {
+                if (entry.getValue() > nowMillis) {
+                    rebuilt.add(entry.getKey(), entry.getValue());
+                }
+            }
+            snapshot = rebuilt;
+        }
+        log.debug("Token denylist refreshed: {} active, {} purged", rebuilt.revoked.size(), purged);
+    }
+
+    private Snapshot newSnapshot() {
+        return new Snapshot(new BloomFilter(securityProperties.getDenylistExpectedInsertions(),
+                securityProperties.getDenylistFalsePositiveRate()));
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static final class Snapshot {
+        private final BloomFilter filter;
+        private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+        private Snapshot(BloomFilter filter) {
+            this.filter = filter;
+        }
+
+        private void add(String tokenId, long expiresAtMillis) {
+            // Exact entry first, so a concurrent filter hit always finds it
+            revoked.put(tokenId, expiresAtMillis);
+            filter.put(tokenId);
+        }
+    }
+
+    /**
+     * Thread-safe Bloom filter over strings, using double hashing of a single 64-bit hash.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                bits.getAndAccumulate(index, mask, (current, m) -> current | m);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            long h1 = hash;
+            long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the chars followed by a MurmurHash3 finalizer; no intermediate byte[] is allocated
+        private static long hash(String value) {
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore;
 
+import com.fruits.ecommerce.models.entities.Role;
 import com.fruits.ecommerce.models.entities.User;
+import com.fruits.ecommerce.models.enums.RoleType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -24,6 +28,10 @@ public class UserData implements UserDetails {
         return user.getPassword();
     }
 
+    public void setPassword(String encodedPassword) {
+        user.setPassword(encodedPassword);
+    }
+
     @Override
     public String getUsername() {
         return user.getUsername();
@@ -49,6 +57,10 @@ public class UserData implements UserDetails {
         return this.user.isActive();
     }
 
+    public User getUser() {
+        return user;
+    }
+
     public Long getId() {
         return user.getId();
     }
@@ -57,4 +69,32 @@ public class UserData implements UserDetails {
         return user.getEmail();
     }
 
+    public int getSecurityVersion() {
+        return user.getSecurityVersion();
+    }
+
+    /**
+     * Rebuilds a principal from verified token claims without touching the database.
+     * Only id, username, roles and security version are known; the account is active and unlocked,
+     * because locking bumps the security version and invalidates the token.
+     */
+    public static UserData fromClaims(Long id, String username, int securityVersion,
+                                      Collection<? extends GrantedAuthority> authorities) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setSecurityVersion(securityVersion);
+        user.setActive(true);
+        user.setNotLocked(true);
+        Set<Role> roles = new HashSet<>();
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name.startsWith("ROLE_")) {
+                roles.add(Role.of(RoleType.valueOf(name.substring("ROLE_".length()))));
+            }
+        }
+        user.setRoles(roles);
+        return new UserData(user);
+    }
+
 }
@@ -0,0 +1,100 @@
+package com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore;
+
+import com.fruits.ecommerce.models.entities.User;
+import com.fruits.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a user together with its roles in one query (by username or email) and keeps the result
+ * for a few seconds, so the login flow (lookup, authentication, token claims) reads the user once.
+ * Entries are keyed by the identifier used to log in; every change to a user's login-relevant state
+ * must call {@link #evictAfterCommit(String, String)} with its username and email.
+ */
+@Slf4j
+@Component
+public class UserDetailsCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserData> users;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${security.user-details-cache.enabled:true}") boolean enabled,
+                            @Value("${security.user-details-cache.ttl:30000}") long ttlMillis,
+                            @Value("${security.user-details-cache.max-size:10000}") long maxSize,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        if (enabled) {
+            users = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, users, "security.user-details");
+        } else {
+            users = null;
+        }
+    }
+
+    public Optional<UserData> find(String identifier) {
+        if (users == null) {
+            return load(identifier);
+        }
+        UserData cached = users.getIfPresent(identifier);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Not cached via get(key, loader): unknown identifiers must not be remembered
+        Optional<UserData> loaded = load(identifier);
+        loaded.ifPresent(userData -> users.put(identifier, userData));
+        return loaded;
+    }
+
+    /**
+     * Drops both possible login keys of a user once the surrounding transaction commits
+     * (or immediately without one), so a rolled-back change never leaves the cache stale.
+     */
+    public void evictAfterCommit(String username, String email) {
+        if (users == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username, email);
+                }
+            });
+        } else {
+            evict(username, email);
+        }
+    }
+
+    public void evictAfterCommit(User user) {
+        evictAfterCommit(user.getUsername(), user.getEmail());
+    }
+
+    private void evict(String username, String email) {
+        if (username != null) {
+            users.invalidate(username);
+        }
+        if (email != null) {
+            users.invalidate(email);
+        }
+        log.debug("User details evicted for: {}", username);
+    }
+
+    private Optional<UserData> load(String identifier) {
+        return userRepository.findWithRolesByIdentifier(identifier).map(UserData::new);
+    }
+}
@@ -0,0 +1,67 @@
+package com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore;
+
+import com.fruits.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small in-memory table of the current security version per user.
+ * A token is accepted only while the version it carries is still the current one,
+ * so locking a user, changing roles or changing the password revokes every older token.
+ * Versions are read from the database once per user and then trusted for the configured TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSecurityVersions {
+    // Marker for users that no longer exist: no token version can ever match it
+    private static final int UNKNOWN_USER = -1;
+
+    private final UserRepository userRepository;
+    private final SecurityProperties securityProperties;
+    private final MeterRegistry meterRegistry;
+    private LoadingCache<Long, Integer> versions;
+
+    @PostConstruct
+    public void init() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getVersionCacheMaxSize())
+                .expireAfterWrite(securityProperties.getVersionCacheTtl(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(userId -> userRepository.findSecurityVersionById(userId).orElse(UNKNOWN_USER));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "security.user-versions");
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        int current = versions.get(userId);
+        return current != UNKNOWN_USER && current == tokenVersion;
+    }
+
+    /**
+     * Drops the cached version once the surrounding transaction commits (or immediately without one),
+     * so the next request re-reads the bumped version instead of a value that might still roll back.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidate(userId);
+                }
+            });
+        } else {
+            versions.invalidate(userId);
+        }
+        log.debug("Security version evicted for user ID: {}", userId);
+    }
+}
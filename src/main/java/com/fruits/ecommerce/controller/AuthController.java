@@ -1,22 +1,24 @@
 package com.fruits.ecommerce.controller;
 
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidUserDataException;
 import com.fruits.ecommerce.models.dtos.*;
+import com.fruits.ecommerce.models.enums.DataFormat;
 import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.services.Interfaces.IUserDirectoryService;
 import com.fruits.ecommerce.services.Interfaces.IUserService;
-import jakarta.mail.MessagingException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-
-import javax.management.relation.RoleNotFoundException;
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @Validated
@@ -26,6 +28,7 @@ import java.util.List;
 public class AuthController {
 
     private final IUserService authService;
+    private final IUserDirectoryService userDirectoryService;
 
     /**
      * Register a new user.
@@ -53,6 +56,18 @@ public class AuthController {
         return new ResponseEntity<>(authResponse, HttpStatus.OK);
     }
 
+    /**
+     * Logout: revoke the token used for this request.
+     *
+     * @param authorizationHeader The "Bearer" Authorization header carrying the token.
+     * @return ResponseEntity with no content.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logoutUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        authService.logout(authorizationHeader.substring(authorizationHeader.indexOf(' ') + 1));
+        return ResponseEntity.noContent().build();
+    }
+
     //Lock and UnLock the user account
 
     /**
@@ -110,28 +125,109 @@ public class AuthController {
     }
 
     /**
-     * Get all customers.
+     * Get all customers (the original list shape), streamed while they are read; send limit to page through
+     * them instead.
      *
-     * @return ResponseEntity with a list of UserDTOs.
-     * @throws RoleNotFoundException if the CUSTOMER role is not found.
+     * @param locked     Only locked (true) or unlocked (false) accounts.
+     * @param namePrefix Only usernames starting with this prefix.
+     * @return ResponseEntity with a JSON array of UserDTOs.
      */
     @GetMapping("/customers")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDTO>> getAllCustomers() throws RoleNotFoundException {
-        List<UserDTO> customers = authService.getAllCustomers();
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<StreamingResponseBody> getAllCustomers(@RequestParam(required = false) Boolean locked,
+                                                                 @RequestParam(required = false) String namePrefix) {
+        UserFilterDTO filter = new UserFilterDTO(RoleType.CUSTOMER, locked, namePrefix);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> userDirectoryService.writeAllUsers(filter, output));
+    }
+
+    /**
+     * Get customers, one keyset page at a time (opted into by the limit parameter).
+     *
+     * @param after      nextCursor of the previous page (omit for the first page).
+     * @param limit      Page size.
+     * @param locked     Only locked (true) or unlocked (false) accounts.
+     * @param namePrefix Only usernames starting with this prefix.
+     * @return ResponseEntity with a page of UserDTOs and the next cursor.
+     */
+    @GetMapping(value = "/customers", params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserPageDTO> getCustomersPage(@RequestParam(required = false) Long after,
+                                                        @RequestParam int limit,
+                                                        @RequestParam(required = false) Boolean locked,
+                                                        @RequestParam(required = false) String namePrefix) {
+        UserFilterDTO filter = new UserFilterDTO(RoleType.CUSTOMER, locked, namePrefix);
+        return ResponseEntity.ok(userDirectoryService.listUsers(filter, after, limit));
     }
 
     /**
-     * Get all users.
+     * Get all users (the original list shape), streamed while they are read; send limit to page through them
+     * instead.
      *
-     * @return ResponseEntity with a list of UserDTOs.
+     * @param role       Only users having this role.
+     * @param locked     Only locked (true) or unlocked (false) accounts.
+     * @param namePrefix Only usernames starting with this prefix.
+     * @return ResponseEntity with a JSON array of UserDTOs.
      */
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        List<UserDTO> users = authService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<StreamingResponseBody> getAllUsers(@RequestParam(required = false) RoleType role,
+                                                             @RequestParam(required = false) Boolean locked,
+                                                             @RequestParam(required = false) String namePrefix) {
+        UserFilterDTO filter = new UserFilterDTO(role, locked, namePrefix);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> userDirectoryService.writeAllUsers(filter, output));
+    }
+
+    /**
+     * Get users, one keyset page at a time (opted into by the limit parameter).
+     *
+     * @param after      nextCursor of the previous page (omit for the first page).
+     * @param limit      Page size.
+     * @param role       Only users having this role.
+     * @param locked     Only locked (true) or unlocked (false) accounts.
+     * @param namePrefix Only usernames starting with this prefix.
+     * @return ResponseEntity with a page of UserDTOs and the next cursor.
+     */
+    @GetMapping(value = "/users", params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserPageDTO> getUsersPage(@RequestParam(required = false) Long after,
+                                                    @RequestParam int limit,
+                                                    @RequestParam(required = false) RoleType role,
+                                                    @RequestParam(required = false) Boolean locked,
+                                                    @RequestParam(required = false) String namePrefix) {
+        UserFilterDTO filter = new UserFilterDTO(role, locked, namePrefix);
+        return ResponseEntity.ok(userDirectoryService.listUsers(filter, after, limit));
+    }
+
+    /**
+     * Export users as CSV or NDJSON, streamed while they are read.
+     *
+     * @param format     csv or ndjson.
+     * @param role       Only users having this role.
+     * @param locked     Only locked (true) or unlocked (false) accounts.
+     * @param namePrefix Only usernames starting with this prefix.
+     * @return ResponseEntity with the streamed users.
+     * @throws InvalidUserDataException if the format is neither csv nor ndjson.
+     */
+    @GetMapping("/users/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(required = false) RoleType role,
+                                                             @RequestParam(required = false) Boolean locked,
+                                                             @RequestParam(required = false) String namePrefix) {
+        DataFormat dataFormat = DataFormat.fromName(format)
+                .orElseThrow(() -> new InvalidUserDataException("Unsupported export format: " + format
+                        + ". Use csv or ndjson."));
+        UserFilterDTO filter = new UserFilterDTO(role, locked, namePrefix);
+        StreamingResponseBody body = output -> userDirectoryService.exportUsers(filter, dataFormat, output);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(dataFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"users." + dataFormat.name().toLowerCase() + "\"")
+                .body(body);
     }
 
     /**
@@ -191,7 +287,7 @@ public class AuthController {
      */
     @PutMapping("/{userId}/reset-password")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Void> resetPassword(@PathVariable Long userId) throws MessagingException {
+    public ResponseEntity<Void> resetPassword(@PathVariable Long userId) {
         log.info("Received request to reset password for user ID: {}", userId);
         authService.resetPassword(userId);
         log.info("Password reset successfully completed for user ID: {}", userId);
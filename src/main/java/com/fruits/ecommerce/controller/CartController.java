@@ -1,9 +1,12 @@
 package com.fruits.ecommerce.controller;
 
 import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartOperationDTO;
 import com.fruits.ecommerce.services.Interfaces.ICartService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +14,9 @@ import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/customer/cart")
 @RequiredArgsConstructor
@@ -26,6 +32,40 @@ public class CartController {
         cartService.addProductToCart(authentication, productId, quantity);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
+    // Changes many lines in one transaction; see CartOperationDTO
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'USER')")
+    public ResponseEntity<CartDTO> applyCartOperations(@RequestBody @Valid List<@Valid CartOperationDTO> operations,
+                                                       Authentication authentication) {
+        return ResponseEntity.ok(cartService.applyCartOperations(authentication, operations));
+    }
+
+    // 0 removes the line
+    @PutMapping("/items/{productId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'USER')")
+    public ResponseEntity<Void> setItemQuantity(
+            @PathVariable @Positive Long productId,
+            @RequestParam @PositiveOrZero(message = "Quantity cannot be negative")
+            @Max(value = 100, message = "Quantity cannot exceed 100") int quantity,
+            Authentication authentication) {
+        cartService.setItemQuantity(authentication, productId, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/items/{productId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'USER')")
+    public ResponseEntity<Void> removeItem(@PathVariable @Positive Long productId, Authentication authentication) {
+        cartService.removeItem(authentication, productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'USER')")
+    public ResponseEntity<Void> clearCart(Authentication authentication) {
+        cartService.clearCart(authentication);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping
     @PostAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<CartDTO> getCartDetails(Authentication authentication) {
@@ -0,0 +1,68 @@
+package com.fruits.ecommerce.controller;
+
+import com.fruits.ecommerce.models.dtos.EmailCampaignDTO;
+import com.fruits.ecommerce.services.Interfaces.IEmailCampaignService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/campaigns")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class EmailCampaignController {
+
+    private final IEmailCampaignService campaignService;
+
+    /**
+     * Create an email campaign for every unlocked user of a role (ADMIN-Access-Only).
+     *
+     * @param campaignDTO Subject, body template and role.
+     * @return ResponseEntity with the DRAFT campaign.
+     */
+    @PostMapping
+    public ResponseEntity<EmailCampaignDTO> createCampaign(@Valid @RequestBody EmailCampaignDTO campaignDTO) {
+        log.info("Received campaign creation request for role: {}", campaignDTO.getRole());
+        return new ResponseEntity<>(campaignService.createCampaign(campaignDTO), HttpStatus.CREATED);
+    }
+
+    /**
+     * Get a campaign with its progress.
+     *
+     * @param campaignId The campaign ID.
+     * @return ResponseEntity with the campaign.
+     */
+    @GetMapping("/{campaignId}")
+    public ResponseEntity<EmailCampaignDTO> getCampaign(@PathVariable Long campaignId) {
+        return ResponseEntity.ok(campaignService.getCampaign(campaignId));
+    }
+
+    /**
+     * Start a DRAFT campaign or resume a PAUSED one; sending continues in the background.
+     *
+     * @param campaignId The campaign ID.
+     * @return ResponseEntity with the RUNNING campaign.
+     */
+    @PostMapping("/{campaignId}/start")
+    public ResponseEntity<EmailCampaignDTO> startCampaign(@PathVariable Long campaignId) {
+        log.info("Received request to start campaign: {}", campaignId);
+        return ResponseEntity.accepted().body(campaignService.startCampaign(campaignId));
+    }
+
+    /**
+     * Pause a RUNNING campaign after the page being sent.
+     *
+     * @param campaignId The campaign ID.
+     * @return ResponseEntity with the PAUSED campaign.
+     */
+    @PostMapping("/{campaignId}/pause")
+    public ResponseEntity<EmailCampaignDTO> pauseCampaign(@PathVariable Long campaignId) {
+        log.info("Received request to pause campaign: {}", campaignId);
+        return ResponseEntity.ok(campaignService.pauseCampaign(campaignId));
+    }
+}
@@ -2,7 +2,12 @@ package com.fruits.ecommerce.controller;
 
 
 import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
 import com.fruits.ecommerce.models.dtos.ProductImageDTO;
+import com.fruits.ecommerce.models.dtos.ProductPageDTO;
+import com.fruits.ecommerce.models.dtos.ProductSearchResultDTO;
+import com.fruits.ecommerce.models.dtos.ProductSuggestionDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
 import com.fruits.ecommerce.services.Interfaces.IProductService;
 import com.fruits.ecommerce.services.Utils.ImageService;
 import jakarta.validation.Valid;
@@ -19,6 +24,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.util.List;
 
@@ -38,7 +44,7 @@ public class ProductController {
         return new ResponseEntity<>(createdProduct, HttpStatus.CREATED);
     }
 
-    // Get a list of products with pagination (Available to Everyone)
+    // Get a list of products (Available to Everyone): the offset Page, as before
     @GetMapping
     public ResponseEntity<Page<ProductDTO>> getProducts(
             @RequestParam(defaultValue = "0") int page,
@@ -46,6 +52,54 @@ public class ProductController {
         Page<ProductDTO> products = productService.listProducts(page, pageSize);
         return ResponseEntity.ok(products);
     }
+
+    // Keyset listing, opted into with ?mode=cursor for the first page; pass the returned nextCursor as ?cursor=
+    // for the next ones. includeTotal=true adds a cached, approximate product count.
+    // Any of minPrice, maxPrice, unit (repeatable) or hasImages filters the listing and adds facet counts.
+    @GetMapping(params = "mode=cursor")
+    public ResponseEntity<ProductPageDTO> getProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(name = "unit", required = false) List<String> units,
+            @RequestParam(required = false) Boolean hasImages) {
+        ProductFilterDTO filter = new ProductFilterDTO(minPrice, maxPrice, units, hasImages);
+        return ResponseEntity.ok(productService.listProducts(filter, cursor, pageSize, sort, includeTotal));
+    }
+
+    // A cursor alone also selects the keyset listing
+    @GetMapping(params = {"cursor", "!mode"})
+    public ResponseEntity<ProductPageDTO> getProductsAfterCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "ID") ProductSort sort,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(name = "unit", required = false) List<String> units,
+            @RequestParam(required = false) Boolean hasImages) {
+        return getProductsByCursor(cursor, pageSize, sort, includeTotal, minPrice, maxPrice, units, hasImages);
+    }
+
+    // Full-text search over name, unit and description, best matches first (Available to Everyone)
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResultDTO> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(productService.searchProducts(query, limit));
+    }
+
+    // Typeahead completions of product names, most popular first (Available to Everyone)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+    }
+
     // Get details of a specific product
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
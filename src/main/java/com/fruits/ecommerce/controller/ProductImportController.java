@@ -0,0 +1,44 @@
+package com.fruits.ecommerce.controller;
+
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.services.Interfaces.IProductImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/products/admin")
+@RequiredArgsConstructor
+public class ProductImportController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final IProductImportService productImportService;
+
+    /**
+     * Bulk import of products, created or updated by SKU (ADMIN-Access-Only).
+     * The body is streamed as CSV (text/csv, header row required) or NDJSON (application/x-ndjson);
+     * the response streams one NDJSON result per input row and ends with a summary line.
+     *
+     * @param contentType text/csv or application/x-ndjson.
+     * @param request     The request whose body holds the products to import.
+     * @return ResponseEntity with the streamed per-row results.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON}, produces = NDJSON)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) {
+        DataFormat format = DataFormat.fromContentType(contentType);
+        log.info("Received bulk product import request ({})", format);
+        StreamingResponseBody body = output -> productImportService.importProducts(request.getInputStream(), format,
+                output);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
@@ -0,0 +1,9 @@
+package com.fruits.ecommerce.exceptions.ExceptionsDomain;
+
+import com.fruits.ecommerce.exceptions.Global.UserServiceException;
+
+public class CampaignNotFoundException extends UserServiceException {
+    public CampaignNotFoundException(String message) {
+        super(message);
+    }
+}
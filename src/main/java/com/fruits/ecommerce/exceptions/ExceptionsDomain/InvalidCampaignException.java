@@ -0,0 +1,9 @@
+package com.fruits.ecommerce.exceptions.ExceptionsDomain;
+
+import com.fruits.ecommerce.exceptions.Global.UserServiceException;
+
+public class InvalidCampaignException extends UserServiceException {
+    public InvalidCampaignException(String message) {
+        super(message);
+    }
+}
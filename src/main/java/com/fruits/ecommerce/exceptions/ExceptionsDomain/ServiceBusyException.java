@@ -0,0 +1,15 @@
+package com.fruits.ecommerce.exceptions.ExceptionsDomain;
+
+import com.fruits.ecommerce.exceptions.Global.UserServiceException;
+import lombok.Getter;
+
+// Thrown when a bounded resource (e.g. the password hashing queue) is saturated
+@Getter
+public class ServiceBusyException extends UserServiceException {
+    private final int retryAfterSeconds;
+
+    public ServiceBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,15 @@
+package com.fruits.ecommerce.exceptions.ExceptionsDomain;
+
+import com.fruits.ecommerce.exceptions.Global.UserServiceException;
+import lombok.Getter;
+
+// Thrown when a client is temporarily blocked from logging in after repeated failures
+@Getter
+public class TooManyLoginAttemptsException extends UserServiceException {
+    private final int retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
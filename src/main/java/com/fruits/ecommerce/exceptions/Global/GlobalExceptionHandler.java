@@ -6,6 +6,7 @@ import com.fruits.ecommerce.exceptions.HttpResponse;
 import com.fruits.ecommerce.exceptions.products.*;
 import com.fruits.ecommerce.models.enums.RoleType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -59,6 +60,11 @@ public class GlobalExceptionHandler {
                 ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<HttpResponse> handleInvalidTokenException(InvalidTokenException ex) {
+        return createHttpResponse(HttpStatus.UNAUTHORIZED, "Invalid token", ex.getMessage());
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<HttpResponse> handleUserNotFoundException(UserNotFoundException ex) {
         return createHttpResponse(HttpStatus.NOT_FOUND, "User not found", ex.getMessage());
@@ -72,6 +78,42 @@ public class GlobalExceptionHandler {
     public ResponseEntity<HttpResponse> handleAccountUnLockedException(UnLockedAccountException ex) {
         return createHttpResponse(HttpStatus.CONFLICT, "USER_ALREADY_UNLOCKED", ex.getMessage());
     }
+    @ExceptionHandler(CampaignNotFoundException.class)
+    public ResponseEntity<HttpResponse> handleCampaignNotFoundException(CampaignNotFoundException ex) {
+        return createHttpResponse(HttpStatus.NOT_FOUND, "Campaign not found", ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCampaignException.class)
+    public ResponseEntity<HttpResponse> handleInvalidCampaignException(InvalidCampaignException ex) {
+        return createHttpResponse(HttpStatus.BAD_REQUEST, "Invalid campaign", ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<HttpResponse> handleServiceBusyException(ServiceBusyException ex) {
+        HttpResponse httpResponse = new HttpResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Service busy",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(httpResponse);
+    }
+
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<HttpResponse> handleTooManyLoginAttemptsException(TooManyLoginAttemptsException ex) {
+        HttpResponse httpResponse = new HttpResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                HttpStatus.TOO_MANY_REQUESTS,
+                "Too many login attempts",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(httpResponse);
+    }
+
     private ResponseEntity<HttpResponse> createHttpResponse(HttpStatus httpStatus, String reason, String message) {
         HttpResponse httpResponse = new HttpResponse(
                 httpStatus.value(),
@@ -159,6 +201,11 @@ public class GlobalExceptionHandler {
         return createHttpResponse(HttpStatus.NOT_FOUND, "Cart not found", ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidCartOperationException.class)
+    public ResponseEntity<HttpResponse> handleInvalidCartOperationException(InvalidCartOperationException ex) {
+        return createHttpResponse(HttpStatus.BAD_REQUEST, "Invalid cart operation", ex.getMessage());
+    }
+
     @ExceptionHandler(ImageProcessingException.class)
     public ResponseEntity<HttpResponse> handleImageProcessingException(ImageProcessingException ex) {
         return createHttpResponse(HttpStatus.BAD_REQUEST, "Image Processing Failed.", ex.getMessage());
@@ -0,0 +1,7 @@
+package com.fruits.ecommerce.exceptions.products;
+
+public class InvalidCartOperationException extends RuntimeException {
+    public InvalidCartOperationException(String message) {
+        super(message);
+    }
+}
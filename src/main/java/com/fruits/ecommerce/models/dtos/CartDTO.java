@@ -11,5 +11,7 @@ import java.util.List;
 public class CartDTO {
     private Long id,customerId;
     private BigDecimal shippingCost,discount;
+    // Computed by CartTotals: discount is a percentage of the subtotal, shipping is charged on non-empty carts
+    private BigDecimal subtotal,discountAmount,total;
     private List<CartItemDTO> items;
 }
\ No newline at end of file
@@ -9,8 +9,8 @@ import java.math.BigDecimal;
 @Getter
 public class CartItemDTO {
     private Long cartId,productId;
-    private String productName;
-    private BigDecimal productPrice;
+    private String productName,imageUrl;
+    private BigDecimal productPrice,lineTotal;
     private int quantity;
 }
 
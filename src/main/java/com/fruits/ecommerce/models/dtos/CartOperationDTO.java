@@ -0,0 +1,22 @@
+package com.fruits.ecommerce.models.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One change to a cart line: exactly one of quantityDelta (may be negative), setQuantity (0 removes) or remove
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDTO {
+    @NotNull(message = "Product id is required.")
+    @Positive(message = "Product id must be positive.")
+    private Long productId;
+    private Integer quantityDelta;
+    private Integer setQuantity;
+    private boolean remove;
+}
@@ -0,0 +1,43 @@
+package com.fruits.ecommerce.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fruits.ecommerce.models.enums.CampaignStatus;
+import com.fruits.ecommerce.models.enums.RoleType;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class EmailCampaignDTO {
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+    @NotBlank(message = "Subject is required.")
+    @Size(max = 255, message = "Subject must be at most 255 characters.")
+    private String subject;
+    // May use {{firstName}}, {{lastName}}, {{username}} and {{email}}
+    @NotBlank(message = "Body is required.")
+    private String body;
+    @NotNull(message = "Role is required.")
+    private RoleType role;
+
+    // Progress, filled in responses only
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private CampaignStatus status;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long lastUserId;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long sentCount;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long failedCount;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime createdAt;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime startedAt;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime completedAt;
+}
@@ -1,8 +1,13 @@
 package com.fruits.ecommerce.models.dtos;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -21,16 +26,28 @@ import java.util.List;
 @AllArgsConstructor
 public class ProductDTO {
     private Long id;
+    @Size(max = 64, message = "SKU must be at most 64 characters")
+    @Pattern(regexp = "[A-Za-z0-9._-]+", message = "SKU may only contain letters, digits, '.', '_' and '-'")
+    private String sku;
     @NotBlank(message = "Product name is required")
+    @Size(max = 255, message = "Product name must be at most 255 characters")
     private String name;
+    @Size(max = 50, message = "Unit must be at most 50 characters")
     private String unit;
     @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.00", message = "Price cannot be negative")
+    @Digits(integer = 17, fraction = 2, message = "Price must have at most 17 integer digits and 2 decimals")
     private BigDecimal price;
     private String description;
     private List<String> imageUrls  = new ArrayList<>();
     // Timing fields
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Stored collation keys (name_key, unit_key) the catalog is sorted by; read from the database, never from clients
+    @JsonIgnore
+    private String nameKey;
+    @JsonIgnore
+    private String unitKey;
 }
 
 
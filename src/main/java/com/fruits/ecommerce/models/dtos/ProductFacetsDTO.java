@@ -0,0 +1,35 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Facet counts of a filtered listing: each facet is counted with every filter applied except its own
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+    // Products matching the whole filter
+    private long total;
+    private Map<String, Long> units;
+    private long withImages;
+    private long withoutImages;
+    private List<PriceRange> priceRanges;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRange {
+        private BigDecimal from;
+        // Exclusive; null for the last range
+        private BigDecimal to;
+        private long count;
+    }
+}
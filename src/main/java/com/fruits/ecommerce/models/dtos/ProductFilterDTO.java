@@ -0,0 +1,24 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Optional filters of the catalog listing; null means "any". Units are alternatives, filters combine with AND
+@Setter
+@Getter
+@AllArgsConstructor
+public class ProductFilterDTO {
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private List<String> units;
+    private Boolean hasImages;
+    public ProductFilterDTO() {}
+
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && (units == null || units.isEmpty()) && hasImages == null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.fruits.ecommerce.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// One line of the streamed product import result: the outcome of a single input row
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportResultDTO {
+    private int row;
+    private String status;
+    private String sku;
+    private Long id;
+    private String message;
+    public ProductImportResultDTO() {}
+
+    public static ProductImportResultDTO created(int row, String sku, Long id) {
+        return new ProductImportResultDTO(row, "CREATED", sku, id, null);
+    }
+
+    public static ProductImportResultDTO updated(int row, String sku, Long id) {
+        return new ProductImportResultDTO(row, "UPDATED", sku, id, null);
+    }
+
+    public static ProductImportResultDTO failed(int row, String sku, String message) {
+        return new ProductImportResultDTO(row, "ERROR", sku, null, message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// Last line of the streamed product import result
+@Setter
+@Getter
+@AllArgsConstructor
+public class ProductImportSummaryDTO {
+    private long total;
+    private long created;
+    private long updated;
+    private long failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    public ProductImportSummaryDTO() {}
+}
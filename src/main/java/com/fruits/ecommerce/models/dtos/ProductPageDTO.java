@@ -0,0 +1,28 @@
+package com.fruits.ecommerce.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// One keyset page of the catalog: pass nextCursor back as ?cursor= for the following page
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductPageDTO {
+    private List<ProductDTO> items;
+    // Null on the last page
+    private String nextCursor;
+    // Only when requested: cached, approximate number of products
+    private Long totalEstimate;
+    // Only for filtered listings
+    private ProductFacetsDTO facets;
+    public ProductPageDTO() {}
+
+    public ProductPageDTO(List<ProductDTO> items, String nextCursor, Long totalEstimate) {
+        this(items, nextCursor, totalEstimate, null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Best matches of a product search, best first
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDTO {
+    private List<ProductDTO> items;
+    // Number of products matching at least one term of the query
+    private int matches;
+}
@@ -0,0 +1,18 @@
+package com.fruits.ecommerce.models.dtos;
+
+import com.fruits.ecommerce.models.enums.RoleType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// Optional filters of the user listing and export; null means "any"
+@Setter
+@Getter
+@AllArgsConstructor
+public class UserFilterDTO {
+    private RoleType role;
+    private Boolean locked;
+    // Matches the beginning of the username
+    private String namePrefix;
+    public UserFilterDTO() {}
+}
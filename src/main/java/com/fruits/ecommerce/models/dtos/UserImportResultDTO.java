@@ -0,0 +1,27 @@
+package com.fruits.ecommerce.models.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// One line of the streamed bulk-import result: the outcome of a single input row
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportResultDTO {
+    private int row;
+    private String status;
+    private String username;
+    private String message;
+    public UserImportResultDTO() {}
+
+    public static UserImportResultDTO created(int row, String username) {
+        return new UserImportResultDTO(row, "CREATED", username, null);
+    }
+
+    public static UserImportResultDTO failed(int row, String username, String message) {
+        return new UserImportResultDTO(row, "ERROR", username, message);
+    }
+}
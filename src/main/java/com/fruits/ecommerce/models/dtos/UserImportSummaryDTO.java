@@ -0,0 +1,18 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// Last line of the streamed bulk-import result
+@Setter
+@Getter
+@AllArgsConstructor
+public class UserImportSummaryDTO {
+    private long total;
+    private long created;
+    private long failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    public UserImportSummaryDTO() {}
+}
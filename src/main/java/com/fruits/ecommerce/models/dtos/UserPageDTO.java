@@ -0,0 +1,17 @@
+package com.fruits.ecommerce.models.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// One keyset page of users; pass nextCursor as "after" to get the next page (null on the last page)
+@Setter
+@Getter
+@AllArgsConstructor
+public class UserPageDTO {
+    private List<UserDTO> users;
+    private Long nextCursor;
+    public UserPageDTO() {}
+}
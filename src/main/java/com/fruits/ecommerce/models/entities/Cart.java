@@ -19,7 +19,7 @@ import java.util.List;
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     // Assuming shipping cost and discount are BigDecimal values
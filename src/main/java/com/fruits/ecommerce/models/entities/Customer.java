@@ -15,7 +15,6 @@ import lombok.Setter;
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // This will be the same as the User ID
 
     @OneToOne
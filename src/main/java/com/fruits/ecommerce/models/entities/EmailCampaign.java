@@ -0,0 +1,65 @@
+package com.fruits.ecommerce.models.entities;
+
+import com.fruits.ecommerce.models.enums.CampaignStatus;
+import com.fruits.ecommerce.models.enums.RoleType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "email_campaigns")
+public class EmailCampaign {
+
+    @Id
+    @PooledId
+    private Long id;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    // Text with {{firstName}}, {{lastName}}, {{username}} or {{email}} placeholders
+    @Column(name = "body_template", nullable = false, columnDefinition = "TEXT")
+    private String bodyTemplate;
+
+    // Segment: every unlocked user having this role
+    @Enumerated(EnumType.STRING)
+    @Column(name = "role", length = 25, nullable = false)
+    private RoleType role;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    private CampaignStatus status;
+
+    // Checkpoint: recipients are processed in id order, up to and including this id
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "sent_count", nullable = false)
+    private long sentCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    // While in the future, an instance is running the campaign
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    // Runner id stamped by the last claim
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,18 @@
+package com.fruits.ecommerce.models.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id assigned before the insert from blocks reserved in id_allocator (see {@link PooledIdGenerator}),
+ * so Hibernate can batch the inserts, which an IDENTITY column prevents.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledId {
+}
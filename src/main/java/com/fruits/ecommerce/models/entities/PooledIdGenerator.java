@@ -0,0 +1,79 @@
+package com.fruits.ecommerce.models.entities;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.jdbc.AbstractReturningWork;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Hi/lo ids: each table has a row in id_allocator holding its next free id, and an instance reserves
+ * a block of ids with one short transaction of its own, then hands them out from memory.
+ * Ids increase within an instance and stay far below 2^53, so JSON clients read them exactly.
+ * The block size is the Hibernate setting app.ids.block-size.
+ */
+public class PooledIdGenerator implements IdentifierGenerator {
+    public static final String BLOCK_SIZE_SETTING = "app.ids.block-size";
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String name;
+    private final int blockSize;
+    // Ids of the current block not handed out yet: [next, limit)
+    private long next;
+    private long limit;
+
+    public PooledIdGenerator(PooledId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.name = context.getPersistentClass().getRootTable().getName();
+        this.blockSize = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(BLOCK_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object object) {
+        if (next == limit) {
+            // Outside the caller's transaction: a rollback must not give the block out again
+            next = session.getTransactionCoordinator().createIsolationDelegate().delegateWork(
+                    new AbstractReturningWork<Long>() {
+                        @Override
+                        public Long execute(Connection connection) throws SQLException {
+                            return reserve(connection, name, blockSize);
+                        }
+                    }, true);
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    /**
+     * Reserves count consecutive ids on the given connection; the caller commits.
+     *
+     * @return The first reserved id.
+     * @throws IllegalStateException if id_allocator has no row for the name.
+     */
+    public static long reserve(Connection connection, String name, int count) throws SQLException {
+        // The update locks the row, so the value read next is ours until commit
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE id_allocator SET next_value = next_value + ? WHERE name = ?")) {
+            update.setLong(1, count);
+            update.setString(2, name);
+            if (update.executeUpdate() == 0) {
+                throw new IllegalStateException("No id_allocator row for " + name);
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_value FROM id_allocator WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1) - count;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.fruits.ecommerce.models.entities;
 
+import com.fruits.ecommerce.services.Utils.ProductCollation;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -21,9 +22,13 @@ import java.util.List;
 @AllArgsConstructor
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
+    // Supplier SKU, the natural key of the bulk import; null for products created one by one without it
+    @Column(unique = true, length = 64)
+    private String sku;
+
     @NotBlank(message = "Product name is required")
     @Column(nullable = false)
     private String name;
@@ -35,6 +40,12 @@ public class Product {
 
     private String description;
 
+    // Collation keys the catalog sorts by (see ProductCollation), kept in step with name and unit
+    @Column(name = "name_key", nullable = false)
+    private String nameKey;
+    @Column(name = "unit_key")
+    private String unitKey;
+
     // Optionally, add fields for createdAt, updatedAt, etc.
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -50,10 +61,17 @@ public class Product {
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = this.createdAt;
+        updateSortKeys();
     }
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        updateSortKeys();
+    }
+
+    private void updateSortKeys() {
+        this.nameKey = ProductCollation.key(name);
+        this.unitKey = ProductCollation.key(unit);
     }
 
 }
@@ -17,7 +17,7 @@ import java.time.LocalDateTime;
 public class ProductImage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     // Image URL accessible by client
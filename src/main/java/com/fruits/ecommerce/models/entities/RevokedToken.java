@@ -0,0 +1,30 @@
+package com.fruits.ecommerce.models.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+
+    // The token id (jti claim) of the revoked JWT
+    @Id
+    @Column(name = "jti", length = 36)
+    private String jti;
+
+    // After this moment the token is expired anyway and the row can be purged
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
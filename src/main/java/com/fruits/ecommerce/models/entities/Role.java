@@ -1,6 +1,7 @@
 package com.fruits.ecommerce.models.entities;
 
 import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.services.Utils.RoleChangeListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,6 +13,7 @@ import java.util.Set;
 @Setter
 @Getter
 @Entity
+@EntityListeners(RoleChangeListener.class)
 @Table(name = "roles")
 public class Role {
 
@@ -1,6 +1,7 @@
 package com.fruits.ecommerce.models.entities;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fruits.ecommerce.models.enums.RoleType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
@@ -23,7 +24,7 @@ import java.util.Set;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     @Column(nullable = false, updatable = false)
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Long id;
@@ -72,6 +73,14 @@ public class User {
     private boolean isActive;
     private boolean isNotLocked;
 
+    // Bumped whenever previously issued tokens must stop working (lock, roles, password)
+    @Column(name = "security_version", nullable = false)
+    private int securityVersion;
+
+    // Only written by UserRepository's targeted updates (lockout, unlock), read-only here
+    @Column(name = "locked_at", insertable = false, updatable = false)
+    private LocalDateTime lockedAt;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -85,6 +94,15 @@ public class User {
         this.lastLogin = LocalDateTime.now();
     }
 
+    // Roles may be detached copies (e.g. from the role registry), so compare by name
+    public boolean hasRole(RoleType roleType) {
+        return roles.stream().anyMatch(role -> role.getName() == roleType);
+    }
+
+    public void bumpSecurityVersion() {
+        this.securityVersion++;
+    }
+
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
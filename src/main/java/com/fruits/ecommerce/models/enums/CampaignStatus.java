@@ -0,0 +1,5 @@
+package com.fruits.ecommerce.models.enums;
+
+public enum CampaignStatus {
+    DRAFT, RUNNING, PAUSED, COMPLETED
+}
@@ -0,0 +1,22 @@
+package com.fruits.ecommerce.models.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// Body formats of the streaming import/export endpoints
+public enum DataFormat {
+    CSV, NDJSON;
+
+    public static DataFormat fromContentType(String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith("text/csv") ? CSV : NDJSON;
+    }
+
+    // Case-insensitive, for query parameters such as ?format=csv
+    public static Optional<DataFormat> fromName(String name) {
+        return Arrays.stream(values()).filter(format -> format.name().equalsIgnoreCase(name)).findFirst();
+    }
+
+    public String getMediaType() {
+        return this == CSV ? "text/csv" : "application/x-ndjson";
+    }
+}
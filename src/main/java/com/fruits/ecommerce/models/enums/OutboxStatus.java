@@ -0,0 +1,8 @@
+package com.fruits.ecommerce.models.enums;
+
+public enum OutboxStatus {
+    // Waiting to be sent, or to be retried at next_attempt_at
+    PENDING,
+    // Gave up after the maximum number of attempts
+    FAILED
+}
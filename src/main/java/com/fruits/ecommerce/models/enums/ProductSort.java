@@ -0,0 +1,31 @@
+package com.fruits.ecommerce.models.enums;
+
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Orders of the product catalog listing. Every order ends with the id in the same direction,
+ * so (sort keys, id) is unique and a page can be resumed by seeking past the last row;
+ * each order has a matching index (V10). Text is ordered by its collation key (see ProductCollation).
+ */
+@Getter
+public enum ProductSort {
+    ID(Sort.Direction.ASC),
+    NAME(Sort.Direction.ASC, "nameKey"),
+    PRICE_ASC(Sort.Direction.ASC, "price"),
+    PRICE_DESC(Sort.Direction.DESC, "price"),
+    NEWEST(Sort.Direction.DESC, "createdAt"),
+    // Grouped by unit, cheapest first within each unit
+    UNIT_PRICE(Sort.Direction.ASC, "unitKey", "price");
+
+    private final Sort.Direction direction;
+    // Sort keys before the id
+    private final List<String> properties;
+
+    ProductSort(Sort.Direction direction, String... properties) {
+        this.direction = direction;
+        this.properties = List.of(properties);
+    }
+}
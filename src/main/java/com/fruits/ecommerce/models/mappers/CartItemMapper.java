@@ -15,6 +15,8 @@ public interface CartItemMapper {
     @Mapping(source = "product.name", target = "productName")
     @Mapping(source = "product.price", target = "productPrice")
     @Mapping(source = "cart.id", target = "cartId")
+    @Mapping(target = "imageUrl", ignore = true)
+    @Mapping(target = "lineTotal", ignore = true)
     CartItemDTO toDTO(CartItem cartItem);
 
     @InheritInverseConfiguration
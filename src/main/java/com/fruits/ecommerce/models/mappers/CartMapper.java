@@ -14,6 +14,9 @@ public interface CartMapper {
     @Mapping(source = "items", target = "items")
     @Mapping(target = "shippingCost", defaultExpression = "java(cart.getShippingCost() != null ? cart.getShippingCost() : BigDecimal.ZERO)")
     @Mapping(target = "discount", defaultExpression = "java(cart.getDiscount() != null ? cart.getDiscount() : BigDecimal.ZERO)")
+    @Mapping(target = "subtotal", ignore = true)
+    @Mapping(target = "discountAmount", ignore = true)
+    @Mapping(target = "total", ignore = true)
     CartDTO toDTO(Cart cart);
     @Mapping(target = "customer", ignore = true)
     Cart toEntity(CartDTO cartDTO);
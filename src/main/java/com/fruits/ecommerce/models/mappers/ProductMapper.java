@@ -15,8 +15,13 @@ public interface ProductMapper {
 
     @Mapping(target = "imageUrls", source = "imageUrls", qualifiedByName = "imagesToUrls")
     ProductDTO toDTO(Product product);
-    // We ignore the images when converting from DTO to Entity
+    // Without touching the lazy images: list reads fill imageUrls with one query per page
     @Mapping(target = "imageUrls", ignore = true)
+    ProductDTO toSummaryDTO(Product product);
+    // We ignore the images when converting from DTO to Entity; the sort keys are derived on save
+    @Mapping(target = "imageUrls", ignore = true)
+    @Mapping(target = "nameKey", ignore = true)
+    @Mapping(target = "unitKey", ignore = true)
     Product toEntity(ProductDTO productDTO);
 
     @Named("imagesToUrls")
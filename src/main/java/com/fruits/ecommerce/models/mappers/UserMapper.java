@@ -36,6 +36,9 @@ public interface UserMapper {
      */
     @Mapping(target = "roles", ignore = true)
     @Mapping(target = "password", source = "password")
+    // Security state is owned by the server: bumped on revocation, set by lockouts, never taken from a DTO
+    @Mapping(target = "securityVersion", ignore = true)
+    @Mapping(target = "lockedAt", ignore = true)
     @InheritInverseConfiguration
     User toEntity(UserDTO userDTO);
 
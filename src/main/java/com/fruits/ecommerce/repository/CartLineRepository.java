@@ -0,0 +1,172 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.entities.CartItemKey;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JDBC writes to cart_items that need neither the Cart nor its items loaded.
+ * Adding to a line is a single atomic statement: concurrent adds of the same product never lose an increment.
+ * Changes to many lines are sent as one JDBC batch per kind of change.
+ */
+@Repository
+public class CartLineRepository {
+    private static final String SELECT_CART_ID = "SELECT id FROM carts WHERE customer_id = :customerId";
+    private static final String SELECT_PRODUCT_IDS = "SELECT id FROM products WHERE id IN (:ids)";
+    private static final String DELETE_LINES = "DELETE FROM cart_items WHERE cart_id = :cartId AND product_id IN (:ids)";
+    private static final String DELETE_EMPTY_LINES = "DELETE FROM cart_items WHERE cart_id = :cartId AND quantity <= 0";
+    private static final String DELETE_CART_LINES = "DELETE FROM cart_items WHERE cart_id = :cartId";
+    private static final String DELETE_LINE = "DELETE FROM cart_items WHERE cart_id = :cartId AND product_id = :productId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    // Picked on the first write, from the database behind the data source: creating the bean opens no connection
+    private volatile String addQuantitySql;
+    private volatile String setQuantitySql;
+
+    public CartLineRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Customer ids are their user ids.
+     */
+    public Optional<Long> findCartId(long customerId) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_CART_ID,
+                new MapSqlParameterSource("customerId", customerId), Long.class);
+        return ids.stream().findFirst();
+    }
+
+    /**
+     * Adds quantity to the product's line in the cart, creating the line if there is none.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the cart or the product does not exist.
+     */
+    public void addQuantity(long cartId, long productId, int quantity) {
+        MapSqlParameterSource params = line(cartId, productId, quantity);
+        try {
+            jdbcTemplate.update(upsertSql(true), params);
+        } catch (DuplicateKeyException e) {
+            // Only the MERGE: a concurrent add inserted the line first, so it matches now
+            jdbcTemplate.update(upsertSql(true), params);
+        }
+    }
+
+    /**
+     * Adds each quantity (which may be negative) to its product's line, creating missing lines, in one batch.
+     * Lines left at zero or below stay until {@link #removeEmptyLines(long)}.
+     */
+    public void addQuantities(long cartId, Map<Long, Integer> quantities) {
+        // Not retried like addQuantity: the lines of the batch that went through would be added twice
+        jdbcTemplate.batchUpdate(upsertSql(true), lines(cartId, quantities));
+    }
+
+    /**
+     * Sets the quantity of each product's line, creating missing lines, in one batch.
+     */
+    public void setQuantities(long cartId, Map<Long, Integer> quantities) {
+        MapSqlParameterSource[] lines = lines(cartId, quantities);
+        try {
+            jdbcTemplate.batchUpdate(upsertSql(false), lines);
+        } catch (DuplicateKeyException e) {
+            // Only the MERGE, as in addQuantity; setting twice is harmless
+            jdbcTemplate.batchUpdate(upsertSql(false), lines);
+        }
+    }
+
+    public void removeLines(long cartId, Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            jdbcTemplate.update(DELETE_LINES, new MapSqlParameterSource("cartId", cartId).addValue("ids", productIds));
+        }
+    }
+
+    public void removeEmptyLines(long cartId) {
+        jdbcTemplate.update(DELETE_EMPTY_LINES, new MapSqlParameterSource("cartId", cartId));
+    }
+
+    public void clear(long cartId) {
+        jdbcTemplate.update(DELETE_CART_LINES, new MapSqlParameterSource("cartId", cartId));
+    }
+
+    /**
+     * Writes lines of any carts: a positive quantity is set (creating the line), 0 deletes the line.
+     * One batch of upserts and one of deletes.
+     */
+    public void writeLines(Map<CartItemKey, Integer> quantities) {
+        List<MapSqlParameterSource> upserts = new ArrayList<>();
+        List<MapSqlParameterSource> deletes = new ArrayList<>();
+        quantities.forEach((key, quantity) -> (quantity > 0 ? upserts : deletes)
+                .add(line(key.getCartId(), key.getProductId(), quantity)));
+        if (!upserts.isEmpty()) {
+            MapSqlParameterSource[] lines = upserts.toArray(MapSqlParameterSource[]::new);
+            try {
+                jdbcTemplate.batchUpdate(upsertSql(false), lines);
+            } catch (DuplicateKeyException e) {
+                // Only the MERGE, as in setQuantities
+                jdbcTemplate.batchUpdate(upsertSql(false), lines);
+            }
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_LINE, deletes.toArray(MapSqlParameterSource[]::new));
+        }
+    }
+
+    /**
+     * @return The given product ids that exist, with one query.
+     */
+    public Set<Long> findExistingProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(SELECT_PRODUCT_IDS,
+                new MapSqlParameterSource("ids", productIds), Long.class));
+    }
+
+    private String upsertSql(boolean add) {
+        if (setQuantitySql == null) {
+            String database = jdbcTemplate.getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            boolean h2 = "H2".equals(database);
+            addQuantitySql = upsert(h2, true);
+            setQuantitySql = upsert(h2, false);
+        }
+        return add ? addQuantitySql : setQuantitySql;
+    }
+
+    // INSERT ... ON DUPLICATE KEY UPDATE on MySQL; H2 (tests) has the same effect with a MERGE
+    private static String upsert(boolean h2, boolean add) {
+        if (!h2) {
+            return "INSERT INTO cart_items (cart_id, product_id, quantity) VALUES (:cartId, :productId, :quantity) "
+                    + "ON DUPLICATE KEY UPDATE quantity = " + (add ? "quantity + " : "") + ":quantity";
+        }
+        return "MERGE INTO cart_items t USING (VALUES (CAST(:cartId AS BIGINT), CAST(:productId AS BIGINT), "
+                + "CAST(:quantity AS INT))) s (cart_id, product_id, quantity) "
+                + "ON t.cart_id = s.cart_id AND t.product_id = s.product_id "
+                + "WHEN MATCHED THEN UPDATE SET quantity = " + (add ? "t.quantity + " : "")
+                + "s.quantity WHEN NOT MATCHED THEN INSERT (cart_id, product_id, quantity) "
+                + "VALUES (s.cart_id, s.product_id, s.quantity)";
+    }
+
+    private static MapSqlParameterSource[] lines(long cartId, Map<Long, Integer> quantities) {
+        return quantities.entrySet().stream()
+                .map(entry -> line(cartId, entry.getKey(), entry.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+    }
+
+    private static MapSqlParameterSource line(long cartId, long productId, int quantity) {
+        return new MapSqlParameterSource("cartId", cartId)
+                .addValue("productId", productId)
+                .addValue("quantity", quantity);
+    }
+}
@@ -0,0 +1,66 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * Read-only JDBC access for showing a cart: the cart, its lines and each line's product name, price and
+ * first image come from a single query, without loading entities.
+ */
+@Repository
+public class CartViewRepository {
+    // One row per line, or a single row with null line columns for an empty cart
+    private static final String SELECT_CART = "SELECT c.id, c.shipping_cost, c.discount, "
+            + "ci.product_id, ci.quantity, p.name, p.price, "
+            + "(SELECT pi.image_url FROM product_images pi WHERE pi.product_id = p.id ORDER BY pi.id LIMIT 1) "
+            + "AS image_url "
+            + "FROM carts c LEFT JOIN cart_items ci ON ci.cart_id = c.id LEFT JOIN products p ON p.id = ci.product_id "
+            + "WHERE c.customer_id = :customerId ORDER BY c.id, ci.product_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CartViewRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Customer ids are their user ids.
+     *
+     * @return The cart with its lines in product id order (totals not computed), or empty if the customer has none.
+     */
+    public Optional<CartDTO> findByCustomerId(long customerId) {
+        CartDTO[] cart = new CartDTO[1];
+        jdbcTemplate.query(SELECT_CART, new MapSqlParameterSource("customerId", customerId), resultSet -> {
+            if (cart[0] == null) {
+                cart[0] = new CartDTO();
+                cart[0].setId(resultSet.getLong("id"));
+                cart[0].setCustomerId(customerId);
+                cart[0].setShippingCost(resultSet.getBigDecimal("shipping_cost"));
+                cart[0].setDiscount(resultSet.getBigDecimal("discount"));
+                cart[0].setItems(new ArrayList<>());
+            } else if (resultSet.getLong("id") != cart[0].getId()) {
+                // A customer has one cart; should there be more, the first one is shown
+                return;
+            }
+            long productId = resultSet.getLong("product_id");
+            if (!resultSet.wasNull()) {
+                CartItemDTO item = new CartItemDTO();
+                item.setCartId(cart[0].getId());
+                item.setProductId(productId);
+                item.setQuantity(resultSet.getInt("quantity"));
+                item.setProductName(resultSet.getString("name"));
+                item.setProductPrice(resultSet.getBigDecimal("price"));
+                item.setImageUrl(resultSet.getString("image_url"));
+                cart[0].getItems().add(item);
+            }
+        });
+        return Optional.ofNullable(cart[0]);
+    }
+}
@@ -0,0 +1,73 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.entities.EmailCampaign;
+import com.fruits.ecommerce.models.enums.CampaignStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, Long> {
+
+    /**
+     * Marks the campaign RUNNING for the given runner, if it is startable or its previous runner's lease expired.
+     * Any earlier runner loses the campaign.
+     *
+     * @return 1 if claimed, 0 otherwise.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.status = :running, c.leaseUntil = :leaseUntil, c.claimedBy = :runner, "
+            + "c.startedAt = COALESCE(c.startedAt, :now) WHERE c.id = :id AND (c.status IN :startable "
+            + "OR (c.status = :running AND (c.leaseUntil IS NULL OR c.leaseUntil < :now)))")
+    int claim(@Param("id") Long id, @Param("running") CampaignStatus running,
+              @Param("startable") Collection<CampaignStatus> startable,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("runner") String runner);
+
+    /**
+     * Records a sent page and renews the lease, only while the runner still holds the campaign.
+     *
+     * @return 1 if recorded, 0 if the campaign was claimed by another runner since.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.lastUserId = :lastUserId, c.sentCount = c.sentCount + :sent, "
+            + "c.failedCount = c.failedCount + :failed, c.leaseUntil = :leaseUntil "
+            + "WHERE c.id = :id AND c.claimedBy = :runner")
+    int checkpoint(@Param("id") Long id, @Param("runner") String runner, @Param("lastUserId") long lastUserId,
+                   @Param("sent") long sent, @Param("failed") long failed,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.status = :completed, c.leaseUntil = NULL, c.completedAt = :completedAt "
+            + "WHERE c.id = :id AND c.status = :running AND c.claimedBy = :runner")
+    int complete(@Param("id") Long id, @Param("runner") String runner, @Param("running") CampaignStatus running,
+                 @Param("completed") CampaignStatus completed, @Param("completedAt") LocalDateTime completedAt);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE EmailCampaign c SET c.status = :status, c.leaseUntil = NULL, c.completedAt = :completedAt "
+            + "WHERE c.id = :id AND c.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") CampaignStatus expected,
+                     @Param("status") CampaignStatus status, @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * @return The status, or empty if the campaign is now claimed by another runner.
+     */
+    @Query("SELECT c.status FROM EmailCampaign c WHERE c.id = :id AND c.claimedBy = :runner")
+    Optional<CampaignStatus> findStatusIfClaimedBy(@Param("id") Long id, @Param("runner") String runner);
+
+    @Query("SELECT c.id FROM EmailCampaign c WHERE c.status = :running "
+            + "AND (c.leaseUntil IS NULL OR c.leaseUntil < :now)")
+    List<Long> findStalled(@Param("running") CampaignStatus running, @Param("now") LocalDateTime now);
+}
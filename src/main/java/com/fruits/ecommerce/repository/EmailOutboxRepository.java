@@ -0,0 +1,9 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.entities.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+}
@@ -0,0 +1,210 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only JDBC access for the product catalog, reading ProductDTOs without loading entities:
+ * a page of products is one query, and the image URLs of the whole page are one more query on the page's ids,
+ * whatever the page size.
+ */
+@Repository
+public class ProductCatalogRepository {
+    private static final String PRODUCT_COLUMNS = "p.id, p.sku, p.name, p.unit, p.price, p.description, "
+            + "p.created_at, p.updated_at, p.name_key, p.unit_key";
+    private static final String SELECT_IMAGE_URLS = "SELECT product_id, image_url FROM product_images "
+            + "WHERE product_id IN (:ids) ORDER BY product_id, id";
+
+    // Sort property -> column; text is sorted by its collation key column
+    private static final Map<String, String> SORT_COLUMNS = Map.of("nameKey", "name_key", "unitKey", "unit_key",
+            "price", "price", "createdAt", "created_at");
+    private static final Set<String> NOT_NULL_COLUMNS = Set.of("p.name_key", "p.price", "p.created_at");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductCatalogRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * @param sort     Order of the products, ending with the id.
+     * @param position Keys of the last product of the previous page, or the initial position.
+     * @param limit    Maximum number of products.
+     * @return Products following the position in sort order, with their image URLs.
+     */
+    public List<ProductDTO> findPage(ProductSort sort, KeysetScrollPosition position, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<ProductDTO> products = jdbcTemplate.query(pageQuery(sort, position, limit, params), params,
+                (resultSet, rowNum) -> mapProduct(resultSet));
+        attachImageUrls(products);
+        return products;
+    }
+
+    // Seeks past (sort keys, id) and reads in index order: no OFFSET and no filesort
+    static String pageQuery(ProductSort sort, KeysetScrollPosition position, int limit,
+                            MapSqlParameterSource params) {
+        boolean ascending = sort.getDirection() == Sort.Direction.ASC;
+        String direction = ascending ? " ASC" : " DESC";
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        for (String property : sort.getProperties()) {
+            orderBy.append("p.").append(SORT_COLUMNS.get(property)).append(direction).append(", ");
+        }
+        orderBy.append("p.id").append(direction);
+        params.addValue("limit", limit);
+        return "SELECT " + PRODUCT_COLUMNS + " FROM products p" + seek(sort, position, params) + orderBy
+                + " LIMIT :limit";
+    }
+
+    public Optional<ProductDTO> findById(Long id) {
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products p WHERE p.id = :id";
+        List<ProductDTO> products = jdbcTemplate.query(sql, new MapSqlParameterSource("id", id),
+                (resultSet, rowNum) -> mapProduct(resultSet));
+        attachImageUrls(products);
+        return products.stream().findFirst();
+    }
+
+    /**
+     * @return The existing products among the ids, in the order of the ids.
+     */
+    public List<ProductDTO> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + PRODUCT_COLUMNS + " FROM products p WHERE p.id IN (:ids)";
+        Map<Long, ProductDTO> byId = new HashMap<>();
+        jdbcTemplate.query(sql, new MapSqlParameterSource("ids", ids), resultSet -> {
+            ProductDTO product = mapProduct(resultSet);
+            byId.put(product.getId(), product);
+        });
+        List<ProductDTO> products = ids.stream().map(byId::get).filter(Objects::nonNull).distinct()
+                .collect(Collectors.toCollection(ArrayList::new));
+        attachImageUrls(products);
+        return products;
+    }
+
+    /**
+     * Hands every product, with its image URLs, to the consumer in id-ordered pages of the given size.
+     */
+    public void forEachPage(int pageSize, Consumer<List<ProductDTO>> consumer) {
+        KeysetScrollPosition position = ScrollPosition.keyset();
+        List<ProductDTO> page;
+        do {
+            page = findPage(ProductSort.ID, position, pageSize);
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                position = ScrollPosition.forward(Map.of("id", page.get(page.size() - 1).getId()));
+            }
+        } while (page.size() == pageSize);
+    }
+
+    /**
+     * @return Number of carts holding each product, for the products in at least one cart.
+     */
+    public Map<Long, Long> countCartsByProduct() {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, COUNT(*) AS carts FROM cart_items GROUP BY product_id",
+                resultSet -> {
+                    counts.put(resultSet.getLong("product_id"), resultSet.getLong("carts"));
+                });
+        return counts;
+    }
+
+    /**
+     * Fills the image URLs of the given products with a single query.
+     */
+    public void attachImageUrls(List<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductDTO> byId = products.stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity(), (first, second) -> first,
+                        LinkedHashMap::new));
+        byId.values().forEach(product -> product.setImageUrls(new ArrayList<>()));
+        jdbcTemplate.query(SELECT_IMAGE_URLS, new MapSqlParameterSource("ids", byId.keySet()), resultSet -> {
+            byId.get(resultSet.getLong("product_id")).getImageUrls().add(resultSet.getString("image_url"));
+        });
+    }
+
+    // Rows strictly after (keys, id) in sort order. NULL sorts lowest, as in MySQL and H2
+    private static String seek(ProductSort sort, KeysetScrollPosition position, MapSqlParameterSource params) {
+        if (position.isInitial()) {
+            return "";
+        }
+        boolean ascending = sort.getDirection() == Sort.Direction.ASC;
+        String after = ascending ? " > " : " < ";
+        params.addValue("id", position.getKeys().get("id"));
+        List<String> alternatives = new ArrayList<>();
+        StringBuilder equalSoFar = new StringBuilder();
+        String rangeStart = null;
+        for (int index = 0; index < sort.getProperties().size(); index++) {
+            String property = sort.getProperties().get(index);
+            String column = "p." + SORT_COLUMNS.get(property);
+            String parameter = "key" + index;
+            Object value = position.getKeys().get(property);
+            params.addValue(parameter, value);
+            String greater;
+            if (value == null) {
+                // After NULL: any value when ascending, nothing when descending
+                greater = ascending ? column + " IS NOT NULL" : null;
+            } else {
+                greater = column + after + ":" + parameter
+                        + (ascending || NOT_NULL_COLUMNS.contains(column) ? "" : " OR " + column + " IS NULL");
+            }
+            if (greater != null) {
+                alternatives.add(equalSoFar + "(" + greater + ")");
+            }
+            equalSoFar.append(value == null ? column + " IS NULL" : column + " = :" + parameter).append(" AND ");
+            if (index == 0 && value != null && (ascending || NOT_NULL_COLUMNS.contains(column))) {
+                // Redundant bound on the leading key, so the index is entered at the cursor rather than scanned
+                rangeStart = column + (ascending ? " >= :" : " <= :") + parameter;
+            }
+        }
+        alternatives.add(equalSoFar + "p.id" + after + ":id");
+        String condition = alternatives.size() == 1 ? alternatives.get(0)
+                : "(" + String.join(" OR ", alternatives.stream().map(term -> "(" + term + ")").toList()) + ")";
+        return " WHERE " + (rangeStart == null ? "" : rangeStart + " AND ") + condition;
+    }
+
+    private static ProductDTO mapProduct(ResultSet resultSet) throws SQLException {
+        ProductDTO product = new ProductDTO();
+        product.setId(resultSet.getLong("id"));
+        product.setSku(resultSet.getString("sku"));
+        product.setName(resultSet.getString("name"));
+        product.setUnit(resultSet.getString("unit"));
+        product.setPrice(resultSet.getBigDecimal("price"));
+        product.setDescription(resultSet.getString("description"));
+        product.setCreatedAt(toLocalDateTime(resultSet.getTimestamp("created_at")));
+        product.setUpdatedAt(toLocalDateTime(resultSet.getTimestamp("updated_at")));
+        product.setNameKey(resultSet.getString("name_key"));
+        product.setUnitKey(resultSet.getString("unit_key"));
+        return product;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,142 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only JDBC access for listing users without loading entities:
+ * keyset pages on users.id (roles attached with one extra query per page) and a forward-only
+ * streaming read with a JDBC fetch size for exports.
+ */
+@Repository
+public class UserDirectoryRepository {
+    private static final String USER_COLUMNS = "u.id, u.first_name, u.last_name, u.user_name, u.email, u.address, "
+            + "u.created_at, u.updated_at, u.last_login, u.is_active, u.is_not_locked";
+    private static final String SELECT_ROLES = "SELECT ur.user_id, r.name FROM user_roles ur "
+            + "JOIN roles r ON r.id = ur.role_id WHERE ur.user_id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public UserDirectoryRepository(DataSource dataSource,
+                                   @Value("${app.users.export-fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        // With MySQL this streams through a server-side cursor (useCursorFetch=true in the datasource URL)
+        streaming.setFetchSize(exportFetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /**
+     * @param filter  Optional filters.
+     * @param afterId Only users with a greater id are returned (0 for the first page).
+     * @param limit   Maximum number of users.
+     * @param roleId  Id of the role the users must have, or null for any.
+     * @return Users in id order, with their roles.
+     */
+    public List<UserDTO> findPage(UserFilterDTO filter, long afterId, int limit, Integer roleId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("afterId", afterId).addValue("limit", limit);
+        String sql = "SELECT " + USER_COLUMNS + " FROM users u WHERE u.id > :afterId"
+                + where(filter, roleId, params) + " ORDER BY u.id LIMIT :limit";
+        Map<Long, UserDTO> users = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, params, resultSet -> {
+            UserDTO user = mapUser(resultSet);
+            users.put(user.getId(), user);
+        });
+        if (!users.isEmpty()) {
+            jdbcTemplate.query(SELECT_ROLES, new MapSqlParameterSource("ids", users.keySet()), resultSet -> {
+                users.get(resultSet.getLong("user_id")).getRoles().add(resultSet.getString("name"));
+            });
+        }
+        return new ArrayList<>(users.values());
+    }
+
+    /**
+     * Streams every matching user in id order to the consumer, holding only the current row in memory.
+     */
+    public void stream(UserFilterDTO filter, Integer roleId, Consumer<UserDTO> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        // Roles are joined: consecutive rows of the same user are folded into one UserDTO
+        String sql = "SELECT " + USER_COLUMNS + ", r.name AS role_name FROM users u "
+                + "LEFT JOIN user_roles ur ON ur.user_id = u.id LEFT JOIN roles r ON r.id = ur.role_id "
+                + "WHERE 1 = 1" + where(filter, roleId, params) + " ORDER BY u.id";
+        UserDTO[] current = new UserDTO[1];
+        streamingJdbcTemplate.query(sql, params, resultSet -> {
+            long id = resultSet.getLong("id");
+            if (current[0] == null || current[0].getId() != id) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = mapUser(resultSet);
+            }
+            String role = resultSet.getString("role_name");
+            if (role != null) {
+                current[0].getRoles().add(role);
+            }
+        });
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    private static String where(UserFilterDTO filter, Integer roleId, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder();
+        if (filter.getLocked() != null) {
+            where.append(" AND u.is_not_locked = :notLocked");
+            params.addValue("notLocked", !filter.getLocked());
+        }
+        if (StringUtils.hasText(filter.getNamePrefix())) {
+            where.append(" AND u.user_name LIKE :namePrefix");
+            params.addValue("namePrefix", escapeLike(filter.getNamePrefix()) + "%");
+        }
+        if (roleId != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM user_roles fr WHERE fr.user_id = u.id AND fr.role_id = :roleId)");
+            params.addValue("roleId", roleId);
+        }
+        return where.toString();
+    }
+
+    // '_' is common in usernames and must not act as a wildcard
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static UserDTO mapUser(ResultSet resultSet) throws SQLException {
+        UserDTO user = new UserDTO();
+        user.setId(resultSet.getLong("id"));
+        user.setFirstName(resultSet.getString("first_name"));
+        user.setLastName(resultSet.getString("last_name"));
+        user.setUsername(resultSet.getString("user_name"));
+        user.setEmail(resultSet.getString("email"));
+        user.setAddress(resultSet.getString("address"));
+        user.setCreatedAt(toLocalDateTime(resultSet.getTimestamp("created_at")));
+        user.setUpdatedAt(toLocalDateTime(resultSet.getTimestamp("updated_at")));
+        user.setLastLogin(toLocalDateTime(resultSet.getTimestamp("last_login")));
+        user.setActive(resultSet.getBoolean("is_active"));
+        user.setNotLocked(resultSet.getBoolean("is_not_locked"));
+        user.setRoles(new HashSet<>());
+        return user;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -2,8 +2,13 @@ package com.fruits.ecommerce.repository;
 
 import com.fruits.ecommerce.models.entities.Role;
 import com.fruits.ecommerce.models.entities.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,6 +22,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     Optional<User>findByUsernameOrEmail(String username, String email);
+    // Login lookup: user and roles in a single round trip
+    @EntityGraph(attributePaths = "roles")
+    @Query("SELECT u FROM User u WHERE u.username = :identifier OR u.email = :identifier")
+    Optional<User> findWithRolesByIdentifier(@Param("identifier") String identifier);
     List<User> findAllByRoles(Role role);
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePasswordById(@Param("id") Long id, @Param("password") String password);
+    // Only the first of concurrent lockouts matches (1 row); tokens issued before it stop working
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.isNotLocked = false, u.lockedAt = :lockedAt, "
+            + "u.securityVersion = u.securityVersion + 1 WHERE u.id = :id AND u.isNotLocked = true")
+    int lockAfterFailedLogins(@Param("id") Long id, @Param("lockedAt") LocalDateTime lockedAt);
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.lockedAt = null WHERE u.id = :id")
+    int clearLockedAt(@Param("id") Long id);
+    @Query("SELECT u.securityVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findSecurityVersionById(@Param("id") Long id);
 
 }
@@ -1,9 +1,16 @@
 package com.fruits.ecommerce.services.Interfaces;
 
 import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartOperationDTO;
 import org.springframework.security.core.Authentication;
 
+import java.util.List;
+
 public interface ICartService {
     void addProductToCart(Authentication authentication, Long productId, int quantity);
+    void setItemQuantity(Authentication authentication, Long productId, int quantity);
+    void removeItem(Authentication authentication, Long productId);
+    void clearCart(Authentication authentication);
+    CartDTO applyCartOperations(Authentication authentication, List<CartOperationDTO> operations);
     CartDTO getCartDetails(Authentication authentication);
 }
\ No newline at end of file
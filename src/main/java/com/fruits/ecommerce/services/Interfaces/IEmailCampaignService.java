@@ -0,0 +1,31 @@
+package com.fruits.ecommerce.services.Interfaces;
+
+import com.fruits.ecommerce.models.dtos.EmailCampaignDTO;
+
+public interface IEmailCampaignService {
+
+    /**
+     * Saves a campaign as DRAFT after checking its template.
+     */
+    EmailCampaignDTO createCampaign(EmailCampaignDTO campaignDTO);
+
+    EmailCampaignDTO getCampaign(Long campaignId);
+
+    /**
+     * Starts a DRAFT campaign, or resumes a PAUSED one after its checkpoint, in the background.
+     */
+    EmailCampaignDTO startCampaign(Long campaignId);
+
+    /**
+     * Stops a RUNNING campaign once the current page of recipients is sent.
+     */
+    EmailCampaignDTO pauseCampaign(Long campaignId);
+
+    /**
+     * Sends the campaign on the calling thread, page by page from its checkpoint,
+     * until every recipient is processed, the campaign is paused, or another runner claims it.
+     *
+     * @param runner The runner id the campaign was claimed with.
+     */
+    void runCampaign(Long campaignId, String runner) throws InterruptedException;
+}
@@ -0,0 +1,25 @@
+package com.fruits.ecommerce.services.Interfaces;
+
+import com.fruits.ecommerce.models.dtos.ProductImportSummaryDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IProductImportService {
+
+    /**
+     * Creates or updates products by SKU from a CSV (with a header row) or NDJSON stream, chunk by chunk.
+     * One {@link com.fruits.ecommerce.models.dtos.ProductImportResultDTO} per input row is written to the output
+     * as NDJSON while the import runs, followed by the summary line.
+     *
+     * @param input  CSV or NDJSON rows with the ProductDTO fields sku, name, unit, price and description.
+     * @param format The input format.
+     * @param output Where the NDJSON results are streamed.
+     * @return The import summary (also written as the last output line).
+     * @throws IOException If reading the input or writing the results fails.
+     */
+    ProductImportSummaryDTO importProducts(InputStream input, DataFormat format, OutputStream output)
+            throws IOException;
+}
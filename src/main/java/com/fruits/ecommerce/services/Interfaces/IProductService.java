@@ -5,7 +5,12 @@ import com.fruits.ecommerce.exceptions.products.InvalidImageException;
 import com.fruits.ecommerce.exceptions.products.InvalidProductDataException;
 import com.fruits.ecommerce.exceptions.products.ProductNotFoundException;
 import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
 import com.fruits.ecommerce.models.dtos.ProductImageDTO;
+import com.fruits.ecommerce.models.dtos.ProductPageDTO;
+import com.fruits.ecommerce.models.dtos.ProductSearchResultDTO;
+import com.fruits.ecommerce.models.dtos.ProductSuggestionDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +23,10 @@ public interface IProductService {
 
     ProductDTO createProduct(ProductDTO productDTO) throws InvalidProductDataException;
     Page<ProductDTO> listProducts(int page, int pageSize);
+    ProductPageDTO listProducts(ProductFilterDTO filter, String cursor, int limit, ProductSort sort,
+                                boolean includeTotal) throws InvalidProductDataException;
+    ProductSearchResultDTO searchProducts(String query, int limit);
+    List<ProductSuggestionDTO> suggestProducts(String prefix, int limit);
     ProductDTO getProductById(Long id) throws ProductNotFoundException;
     List<ProductImageDTO> addImagesToProduct(Long productId, List<MultipartFile> images)
             throws ProductNotFoundException, InvalidImageException, IOException;
@@ -0,0 +1,41 @@
+package com.fruits.ecommerce.services.Interfaces;
+
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
+import com.fruits.ecommerce.models.dtos.UserPageDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IUserDirectoryService {
+
+    /**
+     * Lists users page by page, ordered by id.
+     *
+     * @param filter Optional role, locked-state and username-prefix filters.
+     * @param after  The nextCursor of the previous page, or null for the first page.
+     * @param limit  Page size (capped by configuration).
+     * @return The page and the cursor of the next one.
+     */
+    UserPageDTO listUsers(UserFilterDTO filter, Long after, int limit);
+
+    /**
+     * Writes every matching user, ordered by id, to the output as one JSON array (the response shape before
+     * paging) while reading them, in constant memory.
+     *
+     * @param filter Optional role, locked-state and username-prefix filters.
+     * @param output Where the array is written.
+     * @throws IOException If writing to the output fails.
+     */
+    void writeAllUsers(UserFilterDTO filter, OutputStream output) throws IOException;
+
+    /**
+     * Writes every matching user to the output as CSV or NDJSON while reading them, in constant memory.
+     *
+     * @param filter Optional role, locked-state and username-prefix filters.
+     * @param format The output format.
+     * @param output Where the users are written.
+     * @throws IOException If writing to the output fails.
+     */
+    void exportUsers(UserFilterDTO filter, DataFormat format, OutputStream output) throws IOException;
+}
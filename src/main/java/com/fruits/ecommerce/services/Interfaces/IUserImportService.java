@@ -0,0 +1,24 @@
+package com.fruits.ecommerce.services.Interfaces;
+
+import com.fruits.ecommerce.models.dtos.UserImportSummaryDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IUserImportService {
+
+    /**
+     * Imports users from a CSV (with a header row) or NDJSON stream, chunk by chunk.
+     * One {@link com.fruits.ecommerce.models.dtos.UserImportResultDTO} per input row is written to the output
+     * as NDJSON while the import runs, followed by the summary line.
+     *
+     * @param input  CSV or NDJSON rows with the UserDTO fields (roles separated by '|' in CSV).
+     * @param format The input format.
+     * @param output Where the NDJSON results are streamed.
+     * @return The import summary (also written as the last output line).
+     * @throws IOException If reading the input or writing the results fails.
+     */
+    UserImportSummaryDTO importUsers(InputStream input, DataFormat format, OutputStream output) throws IOException;
+}
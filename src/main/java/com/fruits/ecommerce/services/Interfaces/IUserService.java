@@ -6,12 +6,9 @@ import com.fruits.ecommerce.models.dtos.LoginRequestDTO;
 import com.fruits.ecommerce.models.dtos.UserDTO;
 import com.fruits.ecommerce.models.entities.User;
 import com.fruits.ecommerce.models.enums.RoleType;
-import jakarta.mail.MessagingException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 
-import javax.management.relation.RoleNotFoundException;
-import java.util.List;
 import java.util.Optional;
 
 public interface IUserService {
@@ -39,13 +36,19 @@ public interface IUserService {
      * @throws BadCredentialsException If the provided credentials are incorrect.
      */
     AuthResponseDTO login(LoginRequestDTO loginRequest);
+
+    /**
+     * Revokes the given token so it is rejected until it expires.
+     *
+     * @param token The raw JWT (without the "Bearer " prefix) to revoke.
+     * @throws InvalidTokenException If the token cannot be verified or carries no token id.
+     */
+    void logout(String token);
     void lockUser(String identifier);
     void unlockUser(String identifier);
     // adding Role To User-Account
     void addRoleToUser(Long userId, RoleType roleType) throws UserNotFoundException, InvalidRoleException;
     void removeRoleFromUser(Long userId, RoleType roleType) throws UserNotFoundException, InvalidRoleException;
-    List<UserDTO> getAllCustomers() throws RoleNotFoundException;
-    List<UserDTO> getAllUsers();
 
 
     /**
@@ -82,7 +85,7 @@ public interface IUserService {
     void changePassword(Long userId, String oldPassword, String newPassword)
             throws UserNotFoundException, BadCredentialsException, InvalidUserDataException;
 
-    void resetPassword(Long userId) throws UserNotFoundException, MessagingException;
+    void resetPassword(Long userId) throws UserNotFoundException;
 
     Optional<User> findByUsername(String username);
 }
@@ -0,0 +1,193 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends campaign emails through a fixed pool of persistent SMTP connections: each worker thread keeps
+ * its own transport open across messages (reconnecting once if the server dropped it), and every send first
+ * takes a slot from a shared throttle, so the total rate never exceeds the configured messages per second.
+ */
+@Slf4j
+@Service
+public class CampaignMailer {
+
+    private final JavaMailSenderImpl mailSender;
+    private final String fromEmail;
+    private final ExecutorService workers;
+    private final Throttle throttle;
+    private final ThreadLocal<Transport> connection = new ThreadLocal<>();
+    private final Queue<Transport> openConnections = new ConcurrentLinkedQueue<>();
+    private final Counter sent;
+    private final Counter failed;
+    private final Timer sendTimer;
+
+    public CampaignMailer(JavaMailSenderImpl mailSender,
+                          @Value("${spring.mail.username}") String fromEmail,
+                          @Value("${app.campaigns.connections:4}") int connections,
+                          @Value("${app.campaigns.messages-per-second:10}") double messagesPerSecond,
+                          MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.fromEmail = fromEmail;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "campaign-smtp-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.throttle = new Throttle(messagesPerSecond);
+        this.sent = meterRegistry.counter("email.campaign.messages", "result", "sent");
+        this.failed = meterRegistry.counter("email.campaign.messages", "result", "failed");
+        this.sendTimer = Timer.builder("email.campaign.send.duration").register(meterRegistry);
+        meterRegistry.gauge("email.campaign.connections", openConnections, Queue::size);
+    }
+
+    /**
+     * Renders and sends one email per recipient, blocking until all of them were handed to the server or failed.
+     *
+     * @return number of recipients the server accepted; the others count as failed.
+     */
+    public int send(List<UserDTO> recipients, String subject, CampaignTemplate body) throws InterruptedException {
+        List<Future<Boolean>> results = new ArrayList<>(recipients.size());
+        for (UserDTO recipient : recipients) {
+            results.add(workers.submit(() -> sendOne(recipient, subject, body)));
+        }
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) {
+                    accepted++;
+                }
+            } catch (ExecutionException e) {
+                log.error("Campaign email task failed", e.getCause());
+            }
+        }
+        return accepted;
+    }
+
+    private boolean sendOne(UserDTO recipient, String subject, CampaignTemplate body) throws InterruptedException {
+        throttle.acquire();
+        long start = System.nanoTime();
+        try {
+            MimeMessage message = new MimeMessage(mailSender.getSession());
+            message.setFrom(new InternetAddress(fromEmail));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipient.getEmail()));
+            message.setSubject(subject, StandardCharsets.UTF_8.name());
+            message.setText(body.render(recipient), StandardCharsets.UTF_8.name());
+            message.saveChanges();
+            try {
+                transport().sendMessage(message, message.getAllRecipients());
+            } catch (SendFailedException e) {
+                throw e;
+            } catch (MessagingException e) {
+                // The server may have closed an idle connection: reconnect once
+                closeConnection();
+                transport().sendMessage(message, message.getAllRecipients());
+            }
+            sent.increment();
+            return true;
+        } catch (MessagingException | RuntimeException e) {
+            failed.increment();
+            log.debug("Campaign email to {} failed: {}", recipient.getEmail(), e.getMessage());
+            return false;
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Transport transport() throws MessagingException {
+        Transport transport = connection.get();
+        if (transport == null) {
+            Session session = mailSender.getSession();
+            String protocol = mailSender.getProtocol();
+            transport = session.getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(),
+                    mailSender.getPassword());
+            connection.set(transport);
+            openConnections.add(transport);
+        }
+        return transport;
+    }
+
+    private void closeConnection() {
+        Transport transport = connection.get();
+        if (transport != null) {
+            connection.remove();
+            openConnections.remove(transport);
+            close(transport);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        Transport transport;
+        while ((transport = openConnections.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Spaces permits evenly at the configured rate; each caller reserves the next free slot and waits for it.
+     */
+    static final class Throttle {
+        private final long intervalNanos;
+        private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+        Throttle(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        }
+
+        void acquire() throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long slot = nextSlot.getAndAccumulate(now, (next, current) -> Math.max(next, current) + intervalNanos);
+            long wait = Math.max(slot, now) - now;
+            while (wait > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                wait = Math.max(slot, now) - System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidCampaignException;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Email template compiled once per campaign into literal and field segments,
+ * so rendering for each recipient is a sequence of appends into one presized buffer.
+ * Placeholders: {{firstName}}, {{lastName}}, {{username}}, {{email}}.
+ */
+public final class CampaignTemplate {
+
+    private static final Map<String, Function<UserDTO, String>> FIELDS = Map.of(
+            "firstName", UserDTO::getFirstName,
+            "lastName", UserDTO::getLastName,
+            "username", UserDTO::getUsername,
+            "email", UserDTO::getEmail);
+    // Room left for the substituted values when sizing the buffer
+    private static final int FIELD_ALLOWANCE = 24;
+
+    // Each segment is either a String literal or a field accessor
+    private final Object[] segments;
+    private final int estimatedLength;
+
+    private CampaignTemplate(Object[] segments, int estimatedLength) {
+        this.segments = segments;
+        this.estimatedLength = estimatedLength;
+    }
+
+    /**
+     * @throws InvalidCampaignException on an unknown or unterminated placeholder.
+     */
+    public static CampaignTemplate compile(String template) {
+        List<Object> segments = new ArrayList<>();
+        int length = 0;
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new InvalidCampaignException("Unterminated placeholder at position " + open);
+            }
+            String name = template.substring(open + 2, close).trim();
+            Function<UserDTO, String> field = FIELDS.get(name);
+            if (field == null) {
+                throw new InvalidCampaignException("Unknown placeholder: {{" + name + "}}, expected one of "
+                        + FIELDS.keySet());
+            }
+            if (open > position) {
+                segments.add(template.substring(position, open));
+                length += open - position;
+            }
+            segments.add(field);
+            length += FIELD_ALLOWANCE;
+            position = close + 2;
+        }
+        if (position < template.length()) {
+            segments.add(template.substring(position));
+            length += template.length() - position;
+        }
+        return new CampaignTemplate(segments.toArray(), length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public String render(UserDTO recipient) {
+        StringBuilder text = new StringBuilder(estimatedLength);
+        for (Object segment : segments) {
+            if (segment instanceof String literal) {
+                text.append(literal);
+            } else {
+                String value = ((Function<UserDTO, String>) segment).apply(recipient);
+                if (value != null) {
+                    text.append(value);
+                }
+            }
+        }
+        return text.toString();
+    }
+}
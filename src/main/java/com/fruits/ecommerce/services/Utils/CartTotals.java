@@ -0,0 +1,47 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Line totals, subtotal, discount amount and grand total of a cart, computed in integer cents:
+ * each price is converted once, and only the results are turned back into BigDecimal amounts.
+ */
+public final class CartTotals {
+
+    private CartTotals() {
+    }
+
+    /**
+     * Fills the line totals and the subtotal, discountAmount and total of the cart.
+     * The discount is a percentage of the subtotal, rounded half up to the cent; shipping is only charged
+     * when the cart has items.
+     */
+    public static void apply(CartDTO cart) {
+        long subtotal = 0;
+        for (CartItemDTO item : cart.getItems()) {
+            long lineTotal = Math.multiplyExact(cents(item.getProductPrice()), item.getQuantity());
+            item.setLineTotal(amount(lineTotal));
+            subtotal = Math.addExact(subtotal, lineTotal);
+        }
+        // Percentage with two decimals, e.g. 2.50 -> 250 basis points
+        long discountBasisPoints = cents(cart.getDiscount());
+        long discount = (Math.multiplyExact(subtotal, discountBasisPoints) + 5_000) / 10_000;
+        long shipping = cart.getItems().isEmpty() ? 0 : cents(cart.getShippingCost());
+        cart.setSubtotal(amount(subtotal));
+        cart.setDiscountAmount(amount(discount));
+        cart.setTotal(amount(subtotal - discount + shipping));
+    }
+
+    // Prices and percentages are stored with two decimals
+    static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
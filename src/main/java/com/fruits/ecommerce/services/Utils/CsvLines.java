@@ -0,0 +1,42 @@
+package com.fruits.ecommerce.services.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field splitting for the CSV bodies of the bulk imports.
+ * Fields may be double-quoted (a doubled quote is a literal one); quoted fields cannot span lines.
+ */
+public final class CsvLines {
+
+    private CsvLines() {
+    }
+
+    public static List<String> split(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
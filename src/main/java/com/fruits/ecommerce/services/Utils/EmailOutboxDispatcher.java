@@ -0,0 +1,228 @@
+package com.fruits.ecommerce.services.Utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends the email outbox in batches.
+ * Each run claims due rows by stamping them with a run id and pushing next_attempt_at past a lease
+ * (so several instances never send the same row, and rows of a crashed run become due again),
+ * sends the whole batch over one SMTP connection, deletes what was sent and reschedules the rest
+ * with exponential backoff. Delivery is at-least-once: a crash between sending and deleting resends the batch.
+ * The lease outlasts the slowest possible batch (every message hitting the SMTP timeouts), so a live run
+ * never loses its rows to another instance mid-batch.
+ */
+@Slf4j
+@Service
+public class EmailOutboxDispatcher {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSender mailSender;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long leaseMillis;
+    // Leeway for the claim and completion queries on top of the SMTP worst case
+    private static final long LEASE_MARGIN_MILLIS = 30_000;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchTimer;
+
+    public EmailOutboxDispatcher(JdbcTemplate jdbcTemplate,
+                                 JavaMailSender mailSender,
+                                 @Value("${spring.mail.username}") String fromEmail,
+                                 @Value("${app.email-outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.email-outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.email-outbox.initial-backoff:30000}") long initialBackoffMillis,
+                                 @Value("${app.email-outbox.max-backoff:3600000}") long maxBackoffMillis,
+                                 @Value("${app.email-outbox.lease:120000}") long leaseMillis,
+                                 @Value("${spring.mail.properties.mail.smtp.connectiontimeout:0}") long connectTimeoutMillis,
+                                 @Value("${spring.mail.properties.mail.smtp.writetimeout:0}") long writeTimeoutMillis,
+                                 @Value("${spring.mail.properties.mail.smtp.timeout:0}") long readTimeoutMillis,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mailSender = mailSender;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.leaseMillis = lease(leaseMillis, batchSize, connectTimeoutMillis, writeTimeoutMillis, readTimeoutMillis);
+        this.sent = meterRegistry.counter("email.outbox.sent");
+        this.retried = meterRegistry.counter("email.outbox.retried");
+        this.failed = meterRegistry.counter("email.outbox.failed");
+        this.batchTimer = Timer.builder("email.outbox.batch.duration").register(meterRegistry);
+    }
+
+    /**
+     * Drains every due message, one batch (and one SMTP connection) at a time.
+     */
+    @Scheduled(fixedDelayString = "${app.email-outbox.poll-interval:1000}")
+    public void dispatch() {
+        int claimed;
+        do {
+            claimed = batchTimer.record(this::dispatchBatch);
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * @return number of due rows found, which may exceed the rows this run managed to claim.
+     */
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = jdbcTemplate.queryForList("SELECT id FROM email_outbox WHERE status = 'PENDING' "
+                + "AND next_attempt_at <= ? ORDER BY next_attempt_at, id LIMIT ?", Long.class, Timestamp.valueOf(now), batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        List<OutboxRow> rows = claim(due, now);
+        if (rows.isEmpty()) {
+            return due.size();
+        }
+
+        SimpleMailMessage[] messages = new SimpleMailMessage[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            messages[i] = toMessage(rows.get(i));
+        }
+        Map<Object, Exception> failures = Collections.emptyMap();
+        MailException batchFailure = null;
+        try {
+            // JavaMailSenderImpl opens a single transport for the whole array
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            batchFailure = failures.isEmpty() ? e : null;
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+
+        List<Long> sentIds = new ArrayList<>(rows.size());
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> dead = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            OutboxRow row = rows.get(i);
+            Exception error = batchFailure != null ? batchFailure : failures.get(messages[i]);
+            if (error == null) {
+                sentIds.add(row.id());
+                continue;
+            }
+            int attempts = row.attempts() + 1;
+            String lastError = truncate(error.getMessage());
+            if (attempts >= maxAttempts) {
+                dead.add(new Object[]{attempts, lastError, row.id()});
+            } else {
+                LocalDateTime nextAttempt = LocalDateTime.now().plusNanos(backoffMillis(attempts) * 1_000_000L);
+                retries.add(new Object[]{attempts, Timestamp.valueOf(nextAttempt), lastError, row.id()});
+            }
+        }
+        complete(sentIds, retries, dead);
+        if (batchFailure != null) {
+            log.warn("Email batch of {} failed: {}", rows.size(), batchFailure.getMessage());
+        }
+        return due.size();
+    }
+
+    private List<OutboxRow> claim(List<Long> ids, LocalDateTime now) {
+        String claimId = UUID.randomUUID().toString();
+        List<Object> args = new ArrayList<>(ids.size() + 3);
+        args.add(claimId);
+        args.add(Timestamp.valueOf(now.plusNanos(leaseMillis * 1_000_000L)));
+        args.addAll(ids);
+        args.add(Timestamp.valueOf(now));
+        // Rows another run claimed in between no longer match next_attempt_at <= now
+        jdbcTemplate.update("UPDATE email_outbox SET claimed_by = ?, next_attempt_at = ? WHERE id IN ("
+                + placeholders(ids.size()) + ") AND status = 'PENDING' AND next_attempt_at <= ?", args.toArray());
+        return jdbcTemplate.query("SELECT id, recipient, subject, body, attempts FROM email_outbox "
+                        + "WHERE claimed_by = ? ORDER BY id",
+                (resultSet, rowNum) -> new OutboxRow(resultSet.getLong("id"), resultSet.getString("recipient"),
+                        resultSet.getString("subject"), resultSet.getString("body"), resultSet.getInt("attempts")),
+                claimId);
+    }
+
+    private void complete(List<Long> sentIds, List<Object[]> retries, List<Object[]> dead) {
+        if (!sentIds.isEmpty()) {
+            // Sent messages are deleted: bodies may carry a generated password
+            jdbcTemplate.update("DELETE FROM email_outbox WHERE id IN (" + placeholders(sentIds.size()) + ")",
+                    sentIds.toArray());
+            sent.increment(sentIds.size());
+        }
+        if (!retries.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET attempts = ?, next_attempt_at = ?, last_error = ?, "
+                    + "claimed_by = NULL WHERE id = ?", retries);
+            retried.increment(retries.size());
+        }
+        if (!dead.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE email_outbox SET status = 'FAILED', attempts = ?, last_error = ?, "
+                    + "claimed_by = NULL WHERE id = ?", dead);
+            failed.increment(dead.size());
+            log.error("Gave up on {} emails after {} attempts", dead.size(), maxAttempts);
+        }
+    }
+
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    // The configured lease, raised to cover a batch whose every message waits out the connect, write and read timeouts
+    private static long lease(long configuredMillis, int batchSize, long connectTimeoutMillis,
+                              long writeTimeoutMillis, long readTimeoutMillis) {
+        if (connectTimeoutMillis <= 0 || writeTimeoutMillis <= 0 || readTimeoutMillis <= 0) {
+            log.warn("SMTP timeouts are not all set: a slow batch may outlive the {} ms outbox lease", configuredMillis);
+            return configuredMillis;
+        }
+        long worstBatchMillis = batchSize * (connectTimeoutMillis + writeTimeoutMillis + readTimeoutMillis);
+        return Math.max(configuredMillis, worstBatchMillis + LEASE_MARGIN_MILLIS);
+    }
+
+    // Exponential backoff with +-20% jitter, so messages failing together do not retry together
+    private long backoffMillis(int attempts) {
+        long backoff = initialBackoffMillis << Math.min(attempts - 1, 30);
+        backoff = Math.min(backoff < 0 ? maxBackoffMillis : backoff, maxBackoffMillis);
+        return (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private SimpleMailMessage toMessage(OutboxRow row) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(row.recipient());
+        message.setSubject(row.subject());
+        message.setText(row.body());
+        return message;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    private record OutboxRow(long id, String recipient, String subject, String body, int attempts) {
+    }
+}
@@ -1,32 +1,26 @@
 package com.fruits.ecommerce.services.Utils;
 
-import jakarta.mail.MessagingException;
+import com.fruits.ecommerce.models.entities.EmailOutboxMessage;
+import com.fruits.ecommerce.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Account emails. Nothing is sent from the calling thread: each message is written to the email outbox
+ * in the caller's transaction (so it exists only if the user change commits) and sent later by
+ * {@link EmailOutboxDispatcher}.
+ */
 @Slf4j
 @Service
+@Transactional
+@RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
-    private final String fromEmail;
-    @Autowired
-    public EmailService(JavaMailSender mailSender, @Value("${spring.mail.username}") String fromEmail) {
-        this.mailSender = mailSender;
-        this.fromEmail = fromEmail;
-    }
-    public void sendNewPasswordEmail(String firstName, String username, String password, String email)
-            throws MessagingException {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        // Make sure to change this
-        message.setFrom(fromEmail);
-        message.setSubject("Welcome to Our Service");
-        message.setText(
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    public void sendNewPasswordEmail(String firstName, String username, String password, String email) {
+        enqueue(email, "Welcome to Our Service",
                 "Welcome to Our Company Ltd. Platform!\n" +
                         "Dear " + firstName + ",\n" +
                         "We're thrilled to have you join our platform!.\n Your registration has been successfully completed, and your account is now active." +
@@ -43,67 +37,29 @@ public class EmailService {
                         "ZAG Electronics Industries Corporation\n" +
                         "www.our-company.com\n" +
                         "Phone: +201012345678\n" +
-                        "Customer Support Team"
-        );
-        try {
-            log.info("Attempting to send email to: {}", email);
-            mailSender.send(message);
-            log.info("Email sent successfully to: {}", email);
-        } catch (MailException e) {
-            log.error("Failed to send email to: {}. Error: {}", email, e.getMessage(), e);
-            throw new RuntimeException("Failed to send email", e);
-        }
+                        "Customer Support Team");
     }
 
-    public void sendAccountLockedEmail(String firstName, String email) throws MessagingException {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setFrom(fromEmail);
-        message.setSubject("Account Locked Notification");
-        message.setText(
+    public void sendAccountLockedEmail(String firstName, String email) {
+        enqueue(email, "Account Locked Notification",
                 "Dear " + firstName + ",\n\n" +
                         "Your account has been locked due to multiple failed login attempts.\n" +
                         "Please contact our support team for assistance.\n\n" +
                         "Best regards,\n" +
-                        "Our Company Support Team"
-        );
-        try {
-            mailSender.send(message);
-            log.info("Account locked email sent successfully to: {}", email);
-        } catch (MailException e) {
-            log.error("Failed to send account locked email to: {}. Error: {}", email, e.getMessage());
-            throw e;
-        }
+                        "Our Company Support Team");
     }
 
-    public void sendAccountUnlockedEmail(String firstName, String email) throws MessagingException {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setFrom(fromEmail);
-        message.setSubject("Account Unlocked Notification");
-        message.setText(
+    public void sendAccountUnlockedEmail(String firstName, String email) {
+        enqueue(email, "Account Unlocked Notification",
                 "Dear " + firstName + ",\n\n" +
                         "Good news! Your account has been unlocked, and you can now log in.\n" +
                         "If you have any questions, please contact our support team.\n\n" +
                         "Best regards,\n" +
-                        "Our Company Support Team"
-        );
-        try {
-            mailSender.send(message);
-            log.info("Account unlocked email sent successfully to: {}", email);
-        } catch (MailException e) {
-            log.error("Failed to send account unlocked email to: {}. Error: {}", email, e.getMessage());
-            throw e;
-        }
+                        "Our Company Support Team");
     }
 
-    public void sendPasswordResetToEmail(String firstName, String username, String password, String email)
-            throws MessagingException {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setFrom(fromEmail);
-        message.setSubject("Password Reset Notification");
-        message.setText(
+    public void sendPasswordResetToEmail(String firstName, String username, String password, String email) {
+        enqueue(email, "Password Reset Notification",
                 "Password Reset Notification\n" +
                         "Dear " + firstName + ",\n" +
                         "We received a request to reset your password for your account." +
@@ -123,38 +79,22 @@ public class EmailService {
                         "ZAG Electronics Industries Corporation\n" +
                         "www.our-company.com\n" +
                         "Phone: +201012345678\n" +
-                        "Customer Support Team"
-        );
-
-        try {
-            log.info("Attempting to send password reset email to: {}", email);
-            mailSender.send(message);
-            log.info("Password reset email sent successfully to: {}", email);
-        } catch (MailException e) {
-            log.error("Failed to send password reset email to: {}. Error: {}", email, e.getMessage(), e);
-            throw new RuntimeException("Failed to send password reset email", e);
-        }
+                        "Customer Support Team");
     }
 
-    public void sendPasswordChangeConfirmationEmail(String firstName, String email) throws MessagingException {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setFrom(fromEmail);
-        message.setSubject("Password Change Confirmation");
-        message.setText(
+    public void sendPasswordChangeConfirmationEmail(String firstName, String email) {
+        enqueue(email, "Password Change Confirmation",
                 "Dear " + firstName + ",\n\n" +
                         "Your password has been changed successfully.\n" +
                         "If you did not make this change, please contact our support team immediately.\n\n" +
                         "Best regards,\n" +
-                        "Our Company Support Team"
-        );
-        try {
-            mailSender.send(message);
-            log.info("Password change confirmation email sent successfully to: {}", email);
-        } catch (MailException e) {
-            log.error("Failed to send password change confirmation email to: {}. Error: {}", email, e.getMessage());
-            throw e;
-        }
+                        "Our Company Support Team");
+    }
+
+
+    private void enqueue(String email, String subject, String body) {
+        emailOutboxRepository.save(new EmailOutboxMessage(email, subject, body));
+        log.info("Queued \"{}\" email to: {}", subject, email);
     }
 
 
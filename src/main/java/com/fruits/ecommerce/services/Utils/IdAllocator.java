@@ -0,0 +1,36 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.entities.PooledIdGenerator;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ids for rows inserted with plain JDBC into tables whose entities use {@link com.fruits.ecommerce.models.entities.PooledId}:
+ * they come from the same id_allocator rows, so they never collide with ids Hibernate hands out.
+ */
+@Component
+public class IdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+
+    public IdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserves count consecutive ids of the table in a transaction of its own, committed before returning.
+     *
+     * @return The first reserved id.
+     */
+    public long reserve(String table, int count) {
+        return ownTransaction.execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<Long>) connection -> PooledIdGenerator.reserve(connection, table, count)));
+    }
+}
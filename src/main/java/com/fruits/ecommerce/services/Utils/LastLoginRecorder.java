@@ -0,0 +1,108 @@
+package com.fruits.ecommerce.services.Utils;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for users.last_login.
+ * A login only records its timestamp in memory (several logins of the same user coalesce into one entry);
+ * the buffer is written periodically as one {@code UPDATE ... SET last_login = CASE id ...} per batch,
+ * and once more on shutdown. last_login in the database may therefore lag by up to the configured staleness.
+ */
+@Slf4j
+@Service
+public class LastLoginRecorder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxStalenessMillis;
+    private final int batchSize;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    // Time the oldest unflushed login was recorded, 0 when the buffer is empty
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate,
+                             @Value("${security.last-login.max-staleness:10000}") long maxStalenessMillis,
+                             @Value("${security.last-login.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.batchSize = batchSize;
+    }
+
+    public void record(Long userId, LocalDateTime lastLogin) {
+        pending.merge(userId, lastLogin, (current, next) -> next.isAfter(current) ? next : current);
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    /**
+     * Flushes when the oldest buffered login reached the max staleness or a full batch is waiting.
+     */
+    @Scheduled(fixedDelayString = "${security.last-login.flush-interval:1000}")
+    public void flushIfDue() {
+        long oldest = oldestPendingAt.get();
+        if (oldest == 0) {
+            return;
+        }
+        if (pending.size() >= batchSize || System.currentTimeMillis() - oldest >= maxStalenessMillis) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void flush() {
+        oldestPendingAt.set(0);
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Long> userIds = pending.keySet().iterator();
+        while (userIds.hasNext()) {
+            Long userId = userIds.next();
+            LocalDateTime lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                batch.add(Map.entry(userId, lastLogin));
+            }
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Map.Entry<Long, LocalDateTime>> batch) {
+        StringBuilder sql = new StringBuilder("UPDATE users SET last_login = CASE id");
+        Object[] args = new Object[batch.size() * 3];
+        int i = 0;
+        for (Map.Entry<Long, LocalDateTime> entry : batch) {
+            sql.append(" WHEN ? THEN ?");
+            args[i++] = entry.getKey();
+            args[i++] = Timestamp.valueOf(entry.getValue());
+        }
+        sql.append(" ELSE last_login END WHERE id IN (");
+        for (int j = 0; j < batch.size(); j++) {
+            sql.append(j == 0 ? "?" : ", ?");
+            args[i++] = batch.get(j).getKey();
+        }
+        sql.append(')');
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            log.debug("Flushed last login of {} users", batch.size());
+        } catch (RuntimeException e) {
+            // Keep the timestamps for the next flush rather than losing them
+            log.error("Failed to flush last login of {} users: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> record(entry.getKey(), entry.getValue()));
+        }
+    }
+}
@@ -1,69 +1,213 @@
 package com.fruits.ecommerce.services.Utils;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import jakarta.annotation.Nonnull;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
+/**
+ * Failed-login counters over a sliding time window, kept per user, per client IP and per user+IP pair.
+ * Each counter is a small ring of time buckets updated with CAS, so concurrent failures never lose increments.
+ * The store is bounded by an approximate size in bytes (not by entry count), so a wave of attempts
+ * against many accounts cannot evict the counters that are still counting.
+ * The per-user+IP limit must stay below the per-user one: a single client trying to guess a password is
+ * answered 429 long before the account is locked, so nobody can lock someone else's account from one address.
+ */
 @Slf4j
 @Service
 public class LoginAttemptService {
-    private static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 3;
-    private static final int ATTEMPT_INCREMENT = 1;
-    private final LoadingCache<Long, Integer> loginAttemptCache;
+    private static final String USER_KEY = "u:";
+    private static final String CLIENT_KEY = "c:";
+    private static final String USER_CLIENT_KEY = "uc:";
+    // Approximate footprint of one entry besides its key: cache node, counter object and bucket array
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+    private final int maxAttemptsPerUser;
+    private final int maxAttemptsPerClient;
+    private final int maxAttemptsPerUserClient;
+    private final boolean trustForwardedFor;
+    private final long windowMillis;
+    private final Cache<String, SlidingWindowCounter> attempts;
+    private final Counter blockedUser;
+    private final Counter blockedClient;
+    private final Counter blockedUserClient;
 
     /**
-     * Constructs a LoginAttemptService with a configured cache.
-     * The cache is currently set to expire entries after 2 minutes and hold a maximum of 100 entries.
-     * Note: The expiration time can be adjusted by modifying the expireAfterWrite() parameter.
-     * Available time units: DAYS, HOURS, MINUTES, SECONDS (uncomment the desired option).
+     * Constructs a LoginAttemptService with the configured thresholds.
+     * Entries idle for a whole window hold no failures anymore and are dropped.
      */
-    public LoginAttemptService() {
-        super();
-        loginAttemptCache = CacheBuilder.newBuilder()
-                // Current setting: Entries expire after 2 minutes.
-                // We Can Change it into another time period
-                .expireAfterWrite(2, TimeUnit.MINUTES)
-                // Set maximum cache size
-                .maximumSize(100)
-                .build(new CacheLoader<>() {
-                    @Override
-                    @Nonnull
-                    public Integer load(@Nonnull Long key) {
-                        // Default value for a new key
-                        return 0;
-                    }
-                });
+    public LoginAttemptService(@Value("${security.login-attempts.window:120000}") long windowMillis,
+                               @Value("${security.login-attempts.max-per-user:20}") int maxAttemptsPerUser,
+                               @Value("${security.login-attempts.max-per-client:50}") int maxAttemptsPerClient,
+                               @Value("${security.login-attempts.max-per-user-client:5}") int maxAttemptsPerUserClient,
+                               @Value("${security.login-attempts.max-memory-bytes:134217728}") long maxMemoryBytes,
+                               @Value("${security.login-attempts.trust-forwarded-for:false}") boolean trustForwardedFor,
+                               MeterRegistry meterRegistry) {
+        this.windowMillis = windowMillis;
+        this.maxAttemptsPerUser = maxAttemptsPerUser;
+        this.maxAttemptsPerClient = maxAttemptsPerClient;
+        this.maxAttemptsPerUserClient = maxAttemptsPerUserClient;
+        this.trustForwardedFor = trustForwardedFor;
+        if (maxAttemptsPerUser <= maxAttemptsPerUserClient) {
+            log.warn("security.login-attempts.max-per-user ({}) is not above max-per-user-client ({}): "
+                    + "one client can lock any account", maxAttemptsPerUser, maxAttemptsPerUserClient);
+        }
+        this.attempts = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String key, SlidingWindowCounter counter) -> ENTRY_OVERHEAD_BYTES + key.length())
+                .expireAfterAccess(windowMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, attempts, "security.login-attempts");
+        this.blockedUser = blockedCounter(meterRegistry, "user");
+        this.blockedClient = blockedCounter(meterRegistry, "client");
+        this.blockedUserClient = blockedCounter(meterRegistry, "user_client");
     }
 
     public void evictUserFromLoginAttemptCache(Long userId) {
-        loginAttemptCache.invalidate(userId);
+        attempts.invalidate(USER_KEY + userId);
+    }
+
+    public void evictUserClientFromLoginAttemptCache(Long userId, String clientIp) {
+        if (clientIp != null) {
+            attempts.invalidate(USER_CLIENT_KEY + userId + '|' + clientIp);
+        }
     }
 
     public void addUserToLoginAttemptCache(Long userId) {
-        int attempts = 0;
-        try {
-            attempts = ATTEMPT_INCREMENT + loginAttemptCache.get(userId);
-        } catch (ExecutionException e) {
-            log.error("Error while getting login attempts for user ID: {}", userId, e);
+        increment(USER_KEY + userId);
+    }
+
+    /**
+     * Records one failed login against every key it belongs to.
+     *
+     * @param userId   the targeted user, or null when the identifier matched no user.
+     * @param clientIp the caller's address, or null outside a web request.
+     */
+    public void addFailedAttempt(Long userId, String clientIp) {
+        if (userId != null) {
+            increment(USER_KEY + userId);
+        }
+        if (clientIp != null) {
+            increment(CLIENT_KEY + clientIp);
+            if (userId != null) {
+                increment(USER_CLIENT_KEY + userId + '|' + clientIp);
+            }
         }
-        loginAttemptCache.put(userId, attempts);
     }
 
     public boolean hasExceededMaxAttempts(Long userId) {
-        try {
-            return loginAttemptCache.get(userId) >= MAXIMUM_NUMBER_OF_ATTEMPTS;
-        } catch (ExecutionException e) {
-            log.error("Error while checking login attempts for user ID: {}", userId, e);
+        return isOverLimit(USER_KEY + userId, maxAttemptsPerUser, blockedUser);
+    }
+
+    /**
+     * True when this client has failed too often recently, whichever accounts it tried.
+     */
+    public boolean isClientBlocked(String clientIp) {
+        return clientIp != null && isOverLimit(CLIENT_KEY + clientIp, maxAttemptsPerClient, blockedClient);
+    }
+
+    /**
+     * True when this client has failed too often recently against this particular user.
+     */
+    public boolean isUserClientBlocked(Long userId, String clientIp) {
+        return clientIp != null
+                && isOverLimit(USER_CLIENT_KEY + userId + '|' + clientIp, maxAttemptsPerUserClient, blockedUserClient);
+    }
+
+    public int getRetryAfterSeconds() {
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(windowMillis));
+    }
+
+    /**
+     * Address of the client behind the current request, or null when called outside a request.
+     * X-Forwarded-For is only honoured when the application is configured to run behind a trusted proxy.
+     */
+    public String resolveClientIp() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(forwardedFor)) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
         }
-        return false;
+        return request.getRemoteAddr();
     }
-}
 
+    private void increment(String key) {
+        attempts.get(key, k -> new SlidingWindowCounter(windowMillis)).increment(System.currentTimeMillis());
+    }
 
+    private boolean isOverLimit(String key, int limit, Counter blocked) {
+        SlidingWindowCounter counter = attempts.getIfPresent(key);
+        if (counter == null || counter.count(System.currentTimeMillis()) < limit) {
+            return false;
+        }
+        blocked.increment();
+        log.debug("Login attempts limit reached for key: {}", key);
+        return true;
+    }
+
+    private static Counter blockedCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("security.login-attempts.blocked")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lock-free sliding-window counter: a ring of buckets, each packing (bucket epoch << 32 | count)
+     * into one long, so a bucket is reused for a new epoch and incremented with a single CAS.
+     */
+    static final class SlidingWindowCounter {
+        private static final int BUCKETS = 6;
+        private static final long EPOCH_MASK = 0xFFFFFFFFL;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final long bucketMillis;
+
+        SlidingWindowCounter(long windowMillis) {
+            this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        }
+
+        void increment(long nowMillis) {
+            long epoch = (nowMillis / bucketMillis) & EPOCH_MASK;
+            int index = (int) (epoch % BUCKETS);
+            long current;
+            long next;
+            do {
+                current = buckets.get(index);
+                long count = current & EPOCH_MASK;
+                next = (current >>> 32) == epoch && count < EPOCH_MASK ? current + 1 : (epoch << 32) | 1;
+            } while (!buckets.compareAndSet(index, current, next));
+        }
+
+        int count(long nowMillis) {
+            long epoch = (nowMillis / bucketMillis) & EPOCH_MASK;
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucket = buckets.get(i);
+                long age = (epoch - (bucket >>> 32)) & EPOCH_MASK;
+                if (age < BUCKETS) {
+                    total += bucket & EPOCH_MASK;
+                }
+            }
+            return (int) Math.min(Integer.MAX_VALUE, total);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of product details (with image URLs) by id.
+ * Bounded by an estimate of the bytes held and by the number of entries (every entry weighs at least
+ * maxBytes / maxSize); Caffeine's TinyLFU admission keeps one-off lookups from evicting popular products.
+ * Concurrent misses on the same id wait for a single load. Unknown ids are not remembered.
+ * Every change to a product or to its images must call {@link #evictAfterCommit(Collection)}.
+ */
+@Slf4j
+@Component
+public class ProductCache {
+
+    private final ProductCatalogRepository productCatalogRepository;
+    private final Cache<Long, ProductDTO> products;
+
+    public ProductCache(ProductCatalogRepository productCatalogRepository,
+                        @Value("${app.products.cache.enabled:true}") boolean enabled,
+                        @Value("${app.products.cache.max-size:10000}") long maxSize,
+                        @Value("${app.products.cache.max-bytes:67108864}") long maxBytes,
+                        @Value("${app.products.cache.ttl:600000}") long ttlMillis,
+                        MeterRegistry meterRegistry) {
+        this.productCatalogRepository = productCatalogRepository;
+        if (enabled) {
+            int minimumWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / Math.max(1, maxSize)));
+            products = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((Long id, ProductDTO product) -> Math.max(minimumWeight, estimateBytes(product)))
+                    // Safety net for changes made by another instance
+                    .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+            meterRegistry.gauge("cache.hit.ratio", Tags.of("cache", "products"),
+                    products, cache -> cache.stats().hitRate());
+        } else {
+            products = null;
+        }
+    }
+
+    /**
+     * @return A copy of the product, loaded at most once for concurrent callers.
+     */
+    public Optional<ProductDTO> find(Long id) {
+        ProductDTO product = products == null
+                ? load(id)
+                // A null load result is not stored
+                : products.get(id, this::load);
+        return Optional.ofNullable(product).map(ProductCache::copy);
+    }
+
+    /**
+     * Drops the given products once the surrounding transaction commits (or immediately without one),
+     * so a rolled-back change never evicts and a committed one is never missed.
+     */
+    public void evictAfterCommit(Collection<Long> ids) {
+        if (products == null || ids.isEmpty()) {
+            return;
+        }
+        List<Long> evicted = List.copyOf(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(evicted);
+                }
+            });
+        } else {
+            evict(evicted);
+        }
+    }
+
+    public void evictAfterCommit(Long id) {
+        evictAfterCommit(List.of(id));
+    }
+
+    private void evict(List<Long> ids) {
+        products.invalidateAll(ids);
+        log.debug("Products evicted from cache: {}", ids);
+    }
+
+    private ProductDTO load(Long id) {
+        return productCatalogRepository.findById(id).map(ProductCache::copy).orElse(null);
+    }
+
+    // Cached instances are never handed out: callers get their own copy with an unmodifiable image list
+    private static ProductDTO copy(ProductDTO product) {
+        return new ProductDTO(product.getId(), product.getSku(), product.getName(), product.getUnit(),
+                product.getPrice(), product.getDescription(), List.copyOf(product.getImageUrls()),
+                product.getCreatedAt(), product.getUpdatedAt(), product.getNameKey(), product.getUnitKey());
+    }
+
+    // Rough heap size: object headers and fields, plus two bytes per character of the strings
+    private static int estimateBytes(ProductDTO product) {
+        long bytes = 160 + chars(product.getSku()) + chars(product.getName()) + chars(product.getUnit()) + chars(product.getDescription());
+        for (String url : product.getImageUrls()) {
+            bytes += 48 + chars(url);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
@@ -0,0 +1,158 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the in-memory product structures ({@link ProductChangeListener}s) in step with the products table:
+ * they are built from one keyset scan once the application is ready, and after every commit that changed
+ * products the changed rows are re-read (one query for all of them) and handed to each listener.
+ * Ids whose re-read failed are kept and re-read with the next change, or by a retry with exponential backoff,
+ * so a database hiccup never leaves the indexes stale until restart.
+ * The build runs while requests are already served: changes published during it are held back and applied
+ * once every listener has rebuilt, as the older snapshot would otherwise overwrite them.
+ */
+@Slf4j
+@Component
+public class ProductChangeFeed {
+
+    private final ProductCatalogRepository productCatalogRepository;
+    private final List<ProductChangeListener> listeners;
+    private final int rebuildPageSize;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    // Changed ids not yet handed to the listeners because their re-read failed
+    private final Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long retryAt;
+    // Non-null while rebuild() runs: the ids changed meanwhile
+    private Set<Long> changedDuringRebuild;
+
+    public ProductChangeFeed(ProductCatalogRepository productCatalogRepository,
+                             List<ProductChangeListener> listeners,
+                             @Value("${app.products.rebuild-page-size:1000}") int rebuildPageSize,
+                             @Value("${app.products.change-retry.initial-backoff:1000}") long initialBackoffMillis,
+                             @Value("${app.products.change-retry.max-backoff:60000}") long maxBackoffMillis) {
+        this.productCatalogRepository = productCatalogRepository;
+        this.listeners = listeners;
+        this.rebuildPageSize = rebuildPageSize;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        Set<Long> replay;
+        try {
+            long start = System.currentTimeMillis();
+            List<ProductDTO> products = new ArrayList<>();
+            productCatalogRepository.forEachPage(rebuildPageSize, products::addAll);
+            for (ProductChangeListener listener : listeners) {
+                listener.rebuild(products);
+            }
+            log.info("Product indexes built from {} products in {} ms", products.size(),
+                    System.currentTimeMillis() - start);
+        } finally {
+            synchronized (this) {
+                replay = changedDuringRebuild;
+                changedDuringRebuild = null;
+            }
+        }
+        if (!replay.isEmpty()) {
+            log.info("Applying {} product changes made during the rebuild", replay.size());
+            publish(replay);
+        }
+    }
+
+    /**
+     * Notifies the listeners about the given products once the surrounding transaction commits
+     * (or immediately without one); ids no longer in the table are reported as removed.
+     */
+    public void publishAfterCommit(Collection<Long> productIds) {
+        if (listeners.isEmpty() || productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(ids);
+                }
+            });
+        } else {
+            publish(ids);
+        }
+    }
+
+    public void publishAfterCommit(Long productId) {
+        publishAfterCommit(Set.of(productId));
+    }
+
+    /**
+     * Re-reads the products whose earlier re-read failed, once their backoff has elapsed.
+     */
+    @Scheduled(fixedDelayString = "${app.products.change-retry.check-interval:1000}")
+    public void retryFailed() {
+        if (!failedIds.isEmpty() && System.currentTimeMillis() >= retryAt) {
+            publish(Set.of());
+        }
+    }
+
+    private void publish(Set<Long> changedIds) {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(changedIds);
+                return;
+            }
+        }
+        Set<Long> ids = new HashSet<>(changedIds);
+        for (Long id : failedIds) {
+            if (failedIds.remove(id)) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ProductDTO> changed;
+        try {
+            changed = productCatalogRepository.findByIds(ids);
+        } catch (RuntimeException e) {
+            failedIds.addAll(ids);
+            long backoff = Math.min(initialBackoffMillis << Math.min(failures.getAndIncrement(), 20), maxBackoffMillis);
+            retryAt = System.currentTimeMillis() + backoff;
+            log.error("Failed to reload changed products {}, retrying in {} ms", ids, backoff, e);
+            return;
+        }
+        failures.set(0);
+        Set<Long> removed = new HashSet<>(ids);
+        changed.forEach(product -> removed.remove(product.getId()));
+        for (ProductChangeListener listener : listeners) {
+            try {
+                listener.onProductsChanged(changed, removed);
+            } catch (RuntimeException e) {
+                log.error("{} failed to apply product changes {}", listener.getClass().getSimpleName(), ids, e);
+            }
+        }
+    }
+}
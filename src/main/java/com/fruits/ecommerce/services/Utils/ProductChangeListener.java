@@ -0,0 +1,25 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory structure derived from the products table, kept current through {@link ProductChangeFeed}.
+ */
+public interface ProductChangeListener {
+
+    /**
+     * Loads every product; called once at startup, in id-ordered pages.
+     */
+    void rebuild(List<ProductDTO> products);
+
+    /**
+     * Called after a commit that changed products.
+     *
+     * @param changed    Current state of the created or updated products, with their image URLs.
+     * @param removedIds Ids of the deleted products.
+     */
+    void onProductsChanged(List<ProductDTO> changed, Collection<Long> removedIds);
+}
@@ -0,0 +1,47 @@
+package com.fruits.ecommerce.services.Utils;
+
+/**
+ * Collation keys of product text columns: the text folded case- and accent-insensitively
+ * (see {@link ProductTextAnalyzer#normalize(String)}) and trimmed. This is close to utf8mb4_unicode_ci but not
+ * the same: it also folds Arabic ة to ه and ى to ي, which that collation keeps apart, so the catalog order
+ * is that of the keys, not of ORDER BY name.
+ * The keys are stored in utf8mb4_bin columns, which order by code point, and {@link #compare(String, String)}
+ * orders by code point too, so SQL and in-memory orderings over the keys are the same.
+ * Changing the folding requires re-keying the stored rows in a new migration; V10 keeps its own frozen copy.
+ */
+public final class ProductCollation {
+
+    // Length of the key columns; folding can lengthen text (ligatures, Arabic presentation forms)
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private ProductCollation() {
+    }
+
+    public static String key(String text) {
+        if (text == null) {
+            return null;
+        }
+        String key = ProductTextAnalyzer.normalize(text).trim();
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        int end = Character.isHighSurrogate(key.charAt(MAX_KEY_LENGTH - 1)) ? MAX_KEY_LENGTH - 1 : MAX_KEY_LENGTH;
+        return key.substring(0, end);
+    }
+
+    // Code point order: String.compareTo compares UTF-16 units, which differs for supplementary characters
+    public static int compare(String first, String second) {
+        int firstIndex = 0;
+        int secondIndex = 0;
+        while (firstIndex < first.length() && secondIndex < second.length()) {
+            int firstCodePoint = first.codePointAt(firstIndex);
+            int secondCodePoint = second.codePointAt(secondIndex);
+            if (firstCodePoint != secondCodePoint) {
+                return Integer.compare(firstCodePoint, secondCodePoint);
+            }
+            firstIndex += Character.charCount(firstCodePoint);
+            secondIndex += Character.charCount(secondCodePoint);
+        }
+        return Integer.compare(first.length() - firstIndex, second.length() - secondIndex);
+    }
+}
@@ -0,0 +1,37 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate number of products for the catalog listing: one COUNT(*) at most per refresh interval,
+ * refreshed in the background while the previous value keeps being served.
+ */
+@Component
+public class ProductCountCache {
+    private static final String KEY = "products";
+
+    private final LoadingCache<String, Long> count;
+
+    public ProductCountCache(ProductRepository productRepository,
+                             @Value("${app.products.count-refresh:60000}") long refreshMillis,
+                             MeterRegistry meterRegistry) {
+        this.count = Caffeine.newBuilder()
+                .maximumSize(1)
+                .refreshAfterWrite(refreshMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build(key -> productRepository.count());
+        CaffeineCacheMetrics.monitor(meterRegistry, count, "products.count");
+    }
+
+    public long estimate() {
+        return count.get(KEY);
+    }
+}
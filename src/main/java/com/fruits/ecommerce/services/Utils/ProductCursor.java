@@ -0,0 +1,114 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.exceptions.products.InvalidProductDataException;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation token of the catalog listing: the sort, the id and the sort keys of the last product
+ * of a page, base64url-encoded. Keys are length-prefixed ("-" for null), so they may contain any character.
+ * A token is only valid with the sort it was issued for.
+ */
+public final class ProductCursor {
+
+    private ProductCursor() {
+    }
+
+    public static String encode(ProductSort sort, ProductDTO last) {
+        StringBuilder raw = new StringBuilder(sort.name()).append('|').append(last.getId());
+        for (String property : sort.getProperties()) {
+            String key = format(sortKey(property, last));
+            raw.append('|');
+            if (key == null) {
+                raw.append('-');
+            } else {
+                raw.append(key.length()).append(':').append(key);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token A nextCursor issued for this sort, or null for the first page.
+     * @return The sort keys of the last product by property name, then its "id".
+     * @throws InvalidProductDataException if the token is malformed or was issued for another sort.
+     */
+    public static KeysetScrollPosition decode(String token, ProductSort sort) {
+        if (token == null || token.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String prefix = sort.name() + '|';
+            if (!raw.startsWith(prefix)) {
+                throw new InvalidProductDataException("The cursor does not belong to this sort order.");
+            }
+            int position = prefix.length();
+            int separator = raw.indexOf('|', position);
+            String id = separator < 0 ? raw.substring(position) : raw.substring(position, separator);
+            position = separator < 0 ? raw.length() : separator;
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String property : sort.getProperties()) {
+                if (position >= raw.length() || raw.charAt(position) != '|') {
+                    throw new IllegalArgumentException("Missing sort key");
+                }
+                position++;
+                if (raw.startsWith("-", position)) {
+                    keys.put(property, null);
+                    position++;
+                } else {
+                    int colon = raw.indexOf(':', position);
+                    int end = colon + 1 + Integer.parseInt(raw.substring(position, colon));
+                    keys.put(property, parse(property, raw.substring(colon + 1, end)));
+                    position = end;
+                }
+            }
+            if (position != raw.length()) {
+                throw new IllegalArgumentException("Trailing data");
+            }
+            keys.put("id", Long.valueOf(id));
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new InvalidProductDataException("Invalid cursor.");
+        }
+    }
+
+    /**
+     * @return The value of a sort property for the product, as stored in its sort column. Text keys are the
+     * stored ones, not recomputed, so the cursor seeks on exactly what the index holds.
+     */
+    public static Object sortKey(String property, ProductDTO product) {
+        return switch (property) {
+            case "nameKey" -> product.getNameKey();
+            case "unitKey" -> product.getUnitKey();
+            case "price" -> product.getPrice();
+            case "createdAt" -> product.getCreatedAt();
+            default -> throw new IllegalArgumentException("Unknown sort property: " + property);
+        };
+    }
+
+    private static String format(Object key) {
+        if (key instanceof BigDecimal price) {
+            return price.toPlainString();
+        }
+        return key == null ? null : key.toString();
+    }
+
+    private static Object parse(String property, String value) {
+        return switch (property) {
+            case "price" -> new BigDecimal(value);
+            case "createdAt" -> LocalDateTime.parse(value);
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.exceptions.products.InvalidProductDataException;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.Set;
+
+/**
+ * Validation rules for product data that do not need the database,
+ * shared by the single-product endpoints and the bulk import.
+ */
+public final class ProductDataRules {
+
+    private ProductDataRules() {
+    }
+
+    /**
+     * @throws InvalidProductDataException if the name or the price is missing.
+     */
+    public static void validateRequiredFields(ProductDTO productDTO) {
+        if (productDTO.getName() == null || productDTO.getName().isEmpty()) {
+            throw new InvalidProductDataException("Product name is required.");
+        }
+        if (productDTO.getPrice() == null) {
+            throw new InvalidProductDataException("Product price is required.");
+        }
+    }
+
+    /**
+     * Validates the product DTO using its validation annotations.
+     *
+     * @throws InvalidProductDataException listing every violated constraint.
+     */
+    public static void validateConstraints(ProductDTO productDTO, Validator validator) {
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(productDTO);
+        if (!violations.isEmpty()) {
+            StringBuilder errorMessage = new StringBuilder("Invalid product data: ");
+            for (ConstraintViolation<ProductDTO> violation : violations) {
+                errorMessage.append(violation.getMessage()).append(", ");
+            }
+            throw new InvalidProductDataException(errorMessage.toString().trim());
+        }
+    }
+}
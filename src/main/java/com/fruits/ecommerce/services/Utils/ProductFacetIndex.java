@@ -0,0 +1,333 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductFacetsDTO;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet index of the catalog. Every product gets a dense ordinal; each unit and "has images"
+ * is a bitmap over the ordinals, and for each sort order the live ordinals are kept sorted, which doubles
+ * as the price index (a price range is a binary-searched slice of the price order).
+ * A filter is bitmap AND/OR plus that range scan; a page walks the sort order from the cursor and keeps
+ * matching ordinals. Deleted products leave holes, compacted once they outnumber the live ones.
+ */
+@Component
+public class ProductFacetIndex implements ProductChangeListener {
+
+    private final List<BigDecimal> priceBreaks;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // ordinal -> product, null once deleted
+    private final List<Row> rows = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet withImages = new BitSet();
+    private final Map<String, BitSet> units = new TreeMap<>();
+    // Live ordinals in each sort order, rebuilt lazily after a change
+    private final Map<ProductSort, int[]> orders = new ConcurrentHashMap<>();
+
+    public ProductFacetIndex(@Value("${app.products.facets.price-breaks:1,2,5,10,20,50}") List<BigDecimal> priceBreaks,
+                             MeterRegistry meterRegistry) {
+        this.priceBreaks = priceBreaks.stream().sorted().toList();
+        meterRegistry.gauge("products.facets.ordinals", rows, List::size);
+    }
+
+    // Text is held as collation keys: the unit facet groups by it and the orders match the SQL listing
+    private record Row(long id, String nameKey, String unitKey, BigDecimal price, LocalDateTime createdAt,
+                       boolean hasImages) {
+    }
+
+    /**
+     * @param productIds Ids of the page, in sort order.
+     * @param hasNext    Whether more products match after the page.
+     */
+    public record Result(List<Long> productIds, boolean hasNext, ProductFacetsDTO facets) {
+    }
+
+    public Result filter(ProductFilterDTO filter, ProductSort sort, KeysetScrollPosition position, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet prices = priceMask(filter.getMinPrice(), filter.getMaxPrice());
+            BitSet unitMatches = unitMask(filter.getUnits());
+            BitSet imageMatches = imageMask(filter.getHasImages());
+            BitSet matches = and(prices, unitMatches, imageMatches);
+
+            int[] order = order(sort);
+            int start = position.isInitial() ? 0 : firstAfter(order, sort, probe(sort, position));
+            List<Long> productIds = new ArrayList<>(limit);
+            boolean hasNext = false;
+            for (int index = start; index < order.length; index++) {
+                if (matches.get(order[index])) {
+                    if (productIds.size() == limit) {
+                        hasNext = true;
+                        break;
+                    }
+                    productIds.add(rows.get(order[index]).id());
+                }
+            }
+            return new Result(productIds, hasNext, facets(matches, prices, unitMatches, imageMatches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ProductFacetsDTO facets(BitSet matches, BitSet prices, BitSet unitMatches, BitSet imageMatches) {
+        BitSet unitBase = and(prices, imageMatches);
+        Map<String, Long> unitCounts = new LinkedHashMap<>();
+        units.forEach((unit, bitmap) -> unitCounts.put(unit, (long) and(bitmap, unitBase).cardinality()));
+
+        BitSet imageBase = and(prices, unitMatches);
+        long withImageCount = and(withImages, imageBase).cardinality();
+
+        BitSet priceBase = and(unitMatches, imageMatches);
+        long[] rangeCounts = new long[priceBreaks.size() + 1];
+        for (int ordinal = priceBase.nextSetBit(0); ordinal >= 0; ordinal = priceBase.nextSetBit(ordinal + 1)) {
+            rangeCounts[range(rows.get(ordinal).price())]++;
+        }
+        List<ProductFacetsDTO.PriceRange> priceRanges = new ArrayList<>(rangeCounts.length);
+        for (int range = 0; range < rangeCounts.length; range++) {
+            priceRanges.add(new ProductFacetsDTO.PriceRange(range == 0 ? BigDecimal.ZERO : priceBreaks.get(range - 1),
+                    range < priceBreaks.size() ? priceBreaks.get(range) : null, rangeCounts[range]));
+        }
+        return new ProductFacetsDTO(matches.cardinality(), unitCounts, withImageCount,
+                imageBase.cardinality() - withImageCount, priceRanges);
+    }
+
+    private int range(BigDecimal price) {
+        int range = 0;
+        while (range < priceBreaks.size() && price.compareTo(priceBreaks.get(range)) >= 0) {
+            range++;
+        }
+        return range;
+    }
+
+    // Range scan of the price order
+    private BitSet priceMask(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return live;
+        }
+        int[] byPrice = order(ProductSort.PRICE_ASC);
+        int from = minPrice == null ? 0 : firstPrice(byPrice, minPrice, false);
+        int to = maxPrice == null ? byPrice.length : firstPrice(byPrice, maxPrice, true);
+        BitSet mask = new BitSet(rows.size());
+        for (int index = from; index < to; index++) {
+            mask.set(byPrice[index]);
+        }
+        return mask;
+    }
+
+    // First index whose price is >= the bound, or > it when inclusive of the bound as a maximum
+    private int firstPrice(int[] byPrice, BigDecimal bound, boolean afterBound) {
+        int low = 0;
+        int high = byPrice.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = rows.get(byPrice[middle]).price().compareTo(bound);
+            if (comparison < 0 || (afterBound && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private BitSet unitMask(List<String> wanted) {
+        if (wanted == null || wanted.isEmpty()) {
+            return live;
+        }
+        BitSet mask = new BitSet(rows.size());
+        for (String unit : wanted) {
+            BitSet bitmap = units.get(ProductCollation.key(unit));
+            if (bitmap != null) {
+                mask.or(bitmap);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet imageMask(Boolean hasImages) {
+        if (hasImages == null) {
+            return live;
+        }
+        if (hasImages) {
+            return withImages;
+        }
+        BitSet mask = (BitSet) live.clone();
+        mask.andNot(withImages);
+        return mask;
+    }
+
+    private static BitSet and(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    private int[] order(ProductSort sort) {
+        return orders.computeIfAbsent(sort, key -> {
+            Comparator<Row> comparator = comparator(key);
+            return live.stream().boxed()
+                    .sorted((first, second) -> comparator.compare(rows.get(first), rows.get(second)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        });
+    }
+
+    // First index strictly after the probe in sort order
+    private int firstAfter(int[] order, ProductSort sort, Row probe) {
+        Comparator<Row> comparator = comparator(sort);
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(rows.get(order[middle]), probe) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static Row probe(ProductSort sort, KeysetScrollPosition position) {
+        Map<String, Object> keys = position.getKeys();
+        return new Row(((Number) keys.get("id")).longValue(), (String) keys.get("nameKey"),
+                (String) keys.get("unitKey"), (BigDecimal) keys.get("price"), (LocalDateTime) keys.get("createdAt"),
+                false);
+    }
+
+    // Same order as the SQL listing: the sort keys (NULL lowest), then the id, all in the sort's direction
+    private static Comparator<Row> comparator(ProductSort sort) {
+        Comparator<Row> comparator = (first, second) -> 0;
+        for (String property : sort.getProperties()) {
+            comparator = comparator.thenComparing(switch (property) {
+                case "nameKey" -> Comparator.comparing(Row::nameKey, Comparator.nullsFirst(ProductCollation::compare));
+                case "unitKey" -> Comparator.comparing(Row::unitKey, Comparator.nullsFirst(ProductCollation::compare));
+                case "price" -> Comparator.comparing(Row::price, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "createdAt" -> Comparator.comparing(Row::createdAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> throw new IllegalArgumentException("Unknown sort property: " + property);
+            });
+        }
+        comparator = comparator.thenComparingLong(Row::id);
+        return sort.getDirection() == Sort.Direction.ASC ? comparator : comparator.reversed();
+    }
+
+    @Override
+    public void rebuild(List<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            products.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsChanged(List<ProductDTO> changed, Collection<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            removedIds.forEach(this::remove);
+            changed.forEach(this::put);
+            if (rows.size() > 2 * live.cardinality() + 1024) {
+                compact();
+            }
+            orders.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds the product, or updates it in place under its current ordinal
+    private void put(ProductDTO product) {
+        Integer ordinal = ordinals.get(product.getId());
+        if (ordinal == null) {
+            ordinal = rows.size();
+            rows.add(null);
+            ordinals.put(product.getId(), ordinal);
+        } else {
+            clearFacets(ordinal);
+        }
+        boolean hasImages = product.getImageUrls() != null && !product.getImageUrls().isEmpty();
+        index(ordinal, new Row(product.getId(), product.getNameKey(), product.getUnitKey(), product.getPrice(),
+                product.getCreatedAt(), hasImages));
+    }
+
+    private void index(int ordinal, Row row) {
+        rows.set(ordinal, row);
+        live.set(ordinal);
+        withImages.set(ordinal, row.hasImages());
+        if (hasUnit(row.unitKey())) {
+            units.computeIfAbsent(row.unitKey(), key -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void remove(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal != null) {
+            clearFacets(ordinal);
+            rows.set(ordinal, null);
+            live.clear(ordinal);
+        }
+    }
+
+    private void clearFacets(int ordinal) {
+        withImages.clear(ordinal);
+        String unit = rows.get(ordinal).unitKey();
+        if (hasUnit(unit)) {
+            BitSet bitmap = units.get(unit);
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                units.remove(unit);
+            }
+        }
+    }
+
+    private void compact() {
+        List<Row> remaining = rows.stream().filter(Objects::nonNull).toList();
+        clear();
+        for (Row row : remaining) {
+            ordinals.put(row.id(), rows.size());
+            rows.add(null);
+            index(rows.size() - 1, row);
+        }
+    }
+
+    private void clear() {
+        rows.clear();
+        ordinals.clear();
+        live.clear();
+        withImages.clear();
+        units.clear();
+        orders.clear();
+    }
+
+    private static boolean hasUnit(String unitKey) {
+        return unitKey != null && !unitKey.isEmpty();
+    }
+}
@@ -0,0 +1,176 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, unit and description, ranked with BM25.
+ * Name terms count {@code nameWeight} times, so a match in the name outranks one in the description.
+ * Terms come from {@link ProductTextAnalyzer}; queries match any of their terms.
+ * Reads share a lock and only writers (product changes, rebuilds) take it exclusively.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener {
+
+    private final double k1;
+    private final double b;
+    private final int nameWeight;
+    private final Timer searchTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> product id -> weighted term frequency
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // product id -> its terms (to remove its postings) and length
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    public ProductSearchIndex(@Value("${app.products.search.k1:1.2}") double k1,
+                              @Value("${app.products.search.b:0.75}") double b,
+                              @Value("${app.products.search.name-weight:3}") int nameWeight,
+                              MeterRegistry meterRegistry) {
+        this.k1 = k1;
+        this.b = b;
+        this.nameWeight = nameWeight;
+        this.searchTimer = Timer.builder("products.search.duration")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("products.search.terms", postings, Map::size);
+    }
+
+    public record Hits(List<Long> productIds, int matches) {
+    }
+
+    private record Document(Set<String> terms, int length) {
+    }
+
+    /**
+     * @return Ids of the best matching products, best first, and the number of products matching at all.
+     */
+    public Hits search(String query, int limit) {
+        return searchTimer.record(() -> rank(new LinkedHashSet<>(ProductTextAnalyzer.terms(query)), limit));
+    }
+
+    private Hits rank(Set<String> terms, int limit) {
+        lock.readLock().lock();
+        try {
+            if (terms.isEmpty() || documents.isEmpty()) {
+                return new Hits(List.of(), 0);
+            }
+            int documentCount = documents.size();
+            double averageLength = (double) totalLength / documentCount;
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int frequency = termPostings.size();
+                double idf = Math.log(1 + (documentCount - frequency + 0.5) / (frequency + 0.5));
+                termPostings.forEach((productId, termFrequency) -> {
+                    double length = documents.get(productId).length();
+                    double norm = termFrequency + k1 * (1 - b + b * length / averageLength);
+                    scores.merge(productId, idf * termFrequency * (k1 + 1) / norm, Double::sum);
+                });
+            }
+            return new Hits(top(scores, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ties go to the lower id, so results are stable
+    private static List<Long> top(Map<Long, Double> scores, int limit) {
+        Comparator<Map.Entry<Long, Double>> better = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(better);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (better.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(0, best.poll().getKey());
+        }
+        return ids;
+    }
+
+    @Override
+    public void rebuild(List<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            products.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsChanged(List<ProductDTO> changed, Collection<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            removedIds.forEach(this::remove);
+            for (ProductDTO product : changed) {
+                remove(product.getId());
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(ProductDTO product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : ProductTextAnalyzer.terms(product.getName())) {
+            frequencies.merge(term, nameWeight, Integer::sum);
+        }
+        for (String term : ProductTextAnalyzer.terms(product.getUnit())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        for (String term : ProductTextAnalyzer.terms(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(product.getId(), new Document(Set.copyOf(frequencies.keySet()), length));
+        totalLength += length;
+    }
+
+    private void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            termPostings.remove(productId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length();
+    }
+}
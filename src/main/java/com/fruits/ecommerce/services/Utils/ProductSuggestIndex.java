@@ -0,0 +1,328 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductSuggestionDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead over product names: a radix tree (edges labelled with whole substrings) whose nodes each keep the
+ * k most popular products below them, so a lookup is a walk down the prefix and returns a precomputed list.
+ * A name is indexed from each of its first words ("mango juice" and "juice"), normalized like the search terms
+ * and cut to a maximum length, which bounds the tree by roughly products x words x key length.
+ * Popularity is the number of carts holding the product, reloaded periodically.
+ */
+@Slf4j
+@Component
+public class ProductSuggestIndex implements ProductChangeListener {
+
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparingInt(entry -> entry.name().length())
+            .thenComparingLong(Entry::productId);
+    // Rough heap cost of a node and of an entry, beyond their characters
+    private static final int NODE_BYTES = 120;
+    private static final int ENTRY_BYTES = 64;
+
+    private final ProductCatalogRepository productCatalogRepository;
+    private final int topK;
+    private final int maxWords;
+    private final int maxKeyLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private Node root = new Node("");
+    // Kept up to date by every change of the tree, under the write lock
+    private volatile long nodeCount;
+    private volatile long estimatedBytes;
+
+    public ProductSuggestIndex(ProductCatalogRepository productCatalogRepository,
+                               @Value("${app.products.suggest.top-k:10}") int topK,
+                               @Value("${app.products.suggest.max-words:4}") int maxWords,
+                               @Value("${app.products.suggest.max-key-length:40}") int maxKeyLength,
+                               MeterRegistry meterRegistry) {
+        this.productCatalogRepository = productCatalogRepository;
+        this.topK = topK;
+        this.maxWords = maxWords;
+        this.maxKeyLength = maxKeyLength;
+        meterRegistry.gauge("products.suggest.nodes", this, index -> index.nodeCount);
+        meterRegistry.gauge("products.suggest.memory.bytes", this, index -> index.estimatedBytes);
+    }
+
+    private record Entry(long productId, String name, long popularity) {
+    }
+
+    private static final class Node {
+        String label;
+        Map<Character, Node> children = new HashMap<>(4);
+        // Products whose key ends at this node
+        List<Entry> terminals = new ArrayList<>(0);
+        // Best entries of this node and every node below it
+        List<Entry> top = new ArrayList<>(0);
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * @return Up to {@code limit} (clamped to 1..k) products whose name, or one of its words onwards,
+     * starts with the prefix.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, topK));
+        String key = key(ProductTextAnalyzer.terms(prefix), 0);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.children.get(key.charAt(position));
+                if (child == null) {
+                    return List.of();
+                }
+                int remaining = key.length() - position;
+                if (remaining <= child.label.length()) {
+                    if (!child.label.startsWith(key.substring(position))) {
+                        return List.of();
+                    }
+                    node = child;
+                    break;
+                }
+                if (!key.startsWith(child.label, position)) {
+                    return List.of();
+                }
+                position += child.label.length();
+                node = child;
+            }
+            return node.top.stream().limit(size)
+                    .map(entry -> new ProductSuggestionDTO(entry.productId(), entry.name()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild(List<ProductDTO> products) {
+        Map<Long, Long> popularity = productCatalogRepository.countCartsByProduct();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            for (ProductDTO product : products) {
+                entries.put(product.getId(), new Entry(product.getId(), product.getName(),
+                        popularity.getOrDefault(product.getId(), 0L)));
+            }
+            rebuildTree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggest index built: {} products, {} nodes, ~{} KB", entries.size(), nodeCount,
+                estimatedBytes / 1024);
+    }
+
+    /**
+     * Reloads popularity from the carts and rebuilds the tree from the indexed names.
+     */
+    @Scheduled(fixedDelayString = "${app.products.suggest.popularity-refresh:900000}",
+            initialDelayString = "${app.products.suggest.popularity-refresh:900000}")
+    public void refreshPopularity() {
+        Map<Long, Long> popularity = productCatalogRepository.countCartsByProduct();
+        lock.writeLock().lock();
+        try {
+            entries.replaceAll((id, entry) -> new Entry(id, entry.name(), popularity.getOrDefault(id, 0L)));
+            rebuildTree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductsChanged(List<ProductDTO> changed, Collection<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            removedIds.forEach(this::remove);
+            for (ProductDTO product : changed) {
+                Entry previous = remove(product.getId());
+                Entry entry = new Entry(product.getId(), product.getName(),
+                        previous == null ? 0 : previous.popularity());
+                entries.put(entry.productId(), entry);
+                estimatedBytes += bytes(entry);
+                for (String key : keys(entry.name())) {
+                    insert(root, key, 0, entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildTree() {
+        root = new Node("");
+        nodeCount = 1;
+        estimatedBytes = bytes(root);
+        for (Entry entry : entries.values()) {
+            estimatedBytes += bytes(entry);
+            for (String key : keys(entry.name())) {
+                insert(root, key, 0, entry);
+            }
+        }
+    }
+
+    private Entry remove(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry != null) {
+            estimatedBytes -= bytes(entry);
+            for (String key : keys(entry.name())) {
+                remove(root, key, 0, productId);
+            }
+        }
+        return entry;
+    }
+
+    private void insert(Node node, String key, int position, Entry entry) {
+        long before = bytes(node);
+        offer(node.top, entry);
+        if (position == key.length()) {
+            if (node.terminals.stream().noneMatch(terminal -> terminal.productId() == entry.productId())) {
+                node.terminals.add(entry);
+            }
+            estimatedBytes += bytes(node) - before;
+            return;
+        }
+        estimatedBytes += bytes(node) - before;
+        char first = key.charAt(position);
+        Node child = node.children.get(first);
+        if (child == null) {
+            Node leaf = new Node(key.substring(position));
+            leaf.terminals.add(entry);
+            leaf.top.add(entry);
+            node.children.put(first, leaf);
+            added(leaf);
+            return;
+        }
+        int common = commonPrefix(child.label, key, position);
+        if (common < child.label.length()) {
+            // Split the edge where the key leaves it
+            Node middle = new Node(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            estimatedBytes -= 2L * common;
+            middle.children.put(child.label.charAt(0), child);
+            middle.top = new ArrayList<>(child.top);
+            node.children.put(first, middle);
+            added(middle);
+            child = middle;
+        }
+        insert(child, key, position + common, entry);
+    }
+
+    // Returns whether the node is left empty and can be dropped
+    private boolean remove(Node node, String key, int position, Long productId) {
+        long before = bytes(node);
+        if (position == key.length()) {
+            node.terminals.removeIf(terminal -> terminal.productId() == productId);
+        } else {
+            Node child = node.children.get(key.charAt(position));
+            if (child == null || !key.startsWith(child.label, position)) {
+                return false;
+            }
+            if (remove(child, key, position + child.label.length(), productId)) {
+                node.children.remove(key.charAt(position));
+                removed(child);
+            } else if (child.terminals.isEmpty() && child.children.size() == 1) {
+                // Keep the tree compressed: fold a pass-through node into its only child
+                Node only = child.children.values().iterator().next();
+                only.label = child.label + only.label;
+                node.children.put(key.charAt(position), only);
+                removed(child);
+                estimatedBytes += 2L * child.label.length();
+            }
+        }
+        recomputeTop(node);
+        estimatedBytes += bytes(node) - before;
+        return node != root && node.terminals.isEmpty() && node.children.isEmpty();
+    }
+
+    private void recomputeTop(Node node) {
+        List<Entry> top = new ArrayList<>(topK);
+        node.terminals.forEach(entry -> offer(top, entry));
+        for (Node child : node.children.values()) {
+            child.top.forEach(entry -> offer(top, entry));
+        }
+        node.top = top;
+    }
+
+    // Keeps the list sorted, at most k long, and with one entry per product
+    private void offer(List<Entry> top, Entry entry) {
+        for (Entry present : top) {
+            if (present.productId() == entry.productId()) {
+                return;
+            }
+        }
+        int index = 0;
+        while (index < top.size() && BEST_FIRST.compare(top.get(index), entry) <= 0) {
+            index++;
+        }
+        if (index < topK) {
+            top.add(index, entry);
+            if (top.size() > topK) {
+                top.remove(top.size() - 1);
+            }
+        }
+    }
+
+    private List<String> keys(String name) {
+        List<String> terms = ProductTextAnalyzer.terms(name);
+        List<String> keys = new ArrayList<>();
+        for (int word = 0; word < Math.min(terms.size(), maxWords); word++) {
+            keys.add(key(terms, word));
+        }
+        return keys;
+    }
+
+    private String key(List<String> terms, int fromWord) {
+        String key = String.join(" ", terms.subList(fromWord, terms.size()));
+        return key.length() > maxKeyLength ? key.substring(0, maxKeyLength) : key;
+    }
+
+    private static int commonPrefix(String label, String key, int position) {
+        int length = 0;
+        while (length < label.length() && position + length < key.length()
+                && label.charAt(length) == key.charAt(position + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private void added(Node node) {
+        nodeCount++;
+        estimatedBytes += bytes(node);
+    }
+
+    private void removed(Node node) {
+        nodeCount--;
+        estimatedBytes -= bytes(node);
+    }
+
+    private static long bytes(Node node) {
+        return NODE_BYTES + 2L * node.label.length() + 8L * (node.top.size() + node.terminals.size());
+    }
+
+    private static long bytes(Entry entry) {
+        return ENTRY_BYTES + 2L * entry.name().length();
+    }
+}
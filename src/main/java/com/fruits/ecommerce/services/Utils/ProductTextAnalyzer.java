@@ -0,0 +1,60 @@
+package com.fruits.ecommerce.services.Utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns product text into search terms: compatibility-decomposes it (Arabic presentation forms included),
+ * drops combining marks (Latin accents, Arabic harakat and hamza), folds Arabic letter variants
+ * (alef forms to ا, ة to ه, ى to ي, tatweel removed), lower-cases and splits on anything but letters and digits.
+ * "Açaí" and "acai" give the same term, as do "أناناس" and "اناناس".
+ */
+public final class ProductTextAnalyzer {
+
+    private ProductTextAnalyzer() {
+    }
+
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Case, diacritic and Arabic-variant folding of a whole string, separators kept.
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case 'ـ' -> { } // tatweel
+                // آ, أ and إ need no case: NFKD already split them into alef and a mark dropped above
+                case 'ٱ' -> folded.append('ا');
+                case 'ة' -> folded.append('ه');
+                case 'ى' -> folded.append('ي');
+                default -> folded.append(c);
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+}
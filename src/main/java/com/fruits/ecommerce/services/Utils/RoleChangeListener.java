@@ -0,0 +1,28 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.entities.Role;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA listener on {@link Role}: any write to the roles table invalidates the {@link RoleRegistry}.
+ * Instantiated by Hibernate through Spring, the registry is resolved lazily to avoid a cycle
+ * with the entity manager factory.
+ */
+public class RoleChangeListener {
+
+    private final ObjectProvider<RoleRegistry> roleRegistry;
+
+    public RoleChangeListener(ObjectProvider<RoleRegistry> roleRegistry) {
+        this.roleRegistry = roleRegistry;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onRoleChange(Role role) {
+        roleRegistry.ifAvailable(RoleRegistry::invalidateAfterCommit);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the roles table (a handful of static rows seeded by V1), so hot paths such as
+ * registration and add-to-cart resolve a role without a query.
+ * The map is immutable and swapped as a whole; it is reloaded after any Role insert/update/delete commits
+ * (see {@link RoleChangeListener}) and when a role is not found.
+ * The returned roles are detached: compare them by {@link Role#getName()}, not by identity.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+    private volatile Map<RoleType, Role> roles;
+
+    @PostConstruct
+    public synchronized Map<RoleType, Role> refresh() {
+        Map<RoleType, Role> loaded = new EnumMap<>(RoleType.class);
+        for (Role role : roleRepository.findAll()) {
+            loaded.put(role.getName(), role);
+        }
+        roles = Collections.unmodifiableMap(loaded);
+        log.info("Role registry loaded: {}", loaded.keySet());
+        return roles;
+    }
+
+    public Optional<Role> findByName(RoleType name) {
+        Map<RoleType, Role> current = roles;
+        if (current == null) {
+            current = refresh();
+        }
+        Role role = current.get(name);
+        if (role != null) {
+            return Optional.of(role);
+        }
+        // Roles may have been seeded after startup: look this one up and remember it
+        Optional<Role> loaded = roleRepository.findByName(name);
+        loaded.ifPresent(this::remember);
+        return loaded;
+    }
+
+    /**
+     * Drops the registry once the surrounding transaction commits (or immediately without one);
+     * the next lookup reloads every role.
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    roles = null;
+                }
+            });
+        } else {
+            roles = null;
+        }
+    }
+
+    private synchronized void remember(Role role) {
+        if (roles == null) {
+            return;
+        }
+        Map<RoleType, Role> updated = new EnumMap<>(RoleType.class);
+        updated.putAll(roles);
+        updated.put(role.getName(), role);
+        roles = Collections.unmodifiableMap(updated);
+    }
+}
@@ -0,0 +1,61 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidUserDataException;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.util.StringUtils;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Validation rules for a new user that do not need the database,
+ * shared by single registration and the bulk import.
+ */
+public final class UserDataRules {
+    // Regular expression to validate email format
+    private static final Pattern EMAIL_PATTERN =
+            Pattern.compile("^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+
+    private UserDataRules() {
+    }
+
+    /**
+     * @throws InvalidUserDataException if the password is empty, a required field is missing or the email is malformed.
+     */
+    public static void validateRequiredFields(UserDTO userDTO) {
+        if (!StringUtils.hasText(userDTO.getPassword())) {
+            throw new InvalidUserDataException("Password cannot be empty or null.");
+        }
+
+        if (userDTO.getFirstName() == null || userDTO.getLastName() == null ||
+                userDTO.getUsername() == null || userDTO.getEmail() == null) {
+            throw new InvalidUserDataException("All required fields must be provided.");
+        }
+
+        if (!isValidEmail(userDTO.getEmail())) {
+            throw new InvalidUserDataException("Invalid email format.");
+        }
+    }
+
+    /**
+     * Validates the user DTO using its validation annotations.
+     *
+     * @throws InvalidUserDataException listing every violated constraint.
+     */
+    public static void validateConstraints(UserDTO userDTO, Validator validator) {
+        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
+        if (!violations.isEmpty()) {
+            StringBuilder errorMessage = new StringBuilder("Invalid user data: ");
+            for (ConstraintViolation<UserDTO> violation : violations) {
+                errorMessage.append(violation.getMessage()).append(", ");
+            }
+            throw new InvalidUserDataException(errorMessage.toString().trim());
+        }
+    }
+
+    public static boolean isValidEmail(String email) {
+        return EMAIL_PATTERN.matcher(email).matches();
+    }
+}
@@ -0,0 +1,262 @@
+package com.fruits.ecommerce.services.Utils;
+
+import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+import com.fruits.ecommerce.models.entities.CartItemKey;
+import com.fruits.ecommerce.repository.CartLineRepository;
+import com.fruits.ecommerce.repository.CartViewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional write-behind storage of active carts (app.cart.write-behind.enabled).
+ * A cart is loaded from the database on first use and then edited in memory, under the lock of its stripe;
+ * the lines changed since the last flush are written to cart_items periodically and on shutdown,
+ * in batches across carts, each line once with its latest quantity (last write wins).
+ * The database therefore lags by up to the flush interval, and a crash loses the edits of that window:
+ * after a restart, carts are read back as they were last flushed. Only one application instance may
+ * use this mode, since each instance trusts its own copy of the carts.
+ */
+@Slf4j
+@Service
+public class WriteBehindCartStore {
+
+    private final CartViewRepository cartViewRepository;
+    private final CartLineRepository cartLineRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long idleTimeoutMillis;
+    // Customer (user) id -> cart; a cart is only read or changed under the lock of its stripe
+    private final Map<Long, CachedCart> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+
+    public WriteBehindCartStore(CartViewRepository cartViewRepository,
+                                CartLineRepository cartLineRepository,
+                                @Value("${app.cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${app.cart.write-behind.batch-size:500}") int batchSize,
+                                @Value("${app.cart.write-behind.idle-timeout:1800000}") long idleTimeoutMillis,
+                                @Value("${app.cart.write-behind.lock-stripes:64}") int lockStripes) {
+        this.cartViewRepository = cartViewRepository;
+        this.cartLineRepository = cartLineRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Changes the lines (product id -> quantity) of the customer's cart; lines left at 0 or below are removed.
+     *
+     * @return false if the customer has no cart yet.
+     */
+    public boolean modify(long customerId, Consumer<Map<Long, Integer>> change) {
+        ReentrantLock lock = stripe(customerId);
+        lock.lock();
+        try {
+            CachedCart cart = load(customerId);
+            if (cart == null) {
+                return false;
+            }
+            Map<Long, Integer> before = new HashMap<>(cart.lines);
+            change.accept(cart.lines);
+            cart.lines.values().removeIf(quantity -> quantity <= 0);
+            Set<Long> productIds = new HashSet<>(before.keySet());
+            productIds.addAll(cart.lines.keySet());
+            for (Long productId : productIds) {
+                Integer quantity = cart.lines.get(productId);
+                if (!Objects.equals(quantity, before.get(productId))) {
+                    cart.dirty.put(productId, quantity == null ? 0 : quantity);
+                }
+            }
+            cart.lastAccess = System.currentTimeMillis();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The customer's cart with product ids and quantities only, or empty if the customer has no cart yet.
+     */
+    public Optional<CartDTO> find(long customerId) {
+        ReentrantLock lock = stripe(customerId);
+        lock.lock();
+        try {
+            CachedCart cart = load(customerId);
+            if (cart == null) {
+                return Optional.empty();
+            }
+            cart.lastAccess = System.currentTimeMillis();
+            CartDTO cartDTO = new CartDTO();
+            cartDTO.setId(cart.id);
+            cartDTO.setCustomerId(customerId);
+            cartDTO.setShippingCost(cart.shippingCost);
+            cartDTO.setDiscount(cart.discount);
+            List<CartItemDTO> items = new ArrayList<>(cart.lines.size());
+            new TreeMap<>(cart.lines).forEach((productId, quantity) -> {
+                CartItemDTO item = new CartItemDTO();
+                item.setCartId(cart.id);
+                item.setProductId(productId);
+                item.setQuantity(quantity);
+                items.add(item);
+            });
+            cartDTO.setItems(items);
+            return Optional.of(cartDTO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every changed line, and drops carts that are unchanged and idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        Map<CartItemKey, Integer> changed = new LinkedHashMap<>();
+        Map<Long, Long> customerByCart = new HashMap<>();
+        for (Long customerId : carts.keySet()) {
+            ReentrantLock lock = stripe(customerId);
+            lock.lock();
+            try {
+                CachedCart cart = carts.get(customerId);
+                if (cart == null) {
+                    continue;
+                }
+                if (cart.dirty.isEmpty()) {
+                    if (cart.lastAccess < idleSince) {
+                        carts.remove(customerId);
+                    }
+                    continue;
+                }
+                cart.dirty.forEach((productId, quantity) -> changed.put(new CartItemKey(cart.id, productId), quantity));
+                cart.dirty.clear();
+                customerByCart.put(cart.id, customerId);
+            } finally {
+                lock.unlock();
+            }
+        }
+        List<Map.Entry<CartItemKey, Integer>> lines = new ArrayList<>(changed.entrySet());
+        for (int from = 0; from < lines.size(); from += batchSize) {
+            Map<CartItemKey, Integer> batch = new LinkedHashMap<>();
+            lines.subList(from, Math.min(lines.size(), from + batchSize))
+                    .forEach(line -> batch.put(line.getKey(), line.getValue()));
+            write(batch, customerByCart);
+        }
+        if (!lines.isEmpty()) {
+            log.debug("Flushed {} cart lines", lines.size());
+        }
+    }
+
+    private void write(Map<CartItemKey, Integer> batch, Map<Long, Long> customerByCart) {
+        try {
+            cartLineRepository.writeLines(batch);
+        } catch (DataIntegrityViolationException e) {
+            // A product or a cart was deleted: write the lines one by one and drop the rejected ones
+            batch.forEach((key, quantity) -> {
+                try {
+                    cartLineRepository.writeLines(Map.of(key, quantity));
+                } catch (DataIntegrityViolationException rejected) {
+                    log.warn("Dropped cart line {} of cart {}: {}", key.getProductId(), key.getCartId(),
+                            rejected.getMessage());
+                    evict(customerByCart.get(key.getCartId()));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Keep the lines for the next flush rather than losing them; newer edits win
+            log.error("Failed to flush {} cart lines: {}", batch.size(), e.getMessage());
+            batch.forEach((key, quantity) -> requeue(customerByCart.get(key.getCartId()), key.getProductId(), quantity));
+        }
+    }
+
+    private void requeue(long customerId, long productId, int quantity) {
+        ReentrantLock lock = stripe(customerId);
+        lock.lock();
+        try {
+            CachedCart cart = carts.get(customerId);
+            if (cart != null) {
+                cart.dirty.putIfAbsent(productId, quantity);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The cached copy no longer matches the database: it is read again on next use
+    private void evict(long customerId) {
+        ReentrantLock lock = stripe(customerId);
+        lock.lock();
+        try {
+            CachedCart cart = carts.get(customerId);
+            if (cart != null && cart.dirty.isEmpty()) {
+                carts.remove(customerId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Under the customer's stripe lock
+    private CachedCart load(long customerId) {
+        CachedCart cart = carts.get(customerId);
+        if (cart == null) {
+            cart = cartViewRepository.findByCustomerId(customerId).map(CachedCart::new).orElse(null);
+            if (cart != null) {
+                carts.put(customerId, cart);
+            }
+        }
+        return cart;
+    }
+
+    private ReentrantLock stripe(long customerId) {
+        return stripes[Math.floorMod(Long.hashCode(customerId), stripes.length)];
+    }
+
+    private static final class CachedCart {
+        final long id;
+        final BigDecimal shippingCost;
+        final BigDecimal discount;
+        // Product id -> quantity, as the customer sees it
+        final Map<Long, Integer> lines = new HashMap<>();
+        // Product id -> quantity to write, 0 to delete the line
+        final Map<Long, Integer> dirty = new HashMap<>();
+        long lastAccess = System.currentTimeMillis();
+
+        CachedCart(CartDTO cart) {
+            this.id = cart.getId();
+            this.shippingCost = cart.getShippingCost();
+            this.discount = cart.getDiscount();
+            cart.getItems().forEach(item -> lines.put(item.getProductId(), item.getQuantity()));
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.fruits.ecommerce.services.implementations;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters.DecodedToken;
 import com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters.JWTTokenProvider;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.TokenDenylist;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserDetailsCache;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserSecurityVersions;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.*;
 import com.fruits.ecommerce.models.dtos.AuthResponseDTO;
 import com.fruits.ecommerce.models.dtos.LoginRequestDTO;
@@ -10,17 +15,17 @@ import com.fruits.ecommerce.models.entities.Role;
 import com.fruits.ecommerce.models.entities.User;
 import com.fruits.ecommerce.models.enums.RoleType;
 import com.fruits.ecommerce.models.mappers.UserMapper;
-import com.fruits.ecommerce.repository.RoleRepository;
 import com.fruits.ecommerce.repository.UserRepository;
 import com.fruits.ecommerce.services.Interfaces.IUserService;
 import com.fruits.ecommerce.services.Utils.EmailService;
+import com.fruits.ecommerce.services.Utils.LastLoginRecorder;
 import com.fruits.ecommerce.services.Utils.LoginAttemptService;
-import jakarta.mail.MessagingException;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.Utils.UserDataRules;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -30,10 +35,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import javax.management.relation.RoleNotFoundException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 @Slf4j
@@ -42,7 +45,7 @@ import java.util.stream.Collectors;
 public class AuthImplementation implements IUserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final AuthenticationManager authenticationManager;
@@ -50,6 +53,10 @@ public class AuthImplementation implements IUserService {
     private final LoginAttemptService loginAttemptService;
     private final EmailService emailService;
     private final Validator validator;
+    private final UserSecurityVersions userSecurityVersions;
+    private final TokenDenylist tokenDenylist;
+    private final UserDetailsCache userDetailsCache;
+    private final LastLoginRecorder lastLoginRecorder;
 
     /**
      * Registering a new user with the provided details.
@@ -65,6 +72,7 @@ public class AuthImplementation implements IUserService {
 
 
     @Override
+    @Transactional
     public UserDTO register(UserDTO userDTO) {
         log.info("Starting registration process for user: {}", userDTO.getUsername());
 
@@ -74,7 +82,9 @@ public class AuthImplementation implements IUserService {
             User user = createUser(userDTO, roles);
             user = userRepository.save(user);
 
-            sendRegistrationEmailAsync(user, userDTO.getPassword());
+            // Queued in this transaction, sent by the outbox dispatcher after commit
+            emailService.sendNewPasswordEmail(user.getFirstName(), user.getUsername(), userDTO.getPassword(),
+                    user.getEmail());
 
             log.info("User registered successfully: {}", user.getUsername());
             return userMapper.toDTO(user);
@@ -95,11 +105,6 @@ public class AuthImplementation implements IUserService {
         return user;
     }
 
-    @Async
-    public void sendRegistrationEmailAsync(User user, String password) {
-        sendRegistrationEmail(user, password);
-    }
-
     /**
      * User login and data validation.
      *
@@ -117,8 +122,22 @@ public class AuthImplementation implements IUserService {
         String identifier = StringUtils.hasText(loginRequest.getUsername()) ?
                 loginRequest.getUsername() : loginRequest.getEmail();
 
-        // Find the user
-        User user = getUserByIdentifier(identifier);
+        // Refuse clients that keep failing, before revealing whether the identifier exists
+        String clientIp = loginAttemptService.resolveClientIp();
+        if (loginAttemptService.isClientBlocked(clientIp)) {
+            throw tooManyLoginAttempts();
+        }
+
+        // Find the user (with roles, shared with the authentication below through the user details cache)
+        Optional<UserData> userData = userDetailsCache.find(identifier);
+        if (userData.isEmpty()) {
+            loginAttemptService.addFailedAttempt(null, clientIp);
+            throw new UserNotFoundException("In-Valid UserAccount with: " + identifier);
+        }
+        User user = userData.get().getUser();
+        if (loginAttemptService.isUserClientBlocked(user.getId(), clientIp)) {
+            throw tooManyLoginAttempts();
+        }
         // Check if the account is locked
         if (!user.isNotLocked()) {
             throw new AccountLockedException("Your account has been locked due to multiple failed login attempts. " +
@@ -133,25 +152,32 @@ public class AuthImplementation implements IUserService {
 
             // If authentication is successful, reset failed attempts and update last login
             loginAttemptService.evictUserFromLoginAttemptCache(user.getId());
-            user.updateLastLogin();
-            user.setNotLocked(true);
-            userRepository.save(user);
+            loginAttemptService.evictUserClientFromLoginAttemptCache(user.getId(), clientIp);
+            // Only last_login changes here: buffered and written in batches, not a user UPDATE per login
+            // The user is shared with concurrent logins through the cache, so it is not changed here
+            LocalDateTime lastLogin = LocalDateTime.now();
+            lastLoginRecorder.record(user.getId(), lastLogin);
 
             // Create JWT Token
             String token = jwtTokenProvider.generateJwtToken((UserData) authentication.getPrincipal());
 
             // Return authentication response
-            return new AuthResponseDTO(token, userMapper.toDTO(user));
+            UserDTO userDTO = userMapper.toDTO(user);
+            userDTO.setLastLogin(lastLogin);
+            return new AuthResponseDTO(token, userDTO);
 
         } catch (AuthenticationException ex) {
             // Add failed login attempt
             log.error("Login failed for {}: {}", identifier, ex.getMessage());
-            loginAttemptService.addUserToLoginAttemptCache(user.getId());
+            // Failures are only counted in memory: a wrong password writes nothing to the users table
+            loginAttemptService.addFailedAttempt(user.getId(), clientIp);
 
             // Check if max attempts exceeded after this attempt
             if (loginAttemptService.hasExceededMaxAttempts(user.getId())) {
-                user.setNotLocked(false);
-                userRepository.save(user);
+                // The user is a shared cached copy: never change it or save it back, update the row in SQL instead
+                userRepository.lockAfterFailedLogins(user.getId(), LocalDateTime.now());
+                userSecurityVersions.evictAfterCommit(user.getId());
+                userDetailsCache.evictAfterCommit(user);
                 throw new AccountLockedException("Your account has been locked due to multiple failed login attempts. " +
                         "Please try again later or Contact Technical Support-Team.");
             }
@@ -160,16 +186,40 @@ public class AuthImplementation implements IUserService {
         }
     }
 
+    private TooManyLoginAttemptsException tooManyLoginAttempts() {
+        return new TooManyLoginAttemptsException("Too many failed login attempts. Please try again later.",
+                loginAttemptService.getRetryAfterSeconds());
+    }
 
     @Override
+    public void logout(String token) throws InvalidTokenException {
+        DecodedToken decodedToken;
+        try {
+            decodedToken = jwtTokenProvider.verifyToken(token);
+        } catch (JWTVerificationException e) {
+            throw new InvalidTokenException("Token cannot be verified");
+        }
+        if (decodedToken.getTokenId() == null) {
+            throw new InvalidTokenException("Token has no id and cannot be revoked");
+        }
+        tokenDenylist.revoke(decodedToken.getTokenId(), decodedToken.getExpiresAtMillis());
+        log.info("User logged out: {}", decodedToken.getSubject());
+    }
+
+    @Override
+    @Transactional
     public void lockUser(String identifier) {
         User user = getUserByIdentifier(identifier);
 
         if (user.isNotLocked()) {
             user.setNotLocked(false);
             loginAttemptService.addUserToLoginAttemptCache(user.getId());
+            // Revoke every token issued before the lock
+            user.bumpSecurityVersion();
             userRepository.save(user);
-            sendAccountLockedEmailAsync(user);
+            userSecurityVersions.evictAfterCommit(user.getId());
+            userDetailsCache.evictAfterCommit(user);
+            emailService.sendAccountLockedEmail(user.getFirstName(), user.getEmail());
             log.info("User account locked: {}", identifier);
         } else {
             log.info("User account already locked: {}", identifier);
@@ -178,14 +228,17 @@ public class AuthImplementation implements IUserService {
     }
 
     @Override
+    @Transactional
     public void unlockUser(String identifier) {
         User user = getUserByIdentifier(identifier);
 
         if (!user.isNotLocked()) {
             user.setNotLocked(true);
+            userRepository.clearLockedAt(user.getId());
             loginAttemptService.evictUserFromLoginAttemptCache(user.getId());
             userRepository.save(user);
-            sendAccountUnlockedEmailAsync(user);
+            userDetailsCache.evictAfterCommit(user);
+            emailService.sendAccountUnlockedEmail(user.getFirstName(), user.getEmail());
             log.info("User account unlocked: {}", identifier);
         } else {
             log.info("User account already unlocked: {}", identifier);
@@ -193,39 +246,6 @@ public class AuthImplementation implements IUserService {
         }
     }
 
-    @Async
-    public void sendAccountLockedEmailAsync(User user) {
-        sendAccountLockedEmail(user);
-    }
-
-    @Async
-    public void sendAccountUnlockedEmailAsync(User user) {
-        sendAccountUnlockedEmail(user);
-    }
-
-    private void sendAccountLockedEmail(User user) {
-        try {
-            emailService.sendAccountLockedEmail(user.getFirstName(), user.getEmail());
-            log.info("Account locked email sent successfully to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send account locked email to: {}. Error: {}", user.getEmail(), e.getMessage());
-            // Optionally handle the exception (e.g., retry or log)
-            throw new RuntimeException(e.getMessage());
-        }
-    }
-
-    private void sendAccountUnlockedEmail(User user) {
-        try {
-            emailService.sendAccountUnlockedEmail(user.getFirstName(), user.getEmail());
-            log.info("Account unlocked email sent successfully to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send account unlocked email to: {}. Error: {}", user.getEmail(), e.getMessage());
-            // Optionally handle the exception
-            throw new RuntimeException(e.getMessage());
-        }
-    }
-
-
     private User getUserByIdentifier(String identifier) {
         return userRepository.findByUsernameOrEmail(identifier, identifier)
                 .orElseThrow(() -> new UserNotFoundException("In-Valid UserAccount with: " + identifier));
@@ -244,18 +264,7 @@ public class AuthImplementation implements IUserService {
 
     // This method will validate the new user data before saving it
     private void validateNewUser(UserDTO userDTO) {
-        if (!StringUtils.hasText(userDTO.getPassword())) {
-            throw new InvalidUserDataException("Password cannot be empty or null.");
-        }
-
-        if (userDTO.getFirstName() == null || userDTO.getLastName() == null ||
-                userDTO.getUsername() == null || userDTO.getEmail() == null) {
-            throw new InvalidUserDataException("All required fields must be provided.");
-        }
-
-        if (!isValidEmail(userDTO.getEmail())) {
-            throw new InvalidUserDataException("Invalid email format.");
-        }
+        UserDataRules.validateRequiredFields(userDTO);
 
         if (userRepository.existsByUsername(userDTO.getUsername())) {
             throw new UsernameExistException("Username already exists.");
@@ -265,21 +274,7 @@ public class AuthImplementation implements IUserService {
             throw new EmailExistException("Email already exists.");
         }
         // Validate the user DTO using the validation annotations
-        Set<ConstraintViolation<UserDTO>> violations = validator.validate(userDTO);
-        if (!violations.isEmpty()) {
-            // Throw an InvalidUserDataException if there are any validation errors
-            StringBuilder errorMessage = new StringBuilder("Invalid user data: ");
-            for (ConstraintViolation<UserDTO> violation : violations) {
-                errorMessage.append(violation.getMessage()).append(", ");
-            }
-            throw new InvalidUserDataException(errorMessage.toString().trim());
-        }
-    }
-
-    private boolean isValidEmail(String email) {
-        // Regular expression to validate email format
-        String emailRegex = "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$";
-        return email.matches(emailRegex);
+        UserDataRules.validateConstraints(userDTO, validator);
     }
 
     /**
@@ -295,7 +290,7 @@ public class AuthImplementation implements IUserService {
             for (String roleName : roleNames) {
                 try {
                     RoleType roleType = RoleType.valueOf(roleName.toUpperCase());
-                    Role role = roleRepository.findByName(roleType)
+                    Role role = roleRegistry.findByName(roleType)
                             .orElseThrow(() -> new InvalidRoleException("Role not found: " + roleName));
                     roles.add(role);
                 } catch (IllegalArgumentException ex) {
@@ -304,7 +299,7 @@ public class AuthImplementation implements IUserService {
             }
         } else {
             //Assign the default Role AS USER
-            Role defaultRole = roleRepository.findByName(RoleType.USER)
+            Role defaultRole = roleRegistry.findByName(RoleType.USER)
                     .orElseThrow(() -> new InvalidRoleException("Default Role not found."));
             roles.add(defaultRole);
         }
@@ -312,17 +307,6 @@ public class AuthImplementation implements IUserService {
     }
 
 
-    private void sendRegistrationEmail(User user, String password) {
-        try {
-            emailService.sendNewPasswordEmail(user.getFirstName(), user.getUsername(), password, user.getEmail());
-            log.info("Registration email sent successfully to: {}", user.getEmail());
-        } catch (MessagingException e) {
-            log.error("Failed to send registration email to: {}. Error: {}", user.getEmail(), e.getMessage());
-            // We're not throwing an exception here to avoid rolling back the registration process
-            throw new RuntimeException("Failed to send registration email to:", e.getCause());
-        }
-    }
-
     @Override
     public void addRoleToUser(Long userId, RoleType roleType) throws UserNotFoundException, InvalidRoleException {
         if (roleType == null) {
@@ -333,18 +317,21 @@ public class AuthImplementation implements IUserService {
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
 
         // Fetch role by RoleType
-        Role role = roleRepository.findByName(roleType)
+        Role role = roleRegistry.findByName(roleType)
                 .orElseThrow(() -> new InvalidRoleException("Role not found in database: " + roleType));
 
         // Check if user already has the role
-        if (user.getRoles().contains(role)) {
+        if (user.hasRole(roleType)) {
             log.warn("User {} already has role {}", userId, roleType);
             return;
         }
         // Add role to user's set of roles
         user.getRoles().add(role);
+        user.bumpSecurityVersion();
         // Save user
         userRepository.save(user);
+        userSecurityVersions.evictAfterCommit(userId);
+        userDetailsCache.evictAfterCommit(user);
         // Log the action
         log.info("Role {} added to user {}", roleType, userId);
     }
@@ -356,15 +343,18 @@ public class AuthImplementation implements IUserService {
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
 
         // Fetch role by RoleType
-        Role role = roleRepository.findByName(roleType)
+        Role role = roleRegistry.findByName(roleType)
                 .orElseThrow(() -> new InvalidRoleException("Role not found with name: " + roleType));
 
         // Remove role from user's set of roles
-        boolean removed = user.getRoles().remove(role);
+        boolean removed = user.getRoles().removeIf(userRole -> userRole.getName() == role.getName());
 
         if (removed) {
             // Save user if role was removed
+            user.bumpSecurityVersion();
             userRepository.save(user);
+            userSecurityVersions.evictAfterCommit(userId);
+            userDetailsCache.evictAfterCommit(user);
             // Log the action
             log.info("Role {} removed from user {}", roleType, userId);
         } else {
@@ -376,25 +366,7 @@ public class AuthImplementation implements IUserService {
     }
 
     @Override
-    public List<UserDTO> getAllCustomers() throws RoleNotFoundException {
-        // Getting the Role from DB
-        Role role = roleRepository.findByName(RoleType.CUSTOMER)
-                .orElseThrow(() -> new RoleNotFoundException("Role not found: CUSTOMER"));
-        return userRepository.findAllByRoles(role)
-                .stream()
-                .map(userMapper::toDTO)
-                .collect(Collectors.toList());
-    }
-
-    @Override
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(userMapper::toDTO)
-                .collect(Collectors.toList());
-    }
-
-    @Override
+    @Transactional
     public UserDTO updateUser(Long userId, UserDTO userDTO) throws UserNotFoundException,
             InvalidUserDataException, EmailExistException {
 
@@ -406,6 +378,8 @@ public class AuthImplementation implements IUserService {
         if (!user.getEmail().equals(userDTO.getEmail()) && userRepository.existsByEmail(userDTO.getEmail())) {
             throw new EmailExistException("Email already exists: " + userDTO.getEmail());
         }
+        // The old email may be a cached login key
+        userDetailsCache.evictAfterCommit(user);
         // Update user fields
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
@@ -430,6 +404,8 @@ public class AuthImplementation implements IUserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
         userRepository.delete(user);
+        userSecurityVersions.evictAfterCommit(userId);
+        userDetailsCache.evictAfterCommit(user);
         log.info("User deleted successfully: {}", user.getUsername());
     }
 
@@ -450,15 +426,13 @@ public class AuthImplementation implements IUserService {
         validatePassword(newPassword);
         // Update password
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.bumpSecurityVersion();
         userRepository.save(user);
-        // Send confirmation email
-        try {
-            emailService.sendPasswordChangeConfirmationEmail(user.getFirstName(), user.getEmail());
-            log.info("Password changed successfully for user ID: {}", userId);
-        } catch (MessagingException e) {
-            log.error("Failed to send password change confirmation email", e);
-            // Don't throw exception as password was already changed successfully
-        }
+        userSecurityVersions.evictAfterCommit(userId);
+        userDetailsCache.evictAfterCommit(user);
+        // Queue confirmation email
+        emailService.sendPasswordChangeConfirmationEmail(user.getFirstName(), user.getEmail());
+        log.info("Password changed successfully for user ID: {}", userId);
     }
 
     @Override
@@ -473,15 +447,18 @@ public class AuthImplementation implements IUserService {
             String encodedPassword = passwordEncoder.encode(newPassword);
             // update password
             user.setPassword(encodedPassword);
+            user.bumpSecurityVersion();
             userRepository.save(user);
+            userSecurityVersions.evictAfterCommit(userId);
+            userDetailsCache.evictAfterCommit(user);
             emailService.sendPasswordResetToEmail(user.getFirstName(), user.getUsername(),newPassword,user.getEmail());
             log.info("Password reset successfully for user ID: {}", userId);
         } catch (UserNotFoundException e) {
             log.error("User not found: {}", e.getMessage());
             throw e; // Re-throw exception
-        } catch (MessagingException e) {
-            log.error("Error sending confirmation email: {}", e.getMessage());
-            throw new EmailExistException("Error sending confirmation email.");
+        } catch (ServiceBusyException e) {
+            // The hashing executor is full: the client gets 503 with Retry-After, not a 400
+            throw e;
         } catch (Exception e) {
             log.error("An unexpected error occurred: {}", e.getMessage());
             throw new InvalidUserDataException("An unexpected error occurred.");
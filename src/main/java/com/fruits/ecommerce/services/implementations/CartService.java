@@ -3,39 +3,75 @@ package com.fruits.ecommerce.services.implementations;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.UserNotFoundException;
 import com.fruits.ecommerce.exceptions.products.CartNotFoundException;
+import com.fruits.ecommerce.exceptions.products.InvalidCartOperationException;
 import com.fruits.ecommerce.exceptions.products.ProductNotFoundException;
 import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+import com.fruits.ecommerce.models.dtos.CartOperationDTO;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
 import com.fruits.ecommerce.models.entities.*;
 import com.fruits.ecommerce.models.enums.RoleType;
 import com.fruits.ecommerce.models.mappers.CartMapper;
 import com.fruits.ecommerce.repository.*;
 import com.fruits.ecommerce.services.Interfaces.ICartService;
+import com.fruits.ecommerce.services.Utils.CartTotals;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.Utils.WriteBehindCartStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
-@Service@Slf4j
+@Service
+@Slf4j
 @RequiredArgsConstructor
 public class CartService implements ICartService {
+    // Largest quantity one request may add, remove or set, as for POST /add
+    private static final int MAX_OPERATION_QUANTITY = 100;
+
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartLineRepository cartLineRepository;
+    private final CartViewRepository cartViewRepository;
     private final CartMapper cartMapper;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final ProductCache productCache;
+    private final PlatformTransactionManager transactionManager;
+    // When enabled, carts are edited and read in memory and written to the database in the background
+    private final WriteBehindCartStore cartStore;
+    // User id -> cart id; a cart is never moved to another customer
+    private final Cache<Long, Long> cartIds = Caffeine.newBuilder().maximumSize(100_000).build();
 
     @Value("${app.shipping.cost}")
     private BigDecimal shippingCost;
 
     @Value("${app.discount.percentage}")
     private BigDecimal discountPercentage;
+
+    @Value("${app.cart.max-batch-operations:100}")
+    private int maxBatchOperations;
     @PostConstruct
     public void init() {
         log.info("Shipping Cost: {}", shippingCost);
@@ -43,61 +79,292 @@ public class CartService implements ICartService {
     }
 
 
+    /**
+     * Known carts take the fast path: the cart id comes from the principal's user id (cached), the product
+     * from the product cache, and the line is added with one upsert, without a transaction around it.
+     * The first add of a user, or one the upsert rejects, takes the full path.
+     */
     @Override
-    @Transactional
     public void addProductToCart(Authentication authentication, Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidCartOperationException("Quantity must be positive.");
+        }
+        if (cartStore.isEnabled()) {
+            checkCachedProduct(productId);
+            storeWrite(authentication, lines -> lines.merge(productId, quantity, Integer::sum));
+            return;
+        }
+        writeLine(authentication, productId, cartId -> cartLineRepository.addQuantity(cartId, productId, quantity));
+    }
+
+    @Override
+    public void setItemQuantity(Authentication authentication, Long productId, int quantity) {
+        if (quantity < 0 || quantity > MAX_OPERATION_QUANTITY) {
+            throw new InvalidCartOperationException("Quantity must be between 0 and " + MAX_OPERATION_QUANTITY + ".");
+        }
+        if (quantity == 0) {
+            removeItem(authentication, productId);
+            return;
+        }
+        if (cartStore.isEnabled()) {
+            checkCachedProduct(productId);
+            storeWrite(authentication, lines -> lines.put(productId, quantity));
+            return;
+        }
+        writeLine(authentication, productId,
+                cartId -> cartLineRepository.setQuantities(cartId, Map.of(productId, quantity)));
+    }
+
+    @Override
+    public void removeItem(Authentication authentication, Long productId) {
+        if (cartStore.isEnabled()) {
+            cartStore.modify(userId(authentication), lines -> lines.remove(productId));
+            return;
+        }
+        Long cartId = knownCartId(userId(authentication));
+        if (cartId != null) {
+            cartLineRepository.removeLines(cartId, List.of(productId));
+        }
+    }
+
+    @Override
+    public void clearCart(Authentication authentication) {
+        if (cartStore.isEnabled()) {
+            cartStore.modify(userId(authentication), Map::clear);
+            return;
+        }
+        Long cartId = knownCartId(userId(authentication));
+        if (cartId != null) {
+            cartLineRepository.clear(cartId);
+        }
+    }
+
+    /**
+     * Applies the operations in order, as if one by one, in a single transaction: the operations on each product
+     * are folded into one change, the products are checked with one query, and the changes are written
+     * with at most one batch per kind (add, set, remove).
+     */
+    @Override
+    public CartDTO applyCartOperations(Authentication authentication, List<CartOperationDTO> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > maxBatchOperations) {
+            throw new InvalidCartOperationException("Between 1 and " + maxBatchOperations + " operations are required.");
+        }
+        Map<Long, LineChange> changes = fold(operations);
+        Map<Long, Integer> added = new HashMap<>();
+        Map<Long, Integer> set = new HashMap<>();
+        List<Long> removed = new ArrayList<>();
+        changes.forEach((productId, change) -> {
+            if (!change.absolute()) {
+                if (change.quantity() != 0) {
+                    added.put(productId, change.quantity());
+                }
+            } else if (change.quantity() > 0) {
+                set.put(productId, change.quantity());
+            } else {
+                removed.add(productId);
+            }
+        });
+        // Removing a line of a deleted product is harmless: only the written products must exist
+        Set<Long> written = new HashSet<>(added.keySet());
+        written.addAll(set.keySet());
+        Set<Long> existing = cartLineRepository.findExistingProductIds(written);
+        written.removeAll(existing);
+        if (!written.isEmpty()) {
+            throw new ProductNotFoundException("Products not found with ids: " + written);
+        }
+
+        if (cartStore.isEnabled()) {
+            // One change of the in-memory cart under its lock, so the operations still apply together
+            storeWrite(authentication, lines -> changes.forEach((productId, change) -> {
+                if (change.absolute()) {
+                    lines.put(productId, change.quantity());
+                } else {
+                    lines.merge(productId, change.quantity(), Integer::sum);
+                }
+            }));
+            return getCartDetails(authentication);
+        }
+        long userId = userId(authentication);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Long knownCartId = knownCartId(userId);
+            long cartId = knownCartId != null ? knownCartId : resolveCartId(authentication);
+            if (!set.isEmpty()) {
+                cartLineRepository.setQuantities(cartId, set);
+            }
+            if (!added.isEmpty()) {
+                cartLineRepository.addQuantities(cartId, added);
+                if (added.values().stream().anyMatch(quantity -> quantity < 0)) {
+                    cartLineRepository.removeEmptyLines(cartId);
+                }
+            }
+            cartLineRepository.removeLines(cartId, removed);
+        });
+        return getCartDetails(authentication);
+    }
+
+    // A relative change adds quantity to the line; an absolute one sets it (0 or less removes the line)
+    private record LineChange(boolean absolute, int quantity) {
+    }
+
+    private static Map<Long, LineChange> fold(List<CartOperationDTO> operations) {
+        Map<Long, LineChange> changes = new LinkedHashMap<>();
+        for (int index = 0; index < operations.size(); index++) {
+            CartOperationDTO operation = operations.get(index);
+            Integer delta = operation.getQuantityDelta();
+            Integer quantity = operation.getSetQuantity();
+            int actions = (delta != null ? 1 : 0) + (quantity != null ? 1 : 0) + (operation.isRemove() ? 1 : 0);
+            if (operation.getProductId() == null || actions != 1) {
+                throw new InvalidCartOperationException("Operation " + (index + 1)
+                        + " must have a product id and exactly one of quantityDelta, setQuantity or remove.");
+            }
+            if ((delta != null && Math.abs(delta) > MAX_OPERATION_QUANTITY)
+                    || (quantity != null && (quantity < 0 || quantity > MAX_OPERATION_QUANTITY))) {
+                throw new InvalidCartOperationException("Operation " + (index + 1) + ": quantities must be at most "
+                        + MAX_OPERATION_QUANTITY + " and set quantities cannot be negative.");
+            }
+            LineChange current = changes.getOrDefault(operation.getProductId(), new LineChange(false, 0));
+            changes.put(operation.getProductId(), delta != null
+                    ? new LineChange(current.absolute(), current.quantity() + delta)
+                    : new LineChange(true, operation.isRemove() ? 0 : quantity));
+        }
+        // Each operation is in bounds, but several on one product must not add up past them either
+        changes.forEach((productId, change) -> {
+            if (change.absolute() ? change.quantity() > MAX_OPERATION_QUANTITY
+                    : Math.abs(change.quantity()) > MAX_OPERATION_QUANTITY) {
+                throw new InvalidCartOperationException("Product " + productId + ": the operations on it add up to "
+                        + change.quantity() + ", more than " + MAX_OPERATION_QUANTITY + ".");
+            }
+        });
+        return changes;
+    }
+
+    // Writes one line of the user's cart: fast path when the cart is known, else the full path in a transaction
+    private void writeLine(Authentication authentication, Long productId, LongConsumer write) {
+        long userId = userId(authentication);
+        Long cartId = knownCartId(userId);
+        if (cartId != null) {
+            if (productCache.find(productId).isEmpty()) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            try {
+                write.accept(cartId);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // The product or the cart was deleted since it was cached: let the full path report it
+                log.debug("Fast cart write failed for cart {}: {}", cartId, e.getMessage());
+                cartIds.invalidate(userId);
+            }
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!productRepository.existsById(productId)) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            write.accept(resolveCartId(authentication));
+        });
+    }
+
+    private void checkCachedProduct(Long productId) {
+        if (productCache.find(productId).isEmpty()) {
+            throw new ProductNotFoundException("Product not found with id: " + productId);
+        }
+    }
+
+    // Changes the user's cart in the write-behind store, creating the customer and the cart first if missing
+    private void storeWrite(Authentication authentication, Consumer<Map<Long, Integer>> change) {
+        long userId = userId(authentication);
+        if (!cartStore.modify(userId, change)) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> resolveCartId(authentication));
+            if (!cartStore.modify(userId, change)) {
+                throw new CartNotFoundException("Cart not found for user: " + userId);
+            }
+        }
+    }
+
+    private long userId(Authentication authentication) {
+        return authentication.getPrincipal() instanceof UserData userData
+                ? userData.getId()
+                : getUserFromAuthentication(authentication).getId();
+    }
+
+    // Customer ids are their user ids; null while the user has no cart
+    private Long knownCartId(long userId) {
+        return cartIds.get(userId, id -> cartLineRepository.findCartId(id).orElse(null));
+    }
+
+    // Full path, in the caller's transaction: gives the user the customer role and a customer and cart if missing
+    private long resolveCartId(Authentication authentication) {
         User user = getUserFromAuthentication(authentication);
-        log.info("User found: {}", user.getUsername());
 
         // Ensure user has the Customer role
         ensureCustomerRole(user);
 
         Customer customer = getOrCreateCustomer(user);
-        log.info("Customer found/created with ID: {}", customer.getId());
-
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + productId));
-        log.info("Product found with ID: {}", product.getId());
-
         Cart cart = cartRepository.findByCustomer(customer)
                 .orElseGet(() -> createNewCart(customer));
-        log.info("Cart found/created with ID: {}", cart.getId());
-
-        addOrUpdateCartItem(cart, product, quantity);
-        cartRepository.save(cart);
-        log.info("Cart saved successfully");
+        log.debug("Resolved cart {} of user {}", cart.getId(), user.getUsername());
+        cartIds.put(user.getId(), cart.getId());
+        return cart.getId();
     }
 
 
+    /**
+     * One query for the cart, its lines and their products; totals are computed here in cents.
+     * The first visit creates the customer and the cart, as before.
+     */
     @Override
     public CartDTO getCartDetails(Authentication authentication) {
-        User user = getUserFromAuthentication(authentication);
-        Customer customer = getOrCreateCustomer(user);
-
-        Cart cart = cartRepository.findByCustomer(customer)
-                .orElseGet(() -> {
-                    Cart newCart = createNewCart(customer);
-                    log.info("Created new cart for customer: {}", customer.getId());
-                    return newCart;
-                });
-
-        log.info("Retrieved cart: {}", cart);
-        CartDTO cartDTO = cartMapper.toDTO(cart);
-        log.debug("Mapped to DTO: {}", cartDTO);
+        long userId = userId(authentication);
+        Optional<CartDTO> cart = findCart(userId);
+        if (cart.isEmpty()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                User user = getUserFromAuthentication(authentication);
+                Customer customer = getOrCreateCustomer(user);
+                Cart newCart = cartRepository.findByCustomer(customer).orElseGet(() -> createNewCart(customer));
+                cartIds.put(user.getId(), newCart.getId());
+            });
+            cart = findCart(userId);
+        }
+        CartDTO cartDTO = cart.orElseThrow(() -> new CartNotFoundException("Cart not found for user: " + userId));
+        CartTotals.apply(cartDTO);
         return cartDTO;
     }
 
+    private Optional<CartDTO> findCart(long userId) {
+        if (!cartStore.isEnabled()) {
+            return cartViewRepository.findByCustomerId(userId);
+        }
+        // The store holds product ids and quantities; names, prices and images come from the product cache
+        return cartStore.find(userId).map(cart -> {
+            List<CartItemDTO> items = new ArrayList<>(cart.getItems().size());
+            for (CartItemDTO item : cart.getItems()) {
+                Optional<ProductDTO> product = productCache.find(item.getProductId());
+                if (product.isEmpty()) {
+                    // Deleted since it was added: left out, as the product can no longer be ordered
+                    continue;
+                }
+                item.setProductName(product.get().getName());
+                item.setProductPrice(product.get().getPrice());
+                List<String> imageUrls = product.get().getImageUrls();
+                item.setImageUrl(imageUrls == null || imageUrls.isEmpty() ? null : imageUrls.get(0));
+                items.add(item);
+            }
+            cart.setItems(items);
+            return cart;
+        });
+    }
+
     public CartDTO getCartForUser(String username) {
         Cart cart = cartRepository.findByCustomerUsername(username)
                 .orElseThrow(() -> new CartNotFoundException("Cart not found for user: " + username));
 
-        return cartMapper.toDTO(cart);
+        CartDTO cartDTO = cartMapper.toDTO(cart);
+        CartTotals.apply(cartDTO);
+        return cartDTO;
     }
     private void ensureCustomerRole(User user) {
-        Role customerRole = roleRepository.findByName(RoleType.CUSTOMER)
-                .orElseThrow(() -> new RuntimeException("Customer role not found"));
-
-        if (!user.getRoles().contains(customerRole)) {
+        if (!user.hasRole(RoleType.CUSTOMER)) {
+            Role customerRole = roleRegistry.findByName(RoleType.CUSTOMER)
+                    .orElseThrow(() -> new RuntimeException("Customer role not found"));
             user.getRoles().add(customerRole);
             userRepository.save(user);
             log.info("Assigned Customer role to user: {}", user.getUsername());
@@ -145,38 +412,11 @@ public class CartService implements ICartService {
         newCart.setCustomer(customer);
         newCart.setShippingCost(shippingCost);
         newCart.setDiscount(discountPercentage);
-        newCart = cartRepository.save(newCart);
+        // Flushed now: the cart line is inserted with plain JDBC
+        newCart = cartRepository.saveAndFlush(newCart);
         log.info("New cart created with ID: {} for customer ID: {}", newCart.getId(), customer.getId());
         return newCart;
     }
-    private void addOrUpdateCartItem(Cart cart, Product product, int quantity) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
-
-        CartItemKey key = new CartItemKey(cart.getId(), product.getId());
-
-        try {
-            CartItem cartItem = cartItemRepository.findById(key)
-                    .orElseGet(() -> {
-                        CartItem newItem = new CartItem();
-                        newItem.setCart(cart);
-                        newItem.setProduct(product);
-                        newItem.setId(key);
-                        newItem.setQuantity(0); // Initialize quantity to 0
-                        return newItem;
-                    });
-
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItemRepository.save(cartItem);
-
-            log.debug("Cart item updated for product ID: {}, New quantity: {}", product.getId(), cartItem.getQuantity());
-        } catch (Exception e) {
-            log.error("Error updating cart item for product ID: {}", product.getId(), e);
-            throw new RuntimeException("Failed to update cart item", e);
-        }
-    }
-
 }
 
 
@@ -0,0 +1,243 @@
+package com.fruits.ecommerce.services.implementations;
+
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.CampaignNotFoundException;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidCampaignException;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidRoleException;
+import com.fruits.ecommerce.models.dtos.EmailCampaignDTO;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
+import com.fruits.ecommerce.models.entities.EmailCampaign;
+import com.fruits.ecommerce.models.enums.CampaignStatus;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.repository.EmailCampaignRepository;
+import com.fruits.ecommerce.repository.UserDirectoryRepository;
+import com.fruits.ecommerce.services.Interfaces.IEmailCampaignService;
+import com.fruits.ecommerce.services.Utils.CampaignMailer;
+import com.fruits.ecommerce.services.Utils.CampaignTemplate;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs email campaigns in the background.
+ * Recipients are read with keyset pages over users (unlocked users of the campaign role, in id order);
+ * after each page is sent the page's last id and counts are checkpointed, together with a lease renewal.
+ * A campaign whose runner disappeared (restart, crash) keeps status RUNNING with an expired lease
+ * and is picked up again from its checkpoint, so at most one page is sent twice.
+ * Each claim stamps a new runner id: a runner whose checkpoint no longer matches its id has lost the campaign
+ * (paused, then started again here or elsewhere) and stops, so only one runner ever advances the checkpoint.
+ */
+@Slf4j
+@Service
+public class EmailCampaignService implements IEmailCampaignService {
+
+    private static final Set<CampaignStatus> STARTABLE = EnumSet.of(CampaignStatus.DRAFT, CampaignStatus.PAUSED);
+
+    private final EmailCampaignRepository campaignRepository;
+    private final UserDirectoryRepository userDirectoryRepository;
+    private final RoleRegistry roleRegistry;
+    private final CampaignMailer campaignMailer;
+    private final int pageSize;
+    private final long leaseMillis;
+    private final ExecutorService runners;
+    // Campaign id -> runner id, of the campaigns running on this instance
+    private final Map<Long, String> running = new ConcurrentHashMap<>();
+
+    public EmailCampaignService(EmailCampaignRepository campaignRepository,
+                                UserDirectoryRepository userDirectoryRepository,
+                                RoleRegistry roleRegistry,
+                                CampaignMailer campaignMailer,
+                                @Value("${app.campaigns.page-size:200}") int pageSize,
+                                @Value("${app.campaigns.messages-per-second:10}") double messagesPerSecond,
+                                @Value("${app.campaigns.lease:300000}") long leaseMillis,
+                                MeterRegistry meterRegistry) {
+        this.campaignRepository = campaignRepository;
+        this.userDirectoryRepository = userDirectoryRepository;
+        this.roleRegistry = roleRegistry;
+        this.campaignMailer = campaignMailer;
+        this.pageSize = pageSize;
+        // The lease must outlive the slowest page, or another instance would take the campaign over
+        long pageMillis = messagesPerSecond > 0 ? (long) (pageSize * 1000 / messagesPerSecond) : 0;
+        this.leaseMillis = Math.max(leaseMillis, 2 * pageMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.runners = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "campaign-runner-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("email.campaign.running", running, Map::size);
+    }
+
+    @Override
+    public EmailCampaignDTO createCampaign(EmailCampaignDTO campaignDTO) {
+        // Fail now on a bad template or role rather than when the campaign runs
+        CampaignTemplate.compile(campaignDTO.getBody());
+        roleId(campaignDTO.getRole());
+
+        EmailCampaign campaign = new EmailCampaign();
+        campaign.setSubject(campaignDTO.getSubject());
+        campaign.setBodyTemplate(campaignDTO.getBody());
+        campaign.setRole(campaignDTO.getRole());
+        campaign.setStatus(CampaignStatus.DRAFT);
+        campaign.setCreatedAt(LocalDateTime.now());
+        campaign = campaignRepository.save(campaign);
+        log.info("Campaign {} created for role {}", campaign.getId(), campaign.getRole());
+        return toDTO(campaign);
+    }
+
+    @Override
+    public EmailCampaignDTO getCampaign(Long campaignId) {
+        return toDTO(findCampaign(campaignId));
+    }
+
+    @Override
+    public EmailCampaignDTO startCampaign(Long campaignId) {
+        EmailCampaign campaign = findCampaign(campaignId);
+        String runner = claim(campaignId);
+        if (runner == null) {
+            throw new InvalidCampaignException("Campaign " + campaignId + " cannot be started while "
+                    + campaign.getStatus());
+        }
+        submit(campaignId, runner);
+        return getCampaign(campaignId);
+    }
+
+    @Override
+    public EmailCampaignDTO pauseCampaign(Long campaignId) {
+        EmailCampaign campaign = findCampaign(campaignId);
+        if (campaignRepository.updateStatus(campaignId, CampaignStatus.RUNNING, CampaignStatus.PAUSED, null) == 0) {
+            throw new InvalidCampaignException("Campaign " + campaignId + " is not running but "
+                    + campaign.getStatus());
+        }
+        log.info("Campaign {} paused", campaignId);
+        return getCampaign(campaignId);
+    }
+
+    /**
+     * Takes over RUNNING campaigns whose runner stopped renewing its lease.
+     */
+    @Scheduled(fixedDelayString = "${app.campaigns.resume-interval:30000}")
+    public void resumeStalled() {
+        for (Long campaignId : campaignRepository.findStalled(CampaignStatus.RUNNING, LocalDateTime.now())) {
+            if (running.containsKey(campaignId)) {
+                continue;
+            }
+            String runner = claim(campaignId);
+            if (runner != null) {
+                log.info("Resuming campaign {} from its checkpoint", campaignId);
+                submit(campaignId, runner);
+            }
+        }
+    }
+
+    @Override
+    public void runCampaign(Long campaignId, String runner) throws InterruptedException {
+        EmailCampaign campaign = findCampaign(campaignId);
+        CampaignTemplate body = CampaignTemplate.compile(campaign.getBodyTemplate());
+        UserFilterDTO segment = new UserFilterDTO(campaign.getRole(), false, null);
+        Integer roleId = roleId(campaign.getRole());
+        long after = campaign.getLastUserId();
+        log.info("Campaign {} running after user {}", campaignId, after);
+
+        while (true) {
+            List<UserDTO> recipients = userDirectoryRepository.findPage(segment, after, pageSize, roleId);
+            if (recipients.isEmpty()) {
+                if (campaignRepository.complete(campaignId, runner, CampaignStatus.RUNNING, CampaignStatus.COMPLETED,
+                        LocalDateTime.now()) == 1) {
+                    log.info("Campaign {} completed", campaignId);
+                }
+                return;
+            }
+            int accepted = campaignMailer.send(recipients, campaign.getSubject(), body);
+            after = recipients.get(recipients.size() - 1).getId();
+            if (campaignRepository.checkpoint(campaignId, runner, after, accepted, recipients.size() - accepted,
+                    leaseUntil()) == 0) {
+                log.info("Campaign {} was claimed by another runner, stopping after user {}", campaignId, after);
+                return;
+            }
+            log.debug("Campaign {}: {} of {} sent, checkpoint at user {}", campaignId, accepted, recipients.size(),
+                    after);
+            if (campaignRepository.findStatusIfClaimedBy(campaignId, runner).orElse(null) != CampaignStatus.RUNNING) {
+                log.info("Campaign {} stopped after user {}", campaignId, after);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted campaigns stay RUNNING and are resumed once their lease expires
+        runners.shutdownNow();
+    }
+
+    // The new runner id, or null if the campaign cannot be claimed
+    private String claim(Long campaignId) {
+        LocalDateTime now = LocalDateTime.now();
+        String runner = UUID.randomUUID().toString();
+        return campaignRepository.claim(campaignId, CampaignStatus.RUNNING, STARTABLE, now,
+                now.plusNanos(leaseMillis * 1_000_000L), runner) == 1 ? runner : null;
+    }
+
+    private void submit(Long campaignId, String runner) {
+        // A runner still finishing its page here (paused and started again) stops at its next checkpoint
+        running.put(campaignId, runner);
+        runners.execute(() -> {
+            try {
+                runCampaign(campaignId, runner);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Campaign {} interrupted", campaignId);
+            } catch (RuntimeException e) {
+                log.error("Campaign {} failed, it will be resumed from its checkpoint", campaignId, e);
+            } finally {
+                running.remove(campaignId, runner);
+            }
+        });
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusNanos(leaseMillis * 1_000_000L);
+    }
+
+    private EmailCampaign findCampaign(Long campaignId) {
+        return campaignRepository.findById(campaignId)
+                .orElseThrow(() -> new CampaignNotFoundException("Campaign not found with id: " + campaignId));
+    }
+
+    private Integer roleId(RoleType role) {
+        return roleRegistry.findByName(role)
+                .orElseThrow(() -> new InvalidRoleException("Role not found: " + role))
+                .getId();
+    }
+
+    private static EmailCampaignDTO toDTO(EmailCampaign campaign) {
+        EmailCampaignDTO campaignDTO = new EmailCampaignDTO();
+        campaignDTO.setId(campaign.getId());
+        campaignDTO.setSubject(campaign.getSubject());
+        campaignDTO.setBody(campaign.getBodyTemplate());
+        campaignDTO.setRole(campaign.getRole());
+        campaignDTO.setStatus(campaign.getStatus());
+        campaignDTO.setLastUserId(campaign.getLastUserId());
+        campaignDTO.setSentCount(campaign.getSentCount());
+        campaignDTO.setFailedCount(campaign.getFailedCount());
+        campaignDTO.setCreatedAt(campaign.getCreatedAt());
+        campaignDTO.setStartedAt(campaign.getStartedAt());
+        campaignDTO.setCompletedAt(campaign.getCompletedAt());
+        return campaignDTO;
+    }
+}
@@ -0,0 +1,398 @@
+package com.fruits.ecommerce.services.implementations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruits.ecommerce.exceptions.products.InvalidProductDataException;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductImportResultDTO;
+import com.fruits.ecommerce.models.dtos.ProductImportSummaryDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.services.Interfaces.IProductImportService;
+import com.fruits.ecommerce.services.Utils.CsvLines;
+import com.fruits.ecommerce.services.Utils.IdAllocator;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import com.fruits.ecommerce.services.Utils.ProductChangeFeed;
+import com.fruits.ecommerce.services.Utils.ProductCollation;
+import com.fruits.ecommerce.services.Utils.ProductDataRules;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk product import for supplier price lists.
+ * The input is read as a stream and processed in chunks; per chunk the rows are parsed and validated in parallel,
+ * then upserted by SKU with one JDBC batch in a single transaction; new products take their ids from IdAllocator.
+ * The product cache and the in-memory indexes are updated after each chunk commits.
+ */
+@Slf4j
+@Service
+public class ProductImportService implements IProductImportService {
+    // Unit and description left out of a row keep their stored value; created_at is only set by the insert
+    private static final String UPSERT_PRODUCT = "INSERT INTO products (id, sku, name, unit, price, description, "
+            + "name_key, unit_key, created_at, updated_at) "
+            + "VALUES (:id, :sku, :name, :unit, :price, :description, :nameKey, :unitKey, :now, :now) AS new "
+            + "ON DUPLICATE KEY UPDATE name = new.name, unit = COALESCE(new.unit, unit), "
+            + "price = new.price, description = COALESCE(new.description, description), "
+            + "name_key = new.name_key, unit_key = COALESCE(new.unit_key, unit_key), "
+            + "updated_at = new.updated_at";
+    // H2 (tests) has no row alias, only the VALUES() form that MySQL 8 deprecates
+    private static final String UPSERT_PRODUCT_H2 = "INSERT INTO products (id, sku, name, unit, price, description, "
+            + "name_key, unit_key, created_at, updated_at) "
+            + "VALUES (:id, :sku, :name, :unit, :price, :description, :nameKey, :unitKey, :now, :now) "
+            + "ON DUPLICATE KEY UPDATE name = VALUES(name), unit = COALESCE(VALUES(unit), unit), "
+            + "price = VALUES(price), description = COALESCE(VALUES(description), description), "
+            + "name_key = VALUES(name_key), unit_key = COALESCE(VALUES(unit_key), unit_key), "
+            + "updated_at = VALUES(updated_at)";
+    private static final String SELECT_IDS = "SELECT id, sku FROM products WHERE sku IN (:skus)";
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductCache productCache;
+    private final ProductChangeFeed productChangeFeed;
+    private final IdAllocator idAllocator;
+    private final ExecutorService validationPool;
+    private final int validationThreads;
+    private final int chunkSize;
+    // Picked on the first import, from the database behind the data source
+    private volatile String upsertSql;
+
+    public ProductImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductCache productCache,
+                                ProductChangeFeed productChangeFeed,
+                                IdAllocator idAllocator,
+                                @Value("${app.product-import.validation-threads:0}") int validationThreads,
+                                @Value("${app.product-import.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.productCache = productCache;
+        this.productChangeFeed = productChangeFeed;
+        this.idAllocator = idAllocator;
+        this.validationThreads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.validationPool = Executors.newFixedThreadPool(this.validationThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-import-validation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdownNow();
+    }
+
+    @Override
+    public ProductImportSummaryDTO importProducts(InputStream input, DataFormat format, OutputStream output)
+            throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        LineReader lines = new LineReader(reader, format == DataFormat.CSV);
+        long total = 0;
+        long created = 0;
+        long updated = 0;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = lines.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, lines.header, output);
+                created += count(chunk, true);
+                updated += count(chunk, false);
+                total += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, lines.header, output);
+            created += count(chunk, true);
+            updated += count(chunk, false);
+            total += chunk.size();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        long failed = total - created - updated;
+        ProductImportSummaryDTO summary = new ProductImportSummaryDTO(total, created, updated, failed, elapsedMillis,
+                total * 1000.0 / elapsedMillis);
+        writeLine(output, Map.of("summary", summary));
+        output.flush();
+        log.info("Product import finished: {} rows, {} created, {} updated, {} failed in {} ms", total, created,
+                updated, failed, elapsedMillis);
+        return summary;
+    }
+
+    private void processChunk(List<ImportRow> chunk, String[] header, OutputStream output) throws IOException {
+        parseAndValidate(chunk, header);
+        rejectRepeatedSkus(chunk);
+        upsert(chunk);
+        for (ImportRow row : chunk) {
+            String sku = row.product == null ? null : row.product.getSku();
+            ProductImportResultDTO result;
+            if (row.error != null) {
+                result = ProductImportResultDTO.failed(row.line, sku, row.error);
+            } else if (row.created) {
+                result = ProductImportResultDTO.created(row.line, sku, row.productId);
+            } else {
+                result = ProductImportResultDTO.updated(row.line, sku, row.productId);
+            }
+            writeLine(output, result);
+        }
+        output.flush();
+    }
+
+    private static long count(List<ImportRow> chunk, boolean created) {
+        return chunk.stream().filter(row -> row.error == null && row.created == created).count();
+    }
+
+    // Each worker parses and validates a contiguous slice of the chunk; rows are independent of each other
+    private void parseAndValidate(List<ImportRow> chunk, String[] header) {
+        int sliceSize = (chunk.size() + validationThreads - 1) / validationThreads;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<ImportRow> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            tasks.add(() -> {
+                for (ImportRow row : slice) {
+                    parseAndValidate(row, header);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> task : validationPool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating imported products", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Product validation failed during import", e.getCause());
+        }
+    }
+
+    private void parseAndValidate(ImportRow row, String[] header) {
+        if (row.error != null) {
+            return;
+        }
+        try {
+            row.product = header != null ? toProduct(header, CsvLines.split(row.text))
+                    : objectMapper.readValue(row.text, ProductDTO.class);
+            row.product.setSku(StringUtils.hasText(row.product.getSku()) ? row.product.getSku().trim() : null);
+            if (row.product.getSku() == null) {
+                throw new InvalidProductDataException("SKU is required.");
+            }
+            ProductDataRules.validateRequiredFields(row.product);
+            ProductDataRules.validateConstraints(row.product, validator);
+        } catch (JsonProcessingException e) {
+            row.error = "Malformed JSON: " + e.getOriginalMessage();
+        } catch (InvalidProductDataException e) {
+            row.error = e.getMessage();
+        }
+    }
+
+    // Duplicates inside the chunk itself; a SKU repeated in a later chunk updates the product again
+    private static void rejectRepeatedSkus(List<ImportRow> chunk) {
+        Set<String> skus = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null && !skus.add(normalize(row.product.getSku()))) {
+                row.error = "SKU appears more than once in this import.";
+            }
+        }
+    }
+
+    private void upsert(List<ImportRow> chunk) {
+        List<ImportRow> valid = chunk.stream().filter(row -> row.error == null).toList();
+        if (valid.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        MapSqlParameterSource skus = new MapSqlParameterSource("skus",
+                valid.stream().map(row -> row.product.getSku()).toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Every row carries an id of its own; rows of existing SKUs update them and leave it unused
+                long firstId = idAllocator.reserve("products", valid.size());
+                SqlParameterSource[] products = new SqlParameterSource[valid.size()];
+                for (int i = 0; i < valid.size(); i++) {
+                    ProductDTO product = valid.get(i).product;
+                    products[i] = new MapSqlParameterSource()
+                            .addValue("id", firstId + i)
+                            .addValue("sku", product.getSku())
+                            .addValue("name", product.getName())
+                            .addValue("unit", product.getUnit())
+                            .addValue("price", product.getPrice())
+                            .addValue("description", product.getDescription())
+                            .addValue("nameKey", ProductCollation.key(product.getName()))
+                            .addValue("unitKey", ProductCollation.key(product.getUnit()))
+                            .addValue("now", now);
+                }
+                int[] counts = jdbcTemplate.batchUpdate(upsertSql(), products);
+
+                // Updated rows keep the id they had: read the ids back
+                Map<String, Long> ids = new HashMap<>();
+                jdbcTemplate.query(SELECT_IDS, skus, resultSet -> {
+                    ids.put(normalize(resultSet.getString("sku")), resultSet.getLong("id"));
+                });
+                for (int i = 0; i < valid.size(); i++) {
+                    ImportRow row = valid.get(i);
+                    row.productId = ids.get(normalize(row.product.getSku()));
+                    row.created = created(counts[i], row.productId, firstId + i);
+                }
+                productCache.evictAfterCommit(ids.values());
+                productChangeFeed.publishAfterCommit(ids.values());
+            });
+        } catch (DataAccessException e) {
+            log.error("Product import chunk rejected by the database: {}", e.getMessage());
+            for (ImportRow row : valid) {
+                row.productId = null;
+                row.error = "Rejected by the database together with its chunk, please retry: "
+                        + e.getMostSpecificCause().getMessage();
+            }
+        }
+    }
+
+    // MySQL counts 1 per inserted row and 2 per updated row (0 if nothing changed). A batch the driver rewrote
+    // into one multi-row statement (rewriteBatchedStatements) has no per-row counts: the row kept its id if inserted.
+    private static boolean created(int count, Long storedId, long boundId) {
+        if (count == Statement.SUCCESS_NO_INFO) {
+            return storedId != null && storedId == boundId;
+        }
+        return count == 1;
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String database = jdbcTemplate.getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = "H2".equals(database) ? UPSERT_PRODUCT_H2 : UPSERT_PRODUCT;
+        }
+        return upsertSql;
+    }
+
+    // Header names are ProductDTO fields: sku,name,unit,price,description
+    private static ProductDTO toProduct(String[] header, List<String> fields) {
+        if (fields.size() > header.length) {
+            throw new InvalidProductDataException("Expected " + header.length + " columns but found "
+                    + fields.size());
+        }
+        ProductDTO product = new ProductDTO();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = StringUtils.hasText(fields.get(i)) ? fields.get(i).trim() : null;
+            switch (header[i]) {
+                case "sku" -> product.setSku(value);
+                case "name" -> product.setName(value);
+                case "unit" -> product.setUnit(value);
+                case "price" -> product.setPrice(value == null ? null : parsePrice(value));
+                case "description" -> product.setDescription(value);
+                default -> {
+                    // Unknown columns are ignored
+                }
+            }
+        }
+        return product;
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidProductDataException("Invalid price: " + value);
+        }
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write(NEW_LINE);
+    }
+
+    // The sku column compares case-insensitively, so must we
+    private static String normalize(String sku) {
+        return sku.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final String text;
+        private ProductDTO product;
+        private String error;
+        private Long productId;
+        private boolean created;
+
+        private ImportRow(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Reads the raw rows only, so parsing runs on the validation workers.
+     * In CSV the first non-blank line is the header.
+     */
+    private static final class LineReader {
+        private final BufferedReader reader;
+        private final boolean csv;
+        private String[] header;
+        private int line;
+
+        private LineReader(BufferedReader reader, boolean csv) {
+            this.reader = reader;
+            this.csv = csv;
+        }
+
+        // Next non-blank row, or null at the end of the input
+        private ImportRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!StringUtils.hasText(text)) {
+                    continue;
+                }
+                if (csv && header == null) {
+                    header = CsvLines.split(text).stream().map(String::trim).toArray(String[]::new);
+                    continue;
+                }
+                return new ImportRow(line, text);
+            }
+            return null;
+        }
+    }
+}
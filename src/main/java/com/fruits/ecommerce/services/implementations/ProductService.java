@@ -2,17 +2,32 @@ package com.fruits.ecommerce.services.implementations;
 
 import com.fruits.ecommerce.exceptions.products.*;
 import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
 import com.fruits.ecommerce.models.dtos.ProductImageDTO;
+import com.fruits.ecommerce.models.dtos.ProductPageDTO;
+import com.fruits.ecommerce.models.dtos.ProductSearchResultDTO;
+import com.fruits.ecommerce.models.dtos.ProductSuggestionDTO;
 import com.fruits.ecommerce.models.entities.Product;
 import com.fruits.ecommerce.models.entities.ProductImage;
+import com.fruits.ecommerce.models.enums.ProductSort;
 import com.fruits.ecommerce.models.mappers.ProductImageMapper;
 import com.fruits.ecommerce.models.mappers.ProductMapper;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
 import com.fruits.ecommerce.repository.ProductImageRepository;
 import com.fruits.ecommerce.repository.ProductRepository;
 import com.fruits.ecommerce.services.Interfaces.IProductService;
 import com.fruits.ecommerce.services.Utils.ImageService;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import com.fruits.ecommerce.services.Utils.ProductChangeFeed;
+import com.fruits.ecommerce.services.Utils.ProductCountCache;
+import com.fruits.ecommerce.services.Utils.ProductCursor;
+import com.fruits.ecommerce.services.Utils.ProductDataRules;
+import com.fruits.ecommerce.services.Utils.ProductFacetIndex;
+import com.fruits.ecommerce.services.Utils.ProductSearchIndex;
+import com.fruits.ecommerce.services.Utils.ProductSuggestIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -28,7 +43,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 @Service
@@ -36,40 +53,83 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductService implements IProductService {
     private final ProductRepository productRepository;
+    private final ProductCatalogRepository productCatalogRepository;
     private final ProductImageRepository productImageRepository;
     private final ProductMapper productMapper;
     private final ProductImageMapper productImageMapper;
     private final ImageService imageService;
+    private final ProductCountCache productCountCache;
+    private final ProductCache productCache;
+    private final ProductChangeFeed productChangeFeed;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductFacetIndex productFacetIndex;
+    @Value("${app.products.max-page-size:100}")
+    private int maxPageSize;
 
     @Override
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) throws InvalidProductDataException {
-        validateProductData(productDTO);
+        ProductDataRules.validateRequiredFields(productDTO);
         Product product = productMapper.toEntity(productDTO);
         product = productRepository.save(product);
+        productsChanged(Set.of(product.getId()));
         return productMapper.toDTO(product);
     }
 
-    private void validateProductData(ProductDTO productDTO) throws InvalidProductDataException {
-        if (productDTO.getName() == null || productDTO.getName().isEmpty()) {
-            throw new InvalidProductDataException("Product name is required.");
+    @Override
+    public Page<ProductDTO> listProducts(int page, int pageSize) {
+        Pageable pageable = PageRequest.of(page, pageSize);
+        Page<ProductDTO> products = productRepository.findAll(pageable).map(productMapper::toSummaryDTO);
+        productCatalogRepository.attachImageUrls(products.getContent());
+        return products;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPageDTO listProducts(ProductFilterDTO filter, String cursor, int limit, ProductSort sort,
+                                       boolean includeTotal) throws InvalidProductDataException {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        if (!filter.isEmpty()) {
+            return listFilteredProducts(filter, cursor, pageSize, sort);
         }
-        if (productDTO.getPrice() == null) {
-            throw new InvalidProductDataException("Product price is required.");
+        // One extra row tells whether there is a next page
+        List<ProductDTO> items = productCatalogRepository.findPage(sort, ProductCursor.decode(cursor, sort),
+                pageSize + 1);
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            nextCursor = ProductCursor.encode(sort, items.get(pageSize - 1));
         }
+        return new ProductPageDTO(items, nextCursor, includeTotal ? productCountCache.estimate() : null);
+    }
+
+    // Resolved by the facet index; only the page itself is read from the database
+    private ProductPageDTO listFilteredProducts(ProductFilterDTO filter, String cursor, int pageSize,
+                                                ProductSort sort) throws InvalidProductDataException {
+        ProductFacetIndex.Result result = productFacetIndex.filter(filter, sort, ProductCursor.decode(cursor, sort),
+                pageSize);
+        List<ProductDTO> items = productCatalogRepository.findByIds(result.productIds());
+        String nextCursor = result.hasNext() && !items.isEmpty()
+                ? ProductCursor.encode(sort, items.get(items.size() - 1)) : null;
+        return new ProductPageDTO(items, nextCursor, result.facets().getTotal(), result.facets());
     }
 
     @Override
-    public Page<ProductDTO> listProducts(int page, int pageSize) {
-        Pageable pageable = PageRequest.of(page, pageSize);
-        return productRepository.findAll(pageable).map(productMapper::toDTO);
+    public ProductSearchResultDTO searchProducts(String query, int limit) {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(query, Math.max(1, Math.min(limit, maxPageSize)));
+        return new ProductSearchResultDTO(productCatalogRepository.findByIds(hits.productIds()), hits.matches());
+    }
+
+    @Override
+    public List<ProductSuggestionDTO> suggestProducts(String prefix, int limit) {
+        return productSuggestIndex.suggest(prefix, limit);
     }
 
     @Override
     public ProductDTO getProductById(Long id) throws ProductNotFoundException {
-        Product product = productRepository.findById(id)
+        return productCache.find(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
-        return productMapper.toDTO(product);
     }
 
     @Override
@@ -88,6 +148,7 @@ public class ProductService implements IProductService {
         }
 
         productImageRepository.saveAll(newImages);
+        productsChanged(Set.of(productId));
 
         return productImageMapper.toDTOList(newImages);
     }
@@ -114,6 +175,12 @@ public class ProductService implements IProductService {
         }
     }
 
+    // Evicts the cached details and updates the in-memory indexes once the transaction commits
+    private void productsChanged(Set<Long> productIds) {
+        productCache.evictAfterCommit(productIds);
+        productChangeFeed.publishAfterCommit(productIds);
+    }
+
     private String determineContentType(Resource resource) {
         try {
             String contentType = Files.probeContentType(resource.getFile().toPath());
@@ -150,10 +217,17 @@ public class ProductService implements IProductService {
             throw new ImageNotFoundException("One or more images not found");
         }
 
+        // Images moved from another product change that product too
+        Set<Long> changedProducts = new HashSet<>();
+        changedProducts.add(productId);
         for (ProductImage image : images) {
+            if (image.getProduct() != null) {
+                changedProducts.add(image.getProduct().getId());
+            }
             image.setProduct(product);
         }
         productImageRepository.saveAll(images);
+        productsChanged(changedProducts);
         return productMapper.toDTO(product);
     }
 
@@ -165,15 +239,20 @@ public class ProductService implements IProductService {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
 
-        validateProductData(productDTO);
+        ProductDataRules.validateRequiredFields(productDTO);
 
         // Update properties
         existingProduct.setName(productDTO.getName());
         existingProduct.setDescription(productDTO.getDescription());
         existingProduct.setPrice(productDTO.getPrice());
+        // The SKU is kept unless a new one is given
+        if (productDTO.getSku() != null) {
+            existingProduct.setSku(productDTO.getSku());
+        }
         //More properties can be added as needed.
 
         Product updatedProduct = productRepository.save(existingProduct);
+        productsChanged(Set.of(id));
         log.info("Product updated successfully. ID: {}", updatedProduct.getId());
         return productMapper.toDTO(updatedProduct);
     }
@@ -199,6 +278,7 @@ public class ProductService implements IProductService {
 
         //finally delete the Product
         productRepository.delete(product);
+        productsChanged(Set.of(id));
         log.info("Product and associated images deleted successfully. ID: {}", id);
     }
 
@@ -215,6 +295,9 @@ public class ProductService implements IProductService {
 
             // Delete the Image from DB
             productImageRepository.delete(image);
+            if (image.getProduct() != null) {
+                productsChanged(Set.of(image.getProduct().getId()));
+            }
         } catch (ImageNotFoundException e) {
             log.error("Failed to find image to delete", e);
             throw e;
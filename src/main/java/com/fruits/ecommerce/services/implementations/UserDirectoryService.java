@@ -0,0 +1,138 @@
+package com.fruits.ecommerce.services.implementations;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidRoleException;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
+import com.fruits.ecommerce.models.dtos.UserPageDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.repository.UserDirectoryRepository;
+import com.fruits.ecommerce.services.Interfaces.IUserDirectoryService;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserDirectoryService implements IUserDirectoryService {
+    private static final String CSV_HEADER = "id,firstName,lastName,username,email,address,roles,active,notLocked\n";
+
+    private final UserDirectoryRepository userDirectoryRepository;
+    private final RoleRegistry roleRegistry;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+
+    public UserDirectoryService(UserDirectoryRepository userDirectoryRepository,
+                                RoleRegistry roleRegistry,
+                                ObjectMapper objectMapper,
+                                @Value("${app.users.max-page-size:500}") int maxPageSize) {
+        this.userDirectoryRepository = userDirectoryRepository;
+        this.roleRegistry = roleRegistry;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public UserPageDTO listUsers(UserFilterDTO filter, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether another page exists without a COUNT query
+        List<UserDTO> users = userDirectoryRepository.findPage(filter, after == null ? 0 : after, pageSize + 1,
+                roleId(filter));
+        Long nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = users.get(pageSize - 1).getId();
+        }
+        return new UserPageDTO(users, nextCursor);
+    }
+
+    @Override
+    public void writeAllUsers(UserFilterDTO filter, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.writeStartArray();
+        try {
+            userDirectoryRepository.stream(filter, roleId(filter), user -> {
+                try {
+                    generator.writeObject(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // As in exportUsers: the client went away
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    @Override
+    public void exportUsers(UserFilterDTO filter, DataFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == DataFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long[] exported = new long[1];
+        try {
+            userDirectoryRepository.stream(filter, roleId(filter), user -> {
+                try {
+                    writer.write(format == DataFormat.CSV ? toCsv(user) : objectMapper.writeValueAsString(user));
+                    writer.write('\n');
+                    exported[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // The client went away: stop reading instead of draining the cursor into a closed stream
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} users as {}", exported[0], format);
+    }
+
+    private Integer roleId(UserFilterDTO filter) {
+        if (filter.getRole() == null) {
+            return null;
+        }
+        return roleRegistry.findByName(filter.getRole())
+                .orElseThrow(() -> new InvalidRoleException("Role not found: " + filter.getRole()))
+                .getId();
+    }
+
+    private static String toCsv(UserDTO user) {
+        return String.join(",",
+                String.valueOf(user.getId()),
+                csvField(user.getFirstName()),
+                csvField(user.getLastName()),
+                csvField(user.getUsername()),
+                csvField(user.getEmail()),
+                csvField(user.getAddress()),
+                csvField(user.getRoles().stream().sorted().collect(Collectors.joining("|"))),
+                String.valueOf(user.isActive()),
+                String.valueOf(user.isNotLocked()));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,417 @@
+package com.fruits.ecommerce.services.implementations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidRoleException;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidUserDataException;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserImportResultDTO;
+import com.fruits.ecommerce.models.dtos.UserImportSummaryDTO;
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.services.Interfaces.IUserImportService;
+import com.fruits.ecommerce.services.Utils.CsvLines;
+import com.fruits.ecommerce.services.Utils.IdAllocator;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.Utils.UserDataRules;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk user import for onboarding large customer bases.
+ * The input is read as a stream and processed in chunks; per chunk the rows are validated with the
+ * registration rules, duplicates are found with one set-based query, passwords are hashed in parallel
+ * and users plus user_roles are inserted with JDBC batches in a single transaction.
+ * Registration emails are not sent for imported users.
+ */
+@Slf4j
+@Service
+public class UserImportService implements IUserImportService {
+    // last_login stays NULL until the user's first login: imported users have never logged in
+    private static final String INSERT_USER = "INSERT INTO users (id, first_name, last_name, user_name, email, "
+            + "password, address, created_at, updated_at, last_login, is_active, is_not_locked, security_version) "
+            + "VALUES (:id, :firstName, :lastName, :username, :email, :password, :address, :now, :now, NULL, "
+            + "TRUE, TRUE, 0)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (:userId, :roleId)";
+    // UNION rather than OR, so each half is an index lookup on its unique key
+    private static final String SELECT_EXISTING = "SELECT user_name, email FROM users WHERE user_name IN (:usernames) "
+            + "UNION SELECT user_name, email FROM users WHERE email IN (:emails)";
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRegistry roleRegistry;
+    private final IdAllocator idAllocator;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final PasswordEncoder passwordHasher;
+    private final ExecutorService hashingPool;
+    private final int chunkSize;
+
+    public UserImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             RoleRegistry roleRegistry,
+                             IdAllocator idAllocator,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${security.password.bcrypt-strength:12}") int bcryptStrength,
+                             @Value("${app.user-import.hashing-threads:0}") int hashingThreads,
+                             @Value("${app.user-import.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRegistry = roleRegistry;
+        this.idAllocator = idAllocator;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        // Not the login encoder: a bulk import must not queue behind (or crowd out) interactive logins
+        this.passwordHasher = new BCryptPasswordEncoder(bcryptStrength);
+        // By default half the cores: the rest stay free for the login encoder's BCrypt while an import runs
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chunkSize = chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    @Override
+    public UserImportSummaryDTO importUsers(InputStream input, DataFormat format, OutputStream output)
+            throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowReader rows = format == DataFormat.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+        long total = 0;
+        long created = 0;
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = rows.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                created += processChunk(chunk, output);
+                total += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += processChunk(chunk, output);
+            total += chunk.size();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        UserImportSummaryDTO summary = new UserImportSummaryDTO(total, created, total - created, elapsedMillis,
+                total * 1000.0 / elapsedMillis);
+        writeLine(output, Map.of("summary", summary));
+        output.flush();
+        log.info("User import finished: {} rows, {} created, {} failed in {} ms", total, created,
+                total - created, elapsedMillis);
+        return summary;
+    }
+
+    private int processChunk(List<ImportRow> chunk, OutputStream output) throws IOException {
+        validate(chunk);
+        rejectDuplicates(chunk);
+        hashPasswords(chunk);
+        int created = insert(chunk);
+        for (ImportRow row : chunk) {
+            String username = row.user == null ? null : row.user.getUsername();
+            writeLine(output, row.error == null ? UserImportResultDTO.created(row.line, username)
+                    : UserImportResultDTO.failed(row.line, username, row.error));
+        }
+        output.flush();
+        return created;
+    }
+
+    private void validate(List<ImportRow> chunk) {
+        // Duplicates inside the chunk itself; earlier chunks are already committed and found by the query
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            try {
+                UserDataRules.validateRequiredFields(row.user);
+                UserDataRules.validateConstraints(row.user, validator);
+                row.roles = resolveRoles(row.user.getRoles());
+            } catch (InvalidUserDataException | InvalidRoleException e) {
+                row.error = e.getMessage();
+                continue;
+            }
+            if (!usernames.add(normalize(row.user.getUsername()))) {
+                row.error = "Username appears more than once in this import.";
+            } else if (!emails.add(normalize(row.user.getEmail()))) {
+                row.error = "Email appears more than once in this import.";
+            }
+        }
+    }
+
+    private void rejectDuplicates(List<ImportRow> chunk) {
+        List<String> usernames = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                usernames.add(row.user.getUsername());
+                emails.add(row.user.getEmail());
+            }
+        }
+        if (usernames.isEmpty()) {
+            return;
+        }
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("usernames", usernames)
+                .addValue("emails", emails);
+        jdbcTemplate.query(SELECT_EXISTING, params, resultSet -> {
+            existingUsernames.add(normalize(resultSet.getString("user_name")));
+            existingEmails.add(normalize(resultSet.getString("email")));
+        });
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            if (existingUsernames.contains(normalize(row.user.getUsername()))) {
+                row.error = "Username already exists.";
+            } else if (existingEmails.contains(normalize(row.user.getEmail()))) {
+                row.error = "Email already exists.";
+            }
+        }
+    }
+
+    private void hashPasswords(List<ImportRow> chunk) {
+        List<ImportRow> valid = new ArrayList<>();
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                valid.add(row);
+                String rawPassword = row.user.getPassword();
+                tasks.add(() -> passwordHasher.encode(rawPassword));
+            }
+        }
+        try {
+            List<Future<String>> hashes = hashingPool.invokeAll(tasks);
+            for (int i = 0; i < valid.size(); i++) {
+                valid.get(i).passwordHash = hashes.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing imported passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed during import", e.getCause());
+        }
+    }
+
+    private int insert(List<ImportRow> chunk) {
+        List<ImportRow> valid = chunk.stream().filter(row -> row.error == null).toList();
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            // Ids known up front: user_roles needs no read-back of generated keys
+            long firstId = idAllocator.reserve("users", valid.size());
+            transactionTemplate.executeWithoutResult(status -> {
+                SqlParameterSource[] users = new SqlParameterSource[valid.size()];
+                List<SqlParameterSource> userRoles = new ArrayList<>();
+                for (int i = 0; i < valid.size(); i++) {
+                    ImportRow row = valid.get(i);
+                    long userId = firstId + i;
+                    users[i] = new MapSqlParameterSource()
+                            .addValue("id", userId)
+                            .addValue("firstName", row.user.getFirstName())
+                            .addValue("lastName", row.user.getLastName())
+                            .addValue("username", row.user.getUsername())
+                            .addValue("email", row.user.getEmail())
+                            .addValue("password", row.passwordHash)
+                            .addValue("address", row.user.getAddress())
+                            .addValue("now", now);
+                    for (Role role : row.roles) {
+                        userRoles.add(new MapSqlParameterSource()
+                                .addValue("userId", userId)
+                                .addValue("roleId", role.getId()));
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles.toArray(SqlParameterSource[]::new));
+            });
+            return valid.size();
+        } catch (DataAccessException e) {
+            // Typically a concurrent registration took one of the names: the whole chunk is rolled back
+            log.error("User import chunk rejected by the database: {}", e.getMessage());
+            for (ImportRow row : valid) {
+                row.error = "Rejected by the database together with its chunk, please retry: "
+                        + e.getMostSpecificCause().getMessage();
+            }
+            return 0;
+        }
+    }
+
+    private Set<Role> resolveRoles(Set<String> roleNames) {
+        Set<Role> roles = new HashSet<>();
+        if (roleNames == null || roleNames.isEmpty()) {
+            roles.add(roleRegistry.findByName(RoleType.USER)
+                    .orElseThrow(() -> new InvalidRoleException("Default Role not found.")));
+            return roles;
+        }
+        for (String roleName : roleNames) {
+            RoleType roleType;
+            try {
+                roleType = RoleType.valueOf(roleName.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidRoleException("Invalid Role: " + roleName);
+            }
+            roles.add(roleRegistry.findByName(roleType)
+                    .orElseThrow(() -> new InvalidRoleException("Role not found: " + roleName)));
+        }
+        return roles;
+    }
+
+    private void writeLine(OutputStream output, Object value) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(value));
+        output.write(NEW_LINE);
+    }
+
+    // The users table compares names case-insensitively, so must we
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final UserDTO user;
+        private String error;
+        private Set<Role> roles;
+        private String passwordHash;
+
+        private ImportRow(int line, UserDTO user, String error) {
+            this.line = line;
+            this.user = user;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader {
+        // Next non-blank row, or null at the end of the input
+        ImportRow next() throws IOException;
+    }
+
+    private final class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private int line;
+
+        private NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (StringUtils.hasText(text)) {
+                    try {
+                        return new ImportRow(line, objectMapper.readValue(text, UserDTO.class), null);
+                    } catch (JsonProcessingException e) {
+                        return new ImportRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * CSV with a header row naming UserDTO fields (firstName,lastName,username,email,password,address,roles).
+     * Fields are split by {@link CsvLines}.
+     */
+    private static final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private String[] header;
+        private int line;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (!StringUtils.hasText(text)) {
+                    continue;
+                }
+                List<String> fields = CsvLines.split(text);
+                if (header == null) {
+                    header = fields.stream().map(String::trim).toArray(String[]::new);
+                    continue;
+                }
+                if (fields.size() > header.length) {
+                    return new ImportRow(line, null, "Expected " + header.length + " columns but found " + fields.size());
+                }
+                return new ImportRow(line, toUser(fields), null);
+            }
+            return null;
+        }
+
+        private UserDTO toUser(List<String> fields) {
+            UserDTO user = new UserDTO();
+            for (int i = 0; i < fields.size(); i++) {
+                String value = StringUtils.hasText(fields.get(i)) ? fields.get(i) : null;
+                switch (header[i]) {
+                    case "firstName" -> user.setFirstName(value);
+                    case "lastName" -> user.setLastName(value);
+                    case "username" -> user.setUsername(value);
+                    case "email" -> user.setEmail(value);
+                    case "password" -> user.setPassword(value);
+                    case "address" -> user.setAddress(value);
+                    case "roles" -> user.setRoles(value == null ? null : new HashSet<>(Arrays.asList(value.split("\\|"))));
+                    default -> {
+                        // Unknown columns are ignored, like unknown JSON properties
+                    }
+                }
+            }
+            return user;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Sort keys and indexes of the catalog listing (see ProductSort).
+ * name_key and unit_key hold ProductCollation keys in binary-collated columns; they are computed in Java,
+ * so this migration backfills them with its own copy of the folding as it was when the columns were added:
+ * an applied migration must keep producing the same keys whatever later happens to ProductCollation. Every sort order gets an index ending with the id, in the order's direction,
+ * so a page is a forward index range scan from the cursor with no filesort.
+ */
+public class V10__Add_product_sort_keys extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE products "
+                    + "ADD COLUMN name_key VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL, "
+                    + "ADD COLUMN unit_key VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL");
+        }
+        backfill(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE products "
+                    + "MODIFY name_key VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL");
+            statement.execute("CREATE INDEX idx_products_name_key ON products (name_key, id)");
+            statement.execute("CREATE INDEX idx_products_price ON products (price, id)");
+            statement.execute("CREATE INDEX idx_products_price_desc ON products (price DESC, id DESC)");
+            statement.execute("CREATE INDEX idx_products_created_at ON products (created_at DESC, id DESC)");
+            statement.execute("CREATE INDEX idx_products_unit_key_price ON products (unit_key, price, id)");
+        }
+    }
+
+    private static void backfill(Connection connection) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet products = select.executeQuery("SELECT id, name, unit FROM products");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE products SET name_key = ?, unit_key = ? WHERE id = ?")) {
+            int pending = 0;
+            while (products.next()) {
+                update.setString(1, key(products.getString("name")));
+                update.setString(2, key(products.getString("unit")));
+                update.setLong(3, products.getLong("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    // Frozen copy of ProductCollation.key and ProductTextAnalyzer.normalize as of this version
+    private static String key(String text) {
+        if (text == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case 'ـ' -> { }
+                case 'ٱ' -> folded.append('ا');
+                case 'ة' -> folded.append('ه');
+                case 'ى' -> folded.append('ي');
+                default -> folded.append(c);
+            }
+        }
+        String key = folded.toString().toLowerCase(Locale.ROOT).trim();
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        int end = Character.isHighSurrogate(key.charAt(MAX_KEY_LENGTH - 1)) ? MAX_KEY_LENGTH - 1 : MAX_KEY_LENGTH;
+        return key.substring(0, end);
+    }
+}
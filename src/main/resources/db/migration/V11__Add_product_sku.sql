@@ -0,0 +1,6 @@
+-- Supplier SKU: natural key of the bulk product import (upsert by SKU).
+-- Nullable for products created before it; a UNIQUE index allows any number of NULLs.
+ALTER TABLE products
+    ADD COLUMN sku VARCHAR(64) NULL AFTER id;
+
+CREATE UNIQUE INDEX uk_products_sku ON products (sku);
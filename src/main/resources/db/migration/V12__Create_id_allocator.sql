@@ -0,0 +1,29 @@
+-- Next free id of each table whose ids are reserved in blocks (PooledIdGenerator, IdAllocator)
+-- instead of AUTO_INCREMENT, so Hibernate can batch its inserts.
+CREATE TABLE IF NOT EXISTS id_allocator
+(
+    name       VARCHAR(64) NOT NULL,
+    next_value BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
+-- Continue after the ids AUTO_INCREMENT handed out so far
+INSERT INTO id_allocator (name, next_value) SELECT 'users', COALESCE(MAX(id), 0) + 1 FROM users;
+INSERT INTO id_allocator (name, next_value) SELECT 'products', COALESCE(MAX(id), 0) + 1 FROM products;
+INSERT INTO id_allocator (name, next_value) SELECT 'product_images', COALESCE(MAX(id), 0) + 1 FROM product_images;
+INSERT INTO id_allocator (name, next_value) SELECT 'carts', COALESCE(MAX(id), 0) + 1 FROM carts;
+INSERT INTO id_allocator (name, next_value) SELECT 'email_outbox', COALESCE(MAX(id), 0) + 1 FROM email_outbox;
+INSERT INTO id_allocator (name, next_value) SELECT 'email_campaigns', COALESCE(MAX(id), 0) + 1 FROM email_campaigns;
+
+-- Ids now only come from id_allocator: without AUTO_INCREMENT an insert that leaves the id out fails
+-- instead of taking an id the allocator may hand out later. (customers keeps it: its id is not mapped.)
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE users MODIFY id BIGINT NOT NULL;
+ALTER TABLE products MODIFY id BIGINT NOT NULL;
+ALTER TABLE product_images MODIFY id BIGINT NOT NULL;
+ALTER TABLE carts MODIFY id BIGINT NOT NULL;
+ALTER TABLE email_outbox MODIFY id BIGINT NOT NULL;
+ALTER TABLE email_campaigns MODIFY id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
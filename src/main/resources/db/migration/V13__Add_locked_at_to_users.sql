@@ -0,0 +1,5 @@
+-- When the account was last locked for too many failed logins; the failures themselves are only counted
+-- in memory (LoginAttemptService). Changed by targeted UPDATEs (UserRepository), never by saving a possibly
+-- stale cached user.
+ALTER TABLE users
+    ADD COLUMN locked_at DATETIME(6) NULL;
@@ -0,0 +1,4 @@
+-- The runner that last claimed the campaign: only it may checkpoint, complete or keep running it,
+-- so a runner that lost its claim (paused, then started elsewhere) stops instead of sending alongside the new one.
+ALTER TABLE email_campaigns
+    ADD COLUMN claimed_by VARCHAR(36) NULL;
@@ -0,0 +1,4 @@
+-- Per-user security version, bumped on lock / role change / password change.
+-- Tokens carry the version they were issued with, so older tokens are rejected without a per-request SELECT.
+ALTER TABLE users
+    ADD COLUMN security_version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Denylist of revoked token ids (jti), e.g. after logout.
+-- Rows are only needed until the token would have expired anyway.
+CREATE TABLE IF NOT EXISTS revoked_tokens
+(
+    jti        VARCHAR(36) NOT NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    PRIMARY KEY (jti)
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
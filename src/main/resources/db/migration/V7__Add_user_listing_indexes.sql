@@ -0,0 +1,5 @@
+-- Keyset listing of users: locked-state filter walked in id order
+CREATE INDEX idx_users_not_locked_id ON users (is_not_locked, id);
+
+-- Role filter looks user_roles up from the role side (the primary key starts with user_id)
+CREATE INDEX idx_user_roles_role_user ON user_roles (role_id, user_id);
@@ -0,0 +1,20 @@
+-- Outbox of account emails: written in the same transaction as the user change,
+-- sent and deleted by the background dispatcher. Rows that exhausted their retries stay as FAILED.
+CREATE TABLE IF NOT EXISTS email_outbox
+(
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    recipient       VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255) NOT NULL,
+    body            TEXT         NOT NULL,
+    status          VARCHAR(10)  NOT NULL,
+    attempts        INT          NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(3) NOT NULL,
+    claimed_by      VARCHAR(36),
+    last_error      VARCHAR(500),
+    created_at      TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- The dispatcher polls due PENDING rows in order
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
+CREATE INDEX idx_email_outbox_claimed_by ON email_outbox (claimed_by);
@@ -0,0 +1,21 @@
+-- Bulk email campaigns to a role segment.
+-- last_user_id is the checkpoint: every recipient with a smaller or equal id has been processed,
+-- so an interrupted campaign resumes after it. lease_until tells other instances the runner is alive.
+CREATE TABLE IF NOT EXISTS email_campaigns
+(
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    subject       VARCHAR(255) NOT NULL,
+    body_template TEXT         NOT NULL,
+    role          VARCHAR(25)  NOT NULL,
+    status        VARCHAR(10)  NOT NULL,
+    last_user_id  BIGINT       NOT NULL DEFAULT 0,
+    sent_count    BIGINT       NOT NULL DEFAULT 0,
+    failed_count  BIGINT       NOT NULL DEFAULT 0,
+    lease_until   TIMESTAMP(3) NULL,
+    created_at    TIMESTAMP(3) NOT NULL,
+    started_at    TIMESTAMP(3) NULL,
+    completed_at  TIMESTAMP(3) NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_email_campaigns_status ON email_campaigns (status);
@@ -0,0 +1,83 @@
+package com.fruits.ecommerce.configuration;
+
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.BoundedPasswordEncoder;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_DelegateToBCrypt() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 4, 1, 4, 2, meterRegistry);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(2, meterRegistry.get("security.password-hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_TrueOnlyWhenCostDiffers() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 5, 1, 4, 2, meterRegistry);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+    }
+
+    @Test
+    void encode_QueueFull_ThrowsServiceBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, 4, 1, 1, 3, meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // One hash occupies the single worker, a second one fills the queue
+            callers.submit(() -> encoder.encode("a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.encode("b"));
+            while (meterRegistry.get("security.password-hashing.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> encoder.encode("c"));
+            assertEquals(3, ex.getRetryAfterSeconds());
+            assertEquals(1.0, meterRegistry.get("security.password-hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            callers.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.fruits.ecommerce.configuration;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters.DecodedToken;
+import com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters.JWTTokenProvider;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.SecurityProperties;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.entities.User;
+import com.fruits.ecommerce.models.enums.RoleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JWTTokenProviderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JWTTokenProvider jwtTokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setIssuer("test-issuer");
+        securityProperties.setAudience("test-audience");
+        securityProperties.setAuthorities("authorities");
+        securityProperties.setExpirationTime(60_000);
+        securityProperties.setVerifiedCacheMaxSize(100);
+        securityProperties.setVerifiedCacheMaxTtl(60_000);
+
+        meterRegistry = new SimpleMeterRegistry();
+        jwtTokenProvider = new JWTTokenProvider(securityProperties, meterRegistry);
+        ReflectionTestUtils.setField(jwtTokenProvider, "secret", "test-secret-for-jwt-token-provider");
+        jwtTokenProvider.init();
+    }
+
+    @Test
+    void verifyToken_RepeatCallsAreServedFromCache() {
+        String token = jwtTokenProvider.generateJwtToken(userData("alice"));
+
+        DecodedToken first = jwtTokenProvider.verifyToken(token);
+        DecodedToken second = jwtTokenProvider.verifyToken(token);
+
+        assertSame(first, second);
+        assertEquals("alice", first.getSubject());
+        assertEquals("ROLE_CUSTOMER", first.getAuthorities().get(0).getAuthority());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void verifyToken_CarriesUserIdAndSecurityVersion() {
+        String token = jwtTokenProvider.generateJwtToken(userData("carol"));
+
+        DecodedToken decoded = jwtTokenProvider.verifyToken(token);
+        UserData principal = UserData.fromClaims(decoded.getUserId(), decoded.getSubject(),
+                decoded.getSecurityVersion(), decoded.getAuthorities());
+
+        assertEquals(7L, decoded.getUserId());
+        assertEquals(3, decoded.getSecurityVersion());
+        assertEquals(7L, principal.getId());
+        assertTrue(principal.isAccountNonLocked());
+        assertEquals(decoded.getAuthorities().size(), principal.getAuthorities().size());
+    }
+
+    @Test
+    void verifyToken_TamperedTokenIsRejected() {
+        String token = jwtTokenProvider.generateJwtToken(userData("bob"));
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JWTVerificationException.class, () -> jwtTokenProvider.verifyToken(tampered));
+    }
+
+    private UserData userData(String username) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername(username);
+        user.setSecurityVersion(3);
+        user.setRoles(Set.of(new Role(RoleType.CUSTOMER)));
+        return new UserData(user);
+    }
+}
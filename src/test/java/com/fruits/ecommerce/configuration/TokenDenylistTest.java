@@ -0,0 +1,118 @@
+package com.fruits.ecommerce.configuration;
+
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.SecurityProperties;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.TokenDenylist;
+import com.fruits.ecommerce.models.entities.RevokedToken;
+import com.fruits.ecommerce.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TokenDenylistTest {
+
+    private RevokedTokenRepository revokedTokenRepository;
+    private TokenDenylist tokenDenylist;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties securityProperties = new SecurityProperties();
+        securityProperties.setDenylistExpectedInsertions(1000);
+        securityProperties.setDenylistFalsePositiveRate(0.01);
+
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any())).thenReturn(List.of());
+        tokenDenylist = new TokenDenylist(revokedTokenRepository, securityProperties, new SimpleMeterRegistry());
+        tokenDenylist.init();
+    }
+
+    @Test
+    void revoke_TokenIsRejectedAndPersisted() {
+        tokenDenylist.revoke("jti-1", System.currentTimeMillis() + 60_000);
+
+        assertTrue(tokenDenylist.isRevoked("jti-1"));
+        assertFalse(tokenDenylist.isRevoked("jti-2"));
+        assertFalse(tokenDenylist.isRevoked(null));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void revoke_AlreadyExpiredTokenIsIgnored() {
+        tokenDenylist.revoke("expired", System.currentTimeMillis() - 1);
+
+        assertFalse(tokenDenylist.isRevoked("expired"));
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void refresh_LoadsRevocationsFromTable() {
+        LocalDateTime expiresAt = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5);
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any()))
+                .thenReturn(List.of(new RevokedToken("from-other-instance", expiresAt)));
+
+        tokenDenylist.refresh();
+
+        assertTrue(tokenDenylist.isRevoked("from-other-instance"));
+    }
+
+    @Test
+    void refresh_KeepsRevocationsCommittedAfterTheTableWasRead() {
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any())).thenAnswer(invocation -> {
+            // A logout on this instance lands while the refresh is reading the table
+            tokenDenylist.revoke("during-read", System.currentTimeMillis() + 60_000);
+            return List.of();
+        });
+
+        tokenDenylist.refresh();
+
+        assertTrue(tokenDenylist.isRevoked("during-read"));
+    }
+
+    @Test
+    void revoke_ConcurrentWithRefreshIsNeverLost() throws Exception {
+        List<String> tokenIds = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            tokenIds.add("concurrent-" + i);
+        }
+        AtomicBoolean revoking = new AtomicBoolean(true);
+        Thread refresher = new Thread(() -> {
+            while (revoking.get()) {
+                tokenDenylist.refresh();
+            }
+        });
+        refresher.start();
+        try {
+            for (String tokenId : tokenIds) {
+                tokenDenylist.revoke(tokenId, System.currentTimeMillis() + 60_000);
+            }
+        } finally {
+            revoking.set(false);
+            refresher.join();
+        }
+
+        for (String tokenId : tokenIds) {
+            assertTrue(tokenDenylist.isRevoked(tokenId), tokenId);
+        }
+    }
+
+    @Test
+    void isRevoked_FilterHitsAreConfirmedAgainstExactSet() {
+        for (int i = 0; i < 1000; i++) {
+            tokenDenylist.revoke(UUID.randomUUID().toString(), System.currentTimeMillis() + 60_000);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(tokenDenylist.isRevoked(UUID.randomUUID().toString()));
+        }
+    }
+}
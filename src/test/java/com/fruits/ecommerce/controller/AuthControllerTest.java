@@ -1,20 +1,32 @@
 package com.fruits.ecommerce.controller;
 
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidUserDataException;
 import com.fruits.ecommerce.models.dtos.AuthResponseDTO;
 import com.fruits.ecommerce.models.dtos.LoginRequestDTO;
 import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
 import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.services.Interfaces.IUserDirectoryService;
 import com.fruits.ecommerce.services.Interfaces.IUserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -25,6 +37,9 @@ public class AuthControllerTest {
     @Mock
     private IUserService authService;
 
+    @Mock
+    private IUserDirectoryService userDirectoryService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -134,4 +149,23 @@ public class AuthControllerTest {
         // التحقق من النتائج
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    // Without limit, /users keeps its original list shape, streamed
+    @Test
+    void testGetAllUsers_StreamsList() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ResponseEntity<StreamingResponseBody> response = authController.getAllUsers(RoleType.USER, null, null);
+        response.getBody().writeTo(output);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        verify(userDirectoryService).writeAllUsers(argThat(filter -> filter.getRole() == RoleType.USER), eq(output));
+    }
+
+    @Test
+    void testExportUsers_UnknownFormatIsABadRequest() {
+        assertThrows(InvalidUserDataException.class, () -> authController.exportUsers("xml", null, null, null));
+        assertEquals(HttpStatus.OK, authController.exportUsers("CSV", null, null, null).getStatusCode());
+    }
+}
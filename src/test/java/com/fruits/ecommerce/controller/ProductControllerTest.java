@@ -0,0 +1,53 @@
+package com.fruits.ecommerce.controller;
+
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
+import com.fruits.ecommerce.models.dtos.ProductPageDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import com.fruits.ecommerce.services.Interfaces.IProductService;
+import com.fruits.ecommerce.services.Utils.ImageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ProductControllerTest {
+
+    private IProductService productService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(IProductService.class);
+        when(productService.listProducts(anyInt(), anyInt())).thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 20), 0));
+        when(productService.listProducts(any(ProductFilterDTO.class), any(), anyInt(), any(ProductSort.class),
+                anyBoolean())).thenReturn(new ProductPageDTO());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, mock(ImageService.class)))
+                .build();
+    }
+
+    @Test
+    void getProducts_KeepsTheOffsetPageUnlessACursorIsAskedFor() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").param("page", "2").param("unit", "kg")).andExpect(status().isOk());
+        verify(productService).listProducts(0, 20);
+        verify(productService).listProducts(2, 20);
+        verify(productService, never()).listProducts(any(ProductFilterDTO.class), any(), anyInt(), any(), anyBoolean());
+
+        mockMvc.perform(get("/api/products").param("mode", "cursor")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").param("cursor", "abc")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products").param("mode", "cursor").param("cursor", "def"))
+                .andExpect(status().isOk());
+        verify(productService).listProducts(any(ProductFilterDTO.class), isNull(), eq(20), eq(ProductSort.ID), eq(false));
+        verify(productService).listProducts(any(ProductFilterDTO.class), eq("abc"), eq(20), eq(ProductSort.ID), eq(false));
+        verify(productService).listProducts(any(ProductFilterDTO.class), eq("def"), eq(20), eq(ProductSort.ID), eq(false));
+    }
+}
@@ -0,0 +1,127 @@
+package com.fruits.ecommerce.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class CartLineRepositoryTest {
+
+    private AtomicInteger statements;
+    private JdbcTemplate jdbcTemplate;
+    private CartLineRepository cartLineRepository;
+
+    @BeforeEach
+    void setUp() {
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(
+                "jdbc:h2:mem:cart-lines-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        statements = dataSource.getStatements();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT PRIMARY KEY, customer_id BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (cart_id BIGINT, product_id BIGINT, quantity INT NOT NULL, "
+                + "PRIMARY KEY (cart_id, product_id), FOREIGN KEY (cart_id) REFERENCES carts (id), "
+                + "FOREIGN KEY (product_id) REFERENCES products (id))");
+        jdbcTemplate.update("INSERT INTO products VALUES (1), (2)");
+        jdbcTemplate.update("INSERT INTO carts VALUES (10, 7)");
+        cartLineRepository = new CartLineRepository(dataSource);
+    }
+
+    @Test
+    void constructor_OpensNoConnection() {
+        DataSource dataSource = mock(DataSource.class);
+
+        new CartLineRepository(dataSource);
+
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void addQuantity_ConcurrentAddsOfTheSameProductAreNeverLost() throws Exception {
+        int threads = 8;
+        int addsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int add = 0; add < addsPerThread; add++) {
+                        cartLineRepository.addQuantity(10, 1, 1);
+                    }
+                    return null;
+                }));
+            }
+            // Every thread races to create the line
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * addsPerThread, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM cart_items WHERE cart_id = 10 AND product_id = 1", Integer.class));
+    }
+
+    @Test
+    void addQuantity_IsOneStatementAndRejectsUnknownProducts() {
+        assertEquals(Optional.of(10L), cartLineRepository.findCartId(7));
+        assertEquals(Optional.empty(), cartLineRepository.findCartId(8));
+
+        statements.set(0);
+        cartLineRepository.addQuantity(10, 2, 3);
+        cartLineRepository.addQuantity(10, 2, 4);
+
+        assertEquals(2, statements.get());
+        assertEquals(7, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM cart_items WHERE cart_id = 10 AND product_id = 2", Integer.class));
+        assertThrows(DataIntegrityViolationException.class, () -> cartLineRepository.addQuantity(10, 99, 1));
+    }
+
+    @Test
+    void batchWrites_AreOneStatementPerKindOfChange() {
+        jdbcTemplate.update("INSERT INTO products VALUES (3), (4)");
+        jdbcTemplate.update("INSERT INTO cart_items VALUES (10, 1, 5), (10, 2, 1), (10, 3, 2)");
+
+        statements.set(0);
+        cartLineRepository.setQuantities(10, Map.of(1L, 9, 4L, 2));
+        cartLineRepository.addQuantities(10, Map.of(2L, -1, 3L, 4));
+        cartLineRepository.removeEmptyLines(10);
+        cartLineRepository.removeLines(10, List.of(4L));
+
+        assertEquals(4, statements.get());
+        assertEquals(Map.of(1L, 9, 3L, 6), quantities());
+        assertEquals(Set.of(1L, 3L), cartLineRepository.findExistingProductIds(List.of(1L, 3L, 99L)));
+        cartLineRepository.clear(10);
+        assertEquals(Map.of(), quantities());
+    }
+
+    private Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = 10", resultSet -> {
+            quantities.put(resultSet.getLong(1), resultSet.getInt(2));
+        });
+        return quantities;
+    }
+}
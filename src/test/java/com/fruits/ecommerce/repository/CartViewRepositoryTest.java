@@ -0,0 +1,77 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+import com.fruits.ecommerce.services.Utils.CartTotals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartViewRepositoryTest {
+
+    private AtomicInteger statements;
+    private CartViewRepository cartViewRepository;
+
+    @BeforeEach
+    void setUp() {
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(
+                "jdbc:h2:mem:cart-view-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        statements = dataSource.getStatements();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "price DECIMAL(19, 2) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE product_images (id BIGINT PRIMARY KEY, image_url VARCHAR(255) NOT NULL, "
+                + "product_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT PRIMARY KEY, customer_id BIGINT NOT NULL, "
+                + "shipping_cost DECIMAL(10, 2) DEFAULT 0.00, discount DECIMAL(5, 2) DEFAULT 0.00)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (cart_id BIGINT, product_id BIGINT, quantity INT NOT NULL, "
+                + "PRIMARY KEY (cart_id, product_id))");
+        jdbcTemplate.update("INSERT INTO products VALUES (1, 'Mango', 2.10), (2, 'Kiwi', 0.99), (3, 'Fig', 4.00)");
+        jdbcTemplate.update("INSERT INTO product_images VALUES (12, '/images/mango-2.png', 1), "
+                + "(11, '/images/mango-1.png', 1), (13, '/images/fig.png', 3)");
+        jdbcTemplate.update("INSERT INTO carts VALUES (10, 7, 10.00, 2.00), (20, 8, 10.00, 2.00)");
+        jdbcTemplate.update("INSERT INTO cart_items VALUES (10, 2, 7), (10, 1, 3), (10, 3, 1)");
+        cartViewRepository = new CartViewRepository(dataSource);
+    }
+
+    @Test
+    void findByCustomerId_ReadsCartLinesAndProductsInOneStatement() {
+        statements.set(0);
+        CartDTO cart = cartViewRepository.findByCustomerId(7).orElseThrow();
+
+        assertEquals(1, statements.get());
+        assertEquals(10L, cart.getId());
+        assertEquals(List.of(1L, 2L, 3L), cart.getItems().stream().map(CartItemDTO::getProductId).toList());
+        assertEquals(Arrays.asList("/images/mango-1.png", null, "/images/fig.png"),
+                cart.getItems().stream().map(CartItemDTO::getImageUrl).toList());
+        assertEquals("Kiwi", cart.getItems().get(1).getProductName());
+        assertEquals(Optional.empty(), cartViewRepository.findByCustomerId(9));
+    }
+
+    @Test
+    void cartTotals_AreComputedInCents() {
+        CartDTO cart = cartViewRepository.findByCustomerId(7).orElseThrow();
+        CartDTO empty = cartViewRepository.findByCustomerId(8).orElseThrow();
+
+        CartTotals.apply(cart);
+        CartTotals.apply(empty);
+
+        // 3 x 2.10 + 7 x 0.99 + 1 x 4.00 = 17.23; 2% of it is 0.3446, rounded to 0.34
+        assertEquals(new BigDecimal("6.93"), cart.getItems().get(1).getLineTotal());
+        assertEquals(new BigDecimal("17.23"), cart.getSubtotal());
+        assertEquals(new BigDecimal("0.34"), cart.getDiscountAmount());
+        assertEquals(new BigDecimal("26.89"), cart.getTotal());
+        // No shipping on an empty cart
+        assertTrue(empty.getItems().isEmpty());
+        assertEquals(new BigDecimal("0.00"), empty.getTotal());
+    }
+}
@@ -0,0 +1,191 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.entities.PooledIdGenerator;
+import com.fruits.ecommerce.models.entities.Product;
+import com.fruits.ecommerce.models.entities.ProductImage;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityInsertBatchingTest {
+
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private JdbcTemplate jdbcTemplate;
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:entity-batching-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1") {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return countingRoundTrips(super.getConnection());
+            }
+        };
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, sku VARCHAR(64) UNIQUE, "
+                + "name VARCHAR(255) NOT NULL, unit VARCHAR(50), price DECIMAL(19, 2) NOT NULL, description TEXT, "
+                + "created_at TIMESTAMP, updated_at TIMESTAMP, name_key VARCHAR(255) NOT NULL, unit_key VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE product_images (id BIGINT PRIMARY KEY, "
+                + "image_url VARCHAR(255) NOT NULL, file_path VARCHAR(255) NOT NULL, product_id BIGINT, "
+                + "created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE identity_images (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "image_url VARCHAR(255) NOT NULL, file_path VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE id_allocator (name VARCHAR(64) PRIMARY KEY, next_value BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO id_allocator VALUES ('products', 1), ('product_images', 1)");
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(ProductImage.class)
+                .addAnnotatedClass(IdentityImage.class);
+        configuration.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+        // As Spring Boot and database.properties configure it
+        configuration.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+        configuration.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50");
+        configuration.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        configuration.setProperty(AvailableSettings.ORDER_UPDATES, "true");
+        configuration.setProperty(PooledIdGenerator.BLOCK_SIZE_SETTING, "50");
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void saveImages_PooledIdsBatchTheInsertsIdentityInsertsOneByOne() {
+        // Like ProductService.addImagesToProduct with ten uploaded images
+        int pooled = roundTripsToSave(10, index -> image("pooled-" + index));
+        int identity = roundTripsToSave(10, index -> {
+            IdentityImage image = new IdentityImage();
+            image.imageUrl = "/images/identity-" + index + ".png";
+            image.filePath = "uploads/identity-" + index + ".png";
+            return image;
+        });
+
+        // Reserving a block (update and select), then one batch
+        assertEquals(3, pooled);
+        assertEquals(10, identity);
+        // The next save takes its ids from the same block: the batch alone
+        assertEquals(1, roundTripsToSave(10, index -> image("again-" + index)));
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM product_images WHERE image_url LIKE '/images/pooled-%' ORDER BY id", Long.class);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids);
+    }
+
+    // Round trips benchmark: mvn test -Dtest=EntityInsertBatchingTest -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_BulkSaveRoundTrips() {
+        int rows = 10_000;
+        long started = System.nanoTime();
+        int pooled = roundTripsToSave(rows, index -> image(String.valueOf(index)));
+        long pooledMillis = (System.nanoTime() - started) / 1_000_000;
+        started = System.nanoTime();
+        int identity = roundTripsToSave(rows, index -> {
+            IdentityImage image = new IdentityImage();
+            image.imageUrl = "/images/" + index + ".png";
+            image.filePath = "uploads/" + index + ".png";
+            return image;
+        });
+        long identityMillis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("Pooled ids: %d entities in %d round trips, %d ms%n", rows, pooled, pooledMillis);
+        System.out.printf("IDENTITY:   %d entities in %d round trips, %d ms%n", rows, identity, identityMillis);
+        assertEquals(rows, identity);
+        assertTrue(pooled <= rows / 50 * 3, "round trips " + pooled);
+    }
+
+    // Saves count entities in one transaction, flushing every 50 like a bulk path, and counts the round trips
+    private int roundTripsToSave(int count, IntFunction<Object> entity) {
+        roundTrips.set(0);
+        sessionFactory.inTransaction(session -> {
+            for (int index = 0; index < count; index++) {
+                session.persist(entity.apply(index));
+                if ((index + 1) % 50 == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+        });
+        return roundTrips.get();
+    }
+
+    private static ProductImage image(String name) {
+        ProductImage image = new ProductImage();
+        image.setImageUrl("/images/" + name + ".png");
+        image.setFilePath("uploads/" + name + ".png");
+        return image;
+    }
+
+    // Counts statements sent to the database: each execute, and each batch as one
+    private Connection countingRoundTrips(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement ? countingExecutions(statement) : result;
+                });
+    }
+
+    private Statement countingExecutions(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        roundTrips.incrementAndGet();
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // An image mapped with the IDENTITY strategy every entity used before
+    @Entity(name = "IdentityImage")
+    @Table(name = "identity_images")
+    static class IdentityImage {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        @Column(nullable = false)
+        String imageUrl;
+        @Column(name = "file_path", nullable = false)
+        String filePath;
+    }
+}
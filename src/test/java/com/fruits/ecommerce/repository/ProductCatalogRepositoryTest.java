@@ -0,0 +1,164 @@
+package com.fruits.ecommerce.repository;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
+import com.fruits.ecommerce.services.Utils.ProductCollation;
+import com.fruits.ecommerce.services.Utils.ProductCursor;
+import com.fruits.ecommerce.services.Utils.ProductFacetIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCatalogRepositoryTest {
+
+    private static final String[] NAMES = {"mango", "Mango", "Äpple", "apple", "banana", "أناناس", "اناناس",
+            "Zucchini", "ﬁg", "Kiwi "};
+    private static final String[] UNITS = {"kg", "KG", "box"};
+
+    private AtomicInteger statements;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private ProductCatalogRepository catalogRepository;
+
+    @BeforeEach
+    void setUp() {
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(
+                "jdbc:h2:mem:product-catalog-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        statements = dataSource.getStatements();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate jdbcTemplate = this.jdbcTemplate.getJdbcTemplate();
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT AUTO_INCREMENT PRIMARY KEY, sku VARCHAR(64) UNIQUE, "
+                + "name VARCHAR(255) NOT NULL, "
+                + "unit VARCHAR(50), price DECIMAL(19, 2) NOT NULL, description TEXT, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, "
+                + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL, "
+                + "name_key VARCHAR(255) NOT NULL, unit_key VARCHAR(255))");
+        // As in V10
+        jdbcTemplate.execute("CREATE INDEX idx_products_name_key ON products (name_key, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_products_price ON products (price, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_products_price_desc ON products (price DESC, id DESC)");
+        jdbcTemplate.execute("CREATE INDEX idx_products_created_at ON products (created_at DESC, id DESC)");
+        jdbcTemplate.execute("CREATE INDEX idx_products_unit_key_price ON products (unit_key, price, id)");
+        jdbcTemplate.execute("CREATE TABLE product_images (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "image_url VARCHAR(255) NOT NULL, file_path VARCHAR(255) NOT NULL, product_id BIGINT, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)");
+        // Names, units, prices and creation times repeat, so every order relies on the id tie-breaker
+        for (int id = 1; id <= 30; id++) {
+            String name = NAMES[id % NAMES.length];
+            String unit = id % 4 == 0 ? null : UNITS[id % UNITS.length];
+            jdbcTemplate.update("INSERT INTO products (id, name, unit, price, created_at, name_key, unit_key) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?)", id, name, unit, id % 3,
+                    Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 12, id % 5)), ProductCollation.key(name),
+                    ProductCollation.key(unit));
+            for (int image = 1; image <= 2; image++) {
+                jdbcTemplate.update("INSERT INTO product_images (image_url, file_path, product_id) VALUES (?, ?, ?)",
+                        "/images/" + id + "-" + image + ".png", "uploads/" + id + "-" + image + ".png", id);
+            }
+        }
+        catalogRepository = new ProductCatalogRepository(dataSource);
+    }
+
+    @Test
+    void findPage_IssuesSameNumberOfStatementsWhateverThePageSize() {
+        statements.set(0);
+        List<ProductDTO> small = catalogRepository.findPage(ProductSort.ID, ScrollPosition.keyset(), 2);
+        int smallPageStatements = statements.getAndSet(0);
+        List<ProductDTO> large = catalogRepository.findPage(ProductSort.ID, ScrollPosition.keyset(), 25);
+        int largePageStatements = statements.get();
+
+        assertEquals(2, small.size());
+        assertEquals(25, large.size());
+        assertEquals(List.of("/images/25-1.png", "/images/25-2.png"), large.get(24).getImageUrls());
+        // Products, then the image URLs of the whole page
+        assertEquals(2, smallPageStatements);
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    @Test
+    void findPage_SeeksPastCursorInSortOrder() {
+        List<ProductDTO> first = catalogRepository.findPage(ProductSort.PRICE_DESC, ScrollPosition.keyset(), 4);
+        List<ProductDTO> second = catalogRepository.findPage(ProductSort.PRICE_DESC,
+                ProductCursor.decode(ProductCursor.encode(ProductSort.PRICE_DESC, first.get(3)), ProductSort.PRICE_DESC),
+                4);
+
+        // Price 2: ids 29, 26, 23, ... in descending id order
+        assertEquals(List.of(29L, 26L, 23L, 20L), first.stream().map(ProductDTO::getId).toList());
+        assertEquals(List.of(17L, 14L, 11L, 8L), second.stream().map(ProductDTO::getId).toList());
+    }
+
+    @Test
+    void findPage_EveryOrderReadsAnIndexInOrderFromTheCursor() {
+        Map<ProductSort, String> indexes = Map.of(ProductSort.ID, "PRIMARY_KEY",
+                ProductSort.NAME, "IDX_PRODUCTS_NAME_KEY",
+                ProductSort.PRICE_ASC, "IDX_PRODUCTS_PRICE",
+                ProductSort.PRICE_DESC, "IDX_PRODUCTS_PRICE_DESC",
+                ProductSort.NEWEST, "IDX_PRODUCTS_CREATED_AT",
+                ProductSort.UNIT_PRICE, "IDX_PRODUCTS_UNIT_KEY_PRICE");
+        ProductDTO withUnit = catalogRepository.findById(7L).orElseThrow();
+        ProductDTO withoutUnit = catalogRepository.findById(8L).orElseThrow();
+
+        for (ProductSort sort : ProductSort.values()) {
+            for (ProductDTO last : List.of(withUnit, withoutUnit)) {
+                for (KeysetScrollPosition position : List.of(ScrollPosition.keyset(),
+                        ProductCursor.decode(ProductCursor.encode(sort, last), sort))) {
+                    MapSqlParameterSource params = new MapSqlParameterSource();
+                    String plan = jdbcTemplate.queryForObject(
+                            "EXPLAIN " + ProductCatalogRepository.pageQuery(sort, position, 5, params), params,
+                            String.class);
+                    assertTrue(plan.contains("PUBLIC." + indexes.get(sort)), sort + ": " + plan);
+                    assertTrue(plan.contains("/* index sorted */"), sort + ": " + plan);
+                }
+            }
+        }
+    }
+
+    @Test
+    void findPage_OrdersLikeTheInMemoryFacetIndex() {
+        ProductFacetIndex facetIndex = new ProductFacetIndex(List.of(BigDecimal.ONE), new SimpleMeterRegistry());
+        facetIndex.rebuild(catalogRepository.findByIds(LongStream.rangeClosed(1, 30).boxed().toList()));
+        // Any filter goes through the facet index
+        ProductFilterDTO everything = new ProductFilterDTO(BigDecimal.ZERO, null, null, null);
+
+        for (ProductSort sort : ProductSort.values()) {
+            List<Long> fromSql = new ArrayList<>();
+            List<ProductDTO> page = catalogRepository.findPage(sort, ScrollPosition.keyset(), 4);
+            while (!page.isEmpty()) {
+                page.forEach(product -> fromSql.add(product.getId()));
+                page = catalogRepository.findPage(sort,
+                        ProductCursor.decode(ProductCursor.encode(sort, page.get(page.size() - 1)), sort), 4);
+            }
+            List<Long> fromIndex = new ArrayList<>();
+            ProductFacetIndex.Result result = facetIndex.filter(everything, sort, ScrollPosition.keyset(), 4);
+            fromIndex.addAll(result.productIds());
+            while (result.hasNext()) {
+                ProductDTO last = catalogRepository.findById(fromIndex.get(fromIndex.size() - 1)).orElseThrow();
+                result = facetIndex.filter(everything, sort, ProductCursor.decode(ProductCursor.encode(sort, last),
+                        sort), 4);
+                fromIndex.addAll(result.productIds());
+            }
+
+            assertEquals(30, fromSql.size(), sort.name());
+            assertEquals(fromSql, fromIndex, sort.name());
+        }
+        // Case and accents fold: "apple" (3) and "Äpple" (2) share a key, so they are ordered by id
+        List<ProductDTO> byName = catalogRepository.findPage(ProductSort.NAME, ScrollPosition.keyset(), 2);
+        assertEquals(List.of(2L, 3L), byName.stream().map(ProductDTO::getId).toList());
+    }
+}
@@ -0,0 +1,43 @@
+package com.fruits.ecommerce.repository;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test data source that counts the statements prepared or created on its connections,
+ * for tests asserting how many round trips an operation takes.
+ */
+public class StatementCountingDataSource extends DriverManagerDataSource {
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    public StatementCountingDataSource(String url) {
+        super(url);
+    }
+
+    // Reset with set(0) before the operation under test
+    public AtomicInteger getStatements() {
+        return statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") || method.getName().equals("createStatement")) {
+                        statements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
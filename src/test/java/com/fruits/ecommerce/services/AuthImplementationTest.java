@@ -1,9 +1,13 @@
 package com.fruits.ecommerce.services;
 
 import com.fruits.ecommerce.configuration.SecurityConfig.JWT_Filters.JWTTokenProvider;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.TokenDenylist;
 import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserDetailsCache;
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserSecurityVersions;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.AccountLockedException;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.EmailExistException;
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.ServiceBusyException;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.UserNotFoundException;
 import com.fruits.ecommerce.exceptions.ExceptionsDomain.UsernameExistException;
 import com.fruits.ecommerce.models.dtos.AuthResponseDTO;
@@ -16,8 +20,11 @@ import com.fruits.ecommerce.models.mappers.UserMapper;
 import com.fruits.ecommerce.repository.RoleRepository;
 import com.fruits.ecommerce.repository.UserRepository;
 import com.fruits.ecommerce.services.Utils.EmailService;
+import com.fruits.ecommerce.services.Utils.LastLoginRecorder;
 import com.fruits.ecommerce.services.Utils.LoginAttemptService;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
 import com.fruits.ecommerce.services.implementations.AuthImplementation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.mail.MessagingException;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
@@ -55,6 +62,12 @@ public class AuthImplementationTest {
     private EmailService emailService;
     @Mock
     private Validator validator;
+    @Mock
+    private UserSecurityVersions userSecurityVersions;
+    @Mock
+    private TokenDenylist tokenDenylist;
+    @Mock
+    private LastLoginRecorder lastLoginRecorder;
     @InjectMocks
     private AuthImplementation authService;
 
@@ -69,14 +82,18 @@ public class AuthImplementationTest {
         validator = Validation.buildDefaultValidatorFactory().getValidator();
         authService = new AuthImplementation(
                 userRepository,
-                roleRepository,
+                new RoleRegistry(roleRepository),
                 passwordEncoder,
                 userMapper,
                 authenticationManager,
                 jwtTokenProvider,
                 loginAttemptService,
                 emailService,
-                validator
+                validator,
+                userSecurityVersions,
+                tokenDenylist,
+                new UserDetailsCache(userRepository, false, 0, 0, new SimpleMeterRegistry()),
+                lastLoginRecorder
         );
     }
 
@@ -182,7 +199,7 @@ public class AuthImplementationTest {
         loginRequest.setUsername("nonexistentuser");
         loginRequest.setPassword("password");
 
-        when(userRepository.findByUsernameOrEmail("nonexistentuser", "nonexistentuser"))
+        when(userRepository.findWithRolesByIdentifier("nonexistentuser"))
                 .thenReturn(Optional.empty());
 
         UserNotFoundException thrown = assertThrows(UserNotFoundException.class, () -> {
@@ -203,7 +220,7 @@ public class AuthImplementationTest {
         user.setUsername("lockeduser");
         user.setEmail("lockeduser@example.com");
 
-        when(userRepository.findByUsernameOrEmail("lockeduser", "lockeduser"))
+        when(userRepository.findWithRolesByIdentifier("lockeduser"))
                 .thenReturn(Optional.of(user));
 
         AccountLockedException thrown = assertThrows(AccountLockedException.class, () -> {
@@ -225,7 +242,7 @@ public class AuthImplementationTest {
         user.setUsername("validuser");
         user.setEmail("validuser@example.com");
 
-        when(userRepository.findByUsernameOrEmail("validuser", "validuser"))
+        when(userRepository.findWithRolesByIdentifier("validuser"))
                 .thenReturn(Optional.of(user));
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
@@ -240,8 +257,10 @@ public class AuthImplementationTest {
 
         assertEquals("Your account has been locked due to multiple failed login attempts. Please try again later or Contact Technical Support-Team.", thrown.getMessage());
 
-        // تأكد من تعيين user.setNotLocked(false)
-        verify(userRepository).save(user);
+        // The lock is one targeted UPDATE; the cached user is neither changed nor saved back
+        verify(userRepository).lockAfterFailedLogins(eq(1L), any(LocalDateTime.class));
+        verify(userRepository, never()).save(any());
+        assertTrue(user.isNotLocked());
     }
 
     @Test
@@ -276,7 +295,7 @@ public class AuthImplementationTest {
         when(userMapper.toDTO(user)).thenReturn(userDTO);
 
         // ضبط الـ UserRepository
-        when(userRepository.findByUsernameOrEmail("validuser", "validuser")).thenReturn(Optional.of(user));
+        when(userRepository.findWithRolesByIdentifier("validuser")).thenReturn(Optional.of(user));
 
         // تنفيذ الميثود
         AuthResponseDTO response = authService.login(loginRequest);
@@ -287,7 +306,8 @@ public class AuthImplementationTest {
 
         // التحقق من تحديثات المستخدم
         verify(loginAttemptService).evictUserFromLoginAttemptCache(1L);
-        verify(userRepository).save(user);
+        verify(lastLoginRecorder).record(eq(1L), any(LocalDateTime.class));
+        verify(userRepository, never()).save(user);
     }
 
     // 3. اختبارات lockUser و unlockUser
@@ -387,6 +407,20 @@ public class AuthImplementationTest {
 
         assertTrue(user.isNotLocked());
         verify(userRepository).save(user);
+        verify(userRepository).clearLockedAt(1L);
         verify(emailService, times(1)).sendAccountUnlockedEmail("user", identifier);
     }
+
+    @Test
+    public void resetPassword_HashingBusy_ShouldKeepServiceBusyException() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.encode(anyString())).thenThrow(new ServiceBusyException("Busy", 2));
+
+        ServiceBusyException thrown = assertThrows(ServiceBusyException.class, () -> authService.resetPassword(1L));
+
+        assertEquals(2, thrown.getRetryAfterSeconds());
+        verify(userRepository, never()).save(any());
+    }
 }
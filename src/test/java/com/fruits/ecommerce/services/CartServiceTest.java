@@ -0,0 +1,137 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.configuration.SecurityConfig.SecurityCore.UserData;
+import com.fruits.ecommerce.exceptions.products.ProductNotFoundException;
+import com.fruits.ecommerce.exceptions.products.InvalidCartOperationException;
+import com.fruits.ecommerce.models.dtos.CartDTO;
+import com.fruits.ecommerce.models.dtos.CartOperationDTO;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.mappers.CartMapper;
+import com.fruits.ecommerce.repository.*;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.Utils.WriteBehindCartStore;
+import com.fruits.ecommerce.services.implementations.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class CartServiceTest {
+
+    private UserRepository userRepository;
+    private CartRepository cartRepository;
+    private ProductRepository productRepository;
+    private CustomerRepository customerRepository;
+    private CartLineRepository cartLineRepository;
+    private CartViewRepository cartViewRepository;
+    private ProductCache productCache;
+    private CartService cartService;
+    private Authentication authentication;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cartRepository = mock(CartRepository.class);
+        productRepository = mock(ProductRepository.class);
+        customerRepository = mock(CustomerRepository.class);
+        cartLineRepository = mock(CartLineRepository.class);
+        cartViewRepository = mock(CartViewRepository.class);
+        productCache = mock(ProductCache.class);
+        cartService = new CartService(userRepository, cartRepository, productRepository, customerRepository,
+                cartLineRepository, cartViewRepository, mock(CartMapper.class), mock(RoleRegistry.class), productCache,
+                mock(PlatformTransactionManager.class), mock(WriteBehindCartStore.class));
+        ReflectionTestUtils.setField(cartService, "maxBatchOperations", 100);
+        UserData principal = UserData.fromClaims(7L, "alice", 0, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void addProductToCart_KnownCartIsOneUpsertWithoutLoadingEntities() {
+        when(cartLineRepository.findCartId(7L)).thenReturn(Optional.of(10L));
+        when(productCache.find(3L)).thenReturn(Optional.of(new ProductDTO()));
+
+        cartService.addProductToCart(authentication, 3L, 2);
+        cartService.addProductToCart(authentication, 3L, 1);
+
+        // The cart id is looked up once, then cached
+        verify(cartLineRepository).findCartId(7L);
+        verify(cartLineRepository).addQuantity(10L, 3L, 2);
+        verify(cartLineRepository).addQuantity(10L, 3L, 1);
+        verifyNoInteractions(userRepository, cartRepository, productRepository, customerRepository);
+        assertThrows(ProductNotFoundException.class, () -> cartService.addProductToCart(authentication, 4L, 1));
+    }
+
+    @Test
+    void addProductToCart_NonPositiveQuantityIsAnInvalidCartOperation() {
+        assertThrows(InvalidCartOperationException.class, () -> cartService.addProductToCart(authentication, 3L, 0));
+        verifyNoInteractions(cartLineRepository);
+    }
+
+    @Test
+    void addProductToCart_RejectedUpsertFallsBackToTheFullPath() {
+        when(cartLineRepository.findCartId(7L)).thenReturn(Optional.of(10L));
+        when(productCache.find(3L)).thenReturn(Optional.of(new ProductDTO()));
+        doThrow(new DataIntegrityViolationException("product deleted"))
+                .when(cartLineRepository).addQuantity(10L, 3L, 2);
+        when(productRepository.existsById(3L)).thenReturn(false);
+
+        // The full path reports the deleted product
+        assertThrows(ProductNotFoundException.class, () -> cartService.addProductToCart(authentication, 3L, 2));
+        verify(productRepository).existsById(3L);
+        verify(cartLineRepository, times(1)).addQuantity(anyLong(), anyLong(), anyInt());
+
+        // and the cart id is looked up again next time
+        cartService.addProductToCart(authentication, 3L, 1);
+        verify(cartLineRepository, times(2)).findCartId(7L);
+    }
+
+    @Test
+    void applyCartOperations_FoldsOperationsPerProductIntoOneBatchPerKind() {
+        when(cartLineRepository.findCartId(7L)).thenReturn(Optional.of(10L));
+        when(cartLineRepository.findExistingProductIds(Set.of(3L, 4L, 6L))).thenReturn(Set.of(3L, 4L, 6L));
+        CartDTO cart = new CartDTO();
+        cart.setItems(List.of());
+        when(cartViewRepository.findByCustomerId(7L)).thenReturn(Optional.of(cart));
+
+        cartService.applyCartOperations(authentication, List.of(
+                new CartOperationDTO(3L, 2, null, false),
+                new CartOperationDTO(4L, null, 5, false),
+                new CartOperationDTO(4L, 1, null, false),
+                new CartOperationDTO(5L, null, null, true),
+                new CartOperationDTO(6L, -1, null, false),
+                new CartOperationDTO(7L, 3, null, false),
+                new CartOperationDTO(7L, null, null, true)));
+
+        verify(cartLineRepository).setQuantities(10L, Map.of(4L, 6));
+        verify(cartLineRepository).addQuantities(10L, Map.of(3L, 2, 6L, -1));
+        verify(cartLineRepository).removeEmptyLines(10L);
+        verify(cartLineRepository).removeLines(10L, List.of(5L, 7L));
+        assertThrows(InvalidCartOperationException.class, () -> cartService.applyCartOperations(authentication,
+                List.of(new CartOperationDTO(3L, 2, 4, false))));
+        when(cartLineRepository.findExistingProductIds(Set.of(8L))).thenReturn(Set.of());
+        assertThrows(ProductNotFoundException.class, () -> cartService.applyCartOperations(authentication,
+                List.of(new CartOperationDTO(8L, null, 1, false))));
+    }
+
+    @Test
+    void applyCartOperations_RejectsOperationsThatAddUpPastTheBounds() {
+        assertThrows(InvalidCartOperationException.class, () -> cartService.applyCartOperations(authentication,
+                List.of(new CartOperationDTO(3L, 60, null, false), new CartOperationDTO(3L, 60, null, false))));
+        assertThrows(InvalidCartOperationException.class, () -> cartService.applyCartOperations(authentication,
+                List.of(new CartOperationDTO(3L, null, 90, false), new CartOperationDTO(3L, 20, null, false))));
+        verifyNoInteractions(cartLineRepository);
+    }
+}
@@ -0,0 +1,155 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.exceptions.ExceptionsDomain.InvalidCampaignException;
+import com.fruits.ecommerce.models.dtos.EmailCampaignDTO;
+import com.fruits.ecommerce.models.entities.EmailCampaign;
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.enums.CampaignStatus;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.repository.EmailCampaignRepository;
+import com.fruits.ecommerce.repository.RoleRepository;
+import com.fruits.ecommerce.repository.UserDirectoryRepository;
+import com.fruits.ecommerce.services.Utils.CampaignMailer;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.implementations.EmailCampaignService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class EmailCampaignServiceTest {
+
+    private SmtpStandIn smtp;
+    private CampaignMailer campaignMailer;
+    private EmailCampaignRepository campaignRepository;
+    private EmailCampaignService campaignService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:email-campaign-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, first_name VARCHAR(25), last_name VARCHAR(25), "
+                + "user_name VARCHAR(25), email VARCHAR(35), address VARCHAR(35), created_at TIMESTAMP, "
+                + "updated_at TIMESTAMP, last_login TIMESTAMP, is_active BOOLEAN, is_not_locked BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE roles (id INT PRIMARY KEY, name VARCHAR(25))");
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id INT NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO roles VALUES (1, 'ADMIN'), (3, 'CUSTOMER')");
+        // Customers 1..6 except 5 (locked); 7 is an admin
+        for (int id = 1; id <= 7; id++) {
+            jdbcTemplate.update("INSERT INTO users (id, first_name, user_name, email, is_active, is_not_locked) "
+                    + "VALUES (?, ?, ?, ?, TRUE, ?)", id, "Name" + id, "user" + id, "user" + id + "@example.com", id != 5);
+            jdbcTemplate.update("INSERT INTO user_roles VALUES (?, ?)", id, id == 7 ? 1 : 3);
+        }
+
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(List.of(role(1, RoleType.ADMIN), role(3, RoleType.CUSTOMER)));
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+        campaignMailer = new CampaignMailer(mailSender, "news@example.com", 2, 20, new SimpleMeterRegistry());
+        campaignRepository = mock(EmailCampaignRepository.class);
+        campaignService = new EmailCampaignService(campaignRepository, new UserDirectoryRepository(dataSource, 100),
+                new RoleRegistry(roleRepository), campaignMailer, 2, 20, 60000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        campaignMailer.shutdown();
+        smtp.close();
+    }
+
+    @Test
+    void runCampaign_ResumesAfterCheckpointAndSendsThrottledOverPooledConnections() throws InterruptedException {
+        when(campaignRepository.findById(10L)).thenReturn(Optional.of(campaign(2)));
+        when(campaignRepository.checkpoint(eq(10L), eq("runner-1"), anyLong(), anyLong(), anyLong(), any()))
+                .thenReturn(1);
+        when(campaignRepository.findStatusIfClaimedBy(10L, "runner-1")).thenReturn(Optional.of(CampaignStatus.RUNNING));
+
+        long start = System.nanoTime();
+        campaignService.runCampaign(10L, "runner-1");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Users 3, 4 and 6: after the checkpoint, customers only, locked user skipped
+        assertEquals(3, smtp.messages.size());
+        assertTrue(smtp.messages.stream().anyMatch(message -> message.contains("Hello Name6, fresh mangoes")));
+        assertTrue(smtp.connections.get() <= 2);
+        // 3 messages at 20 per second
+        assertTrue(elapsedMillis >= 90, "elapsed " + elapsedMillis);
+        verify(campaignRepository).checkpoint(eq(10L), eq("runner-1"), eq(4L), eq(2L), eq(0L), any());
+        verify(campaignRepository).checkpoint(eq(10L), eq("runner-1"), eq(6L), eq(1L), eq(0L), any());
+        verify(campaignRepository).complete(eq(10L), eq("runner-1"), eq(CampaignStatus.RUNNING),
+                eq(CampaignStatus.COMPLETED), any());
+    }
+
+    @Test
+    void runCampaign_StopsAfterCurrentPageWhenPaused() throws InterruptedException {
+        when(campaignRepository.findById(10L)).thenReturn(Optional.of(campaign(0)));
+        when(campaignRepository.checkpoint(eq(10L), eq("runner-1"), anyLong(), anyLong(), anyLong(), any()))
+                .thenReturn(1);
+        when(campaignRepository.findStatusIfClaimedBy(10L, "runner-1")).thenReturn(Optional.of(CampaignStatus.PAUSED));
+
+        campaignService.runCampaign(10L, "runner-1");
+
+        assertEquals(2, smtp.messages.size());
+        verify(campaignRepository).checkpoint(eq(10L), eq("runner-1"), eq(2L), eq(2L), eq(0L), any());
+        verify(campaignRepository, never()).complete(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void runCampaign_StopsWhenAnotherRunnerClaimedTheCampaign() throws InterruptedException {
+        // Paused here mid-page, then started again on another instance: the checkpoint no longer matches
+        when(campaignRepository.findById(10L)).thenReturn(Optional.of(campaign(0)));
+        when(campaignRepository.checkpoint(eq(10L), eq("runner-1"), anyLong(), anyLong(), anyLong(), any()))
+                .thenReturn(0);
+
+        campaignService.runCampaign(10L, "runner-1");
+
+        assertEquals(2, smtp.messages.size());
+        verify(campaignRepository, never()).findStatusIfClaimedBy(anyLong(), any());
+        verify(campaignRepository, never()).complete(anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void createCampaign_RejectsUnknownPlaceholder() {
+        EmailCampaignDTO campaignDTO = new EmailCampaignDTO();
+        campaignDTO.setSubject("Seasonal fruits");
+        campaignDTO.setBody("Hello {{nickname}}");
+        campaignDTO.setRole(RoleType.CUSTOMER);
+
+        assertThrows(InvalidCampaignException.class, () -> campaignService.createCampaign(campaignDTO));
+        verify(campaignRepository, never()).save(any());
+    }
+
+    private static EmailCampaign campaign(long lastUserId) {
+        EmailCampaign campaign = new EmailCampaign();
+        campaign.setId(10L);
+        campaign.setSubject("Seasonal fruits");
+        campaign.setBodyTemplate("Hello {{firstName}}, fresh mangoes have arrived.");
+        campaign.setRole(RoleType.CUSTOMER);
+        campaign.setStatus(CampaignStatus.RUNNING);
+        campaign.setLastUserId(lastUserId);
+        return campaign;
+    }
+
+    private static Role role(int id, RoleType name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+}
@@ -0,0 +1,112 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.services.Utils.EmailOutboxDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailOutboxDispatcherTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SmtpStandIn smtp;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:email-outbox-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE email_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "recipient VARCHAR(255) NOT NULL, subject VARCHAR(255) NOT NULL, body TEXT NOT NULL, "
+                + "status VARCHAR(10) NOT NULL, attempts INT NOT NULL DEFAULT 0, next_attempt_at TIMESTAMP(3) NOT NULL, "
+                + "claimed_by VARCHAR(36), last_error VARCHAR(500), created_at TIMESTAMP(3) NOT NULL)");
+
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+        dispatcher = new EmailOutboxDispatcher(jdbcTemplate, mailSender, "noreply@example.com",
+                10, 2, 60000, 600000, 120000, 5000, 5000, 5000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void dispatch_SendsDueMessagesOverOneConnectionAndDeletesThem() {
+        for (int i = 0; i < 3; i++) {
+            enqueue("user" + i + "@example.com");
+        }
+
+        dispatcher.dispatch();
+
+        assertEquals(1, smtp.connections.get());
+        assertEquals(3, smtp.messages.size());
+        assertTrue(smtp.messages.get(0).contains("Subject: Hello"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox", Integer.class));
+    }
+
+    @Test
+    void dispatch_RetriesRejectedMessageWithBackoffThenMarksItFailed() {
+        enqueue("reject@example.com");
+        enqueue("user@example.com");
+
+        dispatcher.dispatch();
+
+        assertEquals(1, smtp.messages.size());
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM email_outbox");
+        assertEquals("PENDING", row.get("STATUS"));
+        assertEquals(1, row.get("ATTEMPTS"));
+        assertNull(row.get("CLAIMED_BY"));
+        assertNotNull(row.get("LAST_ERROR"));
+        // Not due again before the backoff elapsed
+        dispatcher.dispatch();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT attempts FROM email_outbox", Integer.class));
+
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = CURRENT_TIMESTAMP - INTERVAL '1' MINUTE");
+        dispatcher.dispatch();
+
+        row = jdbcTemplate.queryForMap("SELECT * FROM email_outbox");
+        assertEquals("FAILED", row.get("STATUS"));
+        assertEquals(2, row.get("ATTEMPTS"));
+    }
+
+    @Test
+    void dispatch_KeepsMessagesWhenServerIsDown() throws IOException {
+        enqueue("user@example.com");
+        smtp.close();
+
+        dispatcher.dispatch();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT attempts FROM email_outbox WHERE status = 'PENDING'", Integer.class));
+    }
+
+    @Test
+    void lease_OutlastsABatchThatHitsEverySmtpTimeout() {
+        // 10 messages x (5 s connect + 5 s write + 5 s read), plus margin, over the configured 120 s
+        assertEquals(180_000, dispatcher.getLeaseMillis());
+        EmailOutboxDispatcher untimed = new EmailOutboxDispatcher(jdbcTemplate, new JavaMailSenderImpl(),
+                "noreply@example.com", 10, 2, 60000, 600000, 120000, 0, 0, 0, new SimpleMeterRegistry());
+        assertEquals(120_000, untimed.getLeaseMillis());
+    }
+
+    // Due a second ago: TIMESTAMP(3) rounds, so CURRENT_TIMESTAMP could land after the dispatcher's clock
+    private void enqueue(String recipient) {
+        jdbcTemplate.update("INSERT INTO email_outbox (recipient, subject, body, status, next_attempt_at, created_at) "
+                + "VALUES (?, 'Hello', 'Body', 'PENDING', CURRENT_TIMESTAMP - INTERVAL '1' SECOND, CURRENT_TIMESTAMP)",
+                recipient);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.services.Utils.LastLoginRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class LastLoginRecorderTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @Test
+    void flush_CoalescesLoginsIntoOneCaseUpdate() {
+        LastLoginRecorder recorder = new LastLoginRecorder(jdbcTemplate, 10_000, 500);
+        LocalDateTime first = LocalDateTime.of(2024, 1, 1, 10, 0);
+        LocalDateTime latest = first.plusMinutes(5);
+
+        recorder.record(7L, latest);
+        recorder.record(7L, first);
+        recorder.flush();
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(eq("UPDATE users SET last_login = CASE id WHEN ? THEN ? ELSE last_login END WHERE id IN (?)"),
+                args.capture());
+        assertArrayEquals(new Object[]{7L, Timestamp.valueOf(latest), 7L}, args.getValue());
+    }
+
+    @Test
+    void flush_SplitsIntoBatchesAndSkipsWhenEmpty() {
+        LastLoginRecorder recorder = new LastLoginRecorder(jdbcTemplate, 10_000, 2);
+        for (long userId = 1; userId <= 5; userId++) {
+            recorder.record(userId, LocalDateTime.now());
+        }
+
+        recorder.flush();
+        recorder.flush();
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void flushIfDue_WaitsForMaxStaleness() {
+        LastLoginRecorder recorder = new LastLoginRecorder(jdbcTemplate, 60_000, 500);
+        recorder.record(1L, LocalDateTime.now());
+
+        recorder.flushIfDue();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_FailedWriteIsRetriedOnNextFlush() {
+        LastLoginRecorder recorder = new LastLoginRecorder(jdbcTemplate, 10_000, 500);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+        recorder.record(1L, LocalDateTime.now());
+
+        recorder.flush();
+        recorder.flush();
+
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+}
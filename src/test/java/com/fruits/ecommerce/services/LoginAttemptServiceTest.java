@@ -0,0 +1,103 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.services.Utils.LoginAttemptService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginAttemptServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginAttemptService service(long windowMillis) {
+        return new LoginAttemptService(windowMillis, 6, 10, 3, 1024 * 1024, false, meterRegistry);
+    }
+
+    @Test
+    void userLimit_ReachedAfterMaxFailuresAndClearedOnEvict() {
+        LoginAttemptService service = service(60_000);
+
+        for (int i = 1; i <= 5; i++) {
+            service.addFailedAttempt(1L, "10.0.0." + i);
+        }
+        assertFalse(service.hasExceededMaxAttempts(1L));
+        service.addFailedAttempt(1L, "10.0.0.6");
+        assertTrue(service.hasExceededMaxAttempts(1L));
+
+        service.evictUserFromLoginAttemptCache(1L);
+        assertFalse(service.hasExceededMaxAttempts(1L));
+        assertEquals(1.0, meterRegistry.get("security.login-attempts.blocked").tag("scope", "user").counter().count());
+    }
+
+    @Test
+    void userClientLimit_ThrottlesOneClientBeforeTheAccountIsLocked() {
+        LoginAttemptService service = service(60_000);
+
+        for (int i = 0; i < 3; i++) {
+            service.addFailedAttempt(1L, "10.0.0.1");
+        }
+
+        assertTrue(service.isUserClientBlocked(1L, "10.0.0.1"));
+        assertFalse(service.isUserClientBlocked(1L, "10.0.0.2"));
+        assertFalse(service.hasExceededMaxAttempts(1L));
+    }
+
+    @Test
+    void clientLimit_CountsFailuresAcrossUsersAndUnknownIdentifiers() {
+        LoginAttemptService service = service(60_000);
+
+        for (long userId = 1; userId <= 9; userId++) {
+            service.addFailedAttempt(userId, "10.0.0.1");
+        }
+        assertFalse(service.isClientBlocked("10.0.0.1"));
+        service.addFailedAttempt(null, "10.0.0.1");
+
+        assertTrue(service.isClientBlocked("10.0.0.1"));
+        assertFalse(service.isClientBlocked("10.0.0.2"));
+        assertFalse(service.isUserClientBlocked(1L, "10.0.0.1"));
+    }
+
+    @Test
+    void failures_ExpireWithTheWindow() throws InterruptedException {
+        LoginAttemptService service = service(300);
+
+        for (int i = 0; i < 6; i++) {
+            service.addFailedAttempt(1L, null);
+        }
+        assertTrue(service.hasExceededMaxAttempts(1L));
+
+        Thread.sleep(450);
+        assertFalse(service.hasExceededMaxAttempts(1L));
+    }
+
+    @Test
+    void concurrentFailures_AreNeverLost() throws InterruptedException {
+        LoginAttemptService service = new LoginAttemptService(60_000, 4000, 4000, 4000, 1024 * 1024, false,
+                meterRegistry);
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    service.addUserToLoginAttemptCache(1L);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 4000 failures exactly: one fewer would leave the user below the limit
+        assertTrue(service.hasExceededMaxAttempts(1L));
+    }
+}
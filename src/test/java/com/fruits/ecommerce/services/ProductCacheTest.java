@@ -0,0 +1,95 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductCacheTest {
+
+    private ProductCatalogRepository catalogRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        catalogRepository = mock(ProductCatalogRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        productCache = new ProductCache(catalogRepository, true, 100, 1_000_000, 60000, meterRegistry);
+    }
+
+    @Test
+    void find_CoalescesConcurrentMissesIntoOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        when(catalogRepository.findById(1L)).thenAnswer(invocation -> {
+            loading.await();
+            return Optional.of(product(1L));
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<ProductDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> productCache.find(1L)));
+            }
+            Thread.sleep(100);
+            loading.countDown();
+            for (Future<Optional<ProductDTO>> result : results) {
+                assertEquals("Mango", result.get().orElseThrow().getName());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        verify(catalogRepository, times(1)).findById(1L);
+        assertEquals(7.0 / 8, meterRegistry.get("cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void find_ReturnsCopiesAndReloadsAfterEviction() {
+        when(catalogRepository.findById(1L)).thenReturn(Optional.of(product(1L)));
+
+        ProductDTO first = productCache.find(1L).orElseThrow();
+        first.setName("Changed by caller");
+        assertEquals("Mango", productCache.find(1L).orElseThrow().getName());
+        assertThrows(UnsupportedOperationException.class, () -> first.getImageUrls().add("/images/x.png"));
+        verify(catalogRepository, times(1)).findById(1L);
+
+        // No transaction: evicted immediately
+        productCache.evictAfterCommit(1L);
+        productCache.find(1L);
+        verify(catalogRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void find_DoesNotRememberUnknownProducts() {
+        when(catalogRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertTrue(productCache.find(2L).isEmpty());
+        assertTrue(productCache.find(2L).isEmpty());
+
+        verify(catalogRepository, times(2)).findById(2L);
+    }
+
+    private static ProductDTO product(Long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Mango");
+        product.setPrice(new BigDecimal("3.50"));
+        product.setImageUrls(new ArrayList<>(List.of("/images/mango.png")));
+        return product;
+    }
+}
@@ -0,0 +1,69 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import com.fruits.ecommerce.services.Utils.ProductChangeFeed;
+import com.fruits.ecommerce.services.Utils.ProductChangeListener;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProductChangeFeedTest {
+
+    @Test
+    void publish_FailedReloadIsRetriedInsteadOfLeavingIndexesStale() {
+        ProductCatalogRepository repository = mock(ProductCatalogRepository.class);
+        ProductChangeListener listener = mock(ProductChangeListener.class);
+        ProductChangeFeed feed = new ProductChangeFeed(repository, List.of(listener), 1000, 0, 0);
+        ProductDTO product = new ProductDTO();
+        product.setId(1L);
+        when(repository.findByIds(anyCollection()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(product));
+
+        feed.publishAfterCommit(1L);
+        verifyNoInteractions(listener);
+
+        feed.retryFailed();
+        verify(listener).onProductsChanged(List.of(product), Set.of());
+        // Nothing left to retry
+        feed.retryFailed();
+        verify(repository, times(2)).findByIds(Set.of(1L));
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void rebuild_ChangesPublishedDuringTheScanAreAppliedAfterIt() {
+        ProductCatalogRepository repository = mock(ProductCatalogRepository.class);
+        ProductChangeListener listener = mock(ProductChangeListener.class);
+        ProductChangeFeed feed = new ProductChangeFeed(repository, List.of(listener), 1000, 0, 0);
+        ProductDTO before = new ProductDTO();
+        before.setId(5L);
+        before.setName("Mango");
+        ProductDTO after = new ProductDTO();
+        after.setId(5L);
+        after.setName("Alphonso mango");
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<ProductDTO>>>getArgument(1).accept(List.of(before));
+            // Renamed and committed while the scan is still running
+            feed.publishAfterCommit(5L);
+            return null;
+        }).when(repository).forEachPage(eq(1000), any());
+        when(repository.findByIds(Set.of(5L))).thenReturn(List.of(after));
+
+        feed.rebuild();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).rebuild(List.of(before));
+        inOrder.verify(listener).onProductsChanged(List.of(after), Set.of());
+    }
+}
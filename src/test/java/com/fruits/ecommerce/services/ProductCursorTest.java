@@ -0,0 +1,57 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.exceptions.products.InvalidProductDataException;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import com.fruits.ecommerce.services.Utils.ProductCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCursorTest {
+
+    @Test
+    void decode_ReturnsSortKeyAndIdOfTheEncodedProduct() {
+        ProductDTO product = new ProductDTO();
+        product.setId(42L);
+        product.setName("Mango | Alphonso");
+        product.setNameKey("mango | alphonso");
+        product.setPrice(new BigDecimal("3.50"));
+
+        KeysetScrollPosition position = ProductCursor.decode(ProductCursor.encode(ProductSort.NAME, product),
+                ProductSort.NAME);
+
+        assertEquals("mango | alphonso", position.getKeys().get("nameKey"));
+        assertEquals(42L, position.getKeys().get("id"));
+        assertTrue(ProductCursor.decode(null, ProductSort.NAME).isInitial());
+    }
+
+    @Test
+    void decode_KeepsEveryKeyOfMultiKeySortsIncludingNull() {
+        ProductDTO product = new ProductDTO();
+        product.setId(9L);
+        product.setPrice(new BigDecimal("2.75"));
+
+        KeysetScrollPosition position = ProductCursor.decode(ProductCursor.encode(ProductSort.UNIT_PRICE, product),
+                ProductSort.UNIT_PRICE);
+
+        assertTrue(position.getKeys().containsKey("unitKey"));
+        assertNull(position.getKeys().get("unitKey"));
+        assertEquals(new BigDecimal("2.75"), position.getKeys().get("price"));
+        assertEquals(9L, position.getKeys().get("id"));
+    }
+
+    @Test
+    void decode_RejectsTamperedOrForeignCursor() {
+        ProductDTO product = new ProductDTO();
+        product.setId(7L);
+        product.setPrice(new BigDecimal("1.20"));
+        String cursor = ProductCursor.encode(ProductSort.PRICE_ASC, product);
+
+        assertThrows(InvalidProductDataException.class, () -> ProductCursor.decode(cursor, ProductSort.PRICE_DESC));
+        assertThrows(InvalidProductDataException.class, () -> ProductCursor.decode("not a cursor!", ProductSort.ID));
+    }
+}
@@ -0,0 +1,133 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductFacetsDTO;
+import com.fruits.ecommerce.models.dtos.ProductFilterDTO;
+import com.fruits.ecommerce.models.enums.ProductSort;
+import com.fruits.ecommerce.services.Utils.ProductCollation;
+import com.fruits.ecommerce.services.Utils.ProductCursor;
+import com.fruits.ecommerce.services.Utils.ProductFacetIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductFacetIndexTest {
+
+    private ProductFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        facetIndex = new ProductFacetIndex(List.of(new BigDecimal("5"), new BigDecimal("2")), new SimpleMeterRegistry());
+        facetIndex.rebuild(List.of(
+                product(1L, "Mango", "kg", "4.50", true),
+                product(2L, "Banana", "KG", "1.20", false),
+                product(3L, "Mango juice", "bottle", "3.00", true),
+                product(4L, "Pineapple", "piece", "6.00", true),
+                product(5L, "Lemon", null, "0.80", false)));
+    }
+
+    @Test
+    void filter_CombinesFacetsAndCountsEachFacetWithoutItsOwnFilter() {
+        ProductFilterDTO filter = new ProductFilterDTO(new BigDecimal("1"), new BigDecimal("4.50"),
+                List.of("kg", "Bottle"), true);
+
+        ProductFacetIndex.Result result = facetIndex.filter(filter, ProductSort.ID, ScrollPosition.keyset(), 10);
+
+        assertEquals(List.of(1L, 3L), result.productIds());
+        assertFalse(result.hasNext());
+        ProductFacetsDTO facets = result.facets();
+        assertEquals(2, facets.getTotal());
+        // Price 1..4.50 with images: kg 1, bottle 1, piece 0
+        assertEquals(Map.of("bottle", 1L, "kg", 1L, "piece", 0L), facets.getUnits());
+        // Price 1..4.50 in kg or bottle: Mango and juice with images, Banana without
+        assertEquals(2, facets.getWithImages());
+        assertEquals(1, facets.getWithoutImages());
+        // kg or bottle with images, by price: < 2, 2..5, >= 5
+        assertEquals(List.of(0L, 2L, 0L), facets.getPriceRanges().stream()
+                .map(ProductFacetsDTO.PriceRange::getCount).toList());
+    }
+
+    @Test
+    void filter_PagesInSortOrderFromCursor() {
+        ProductFilterDTO withImages = new ProductFilterDTO(null, null, null, true);
+
+        ProductFacetIndex.Result first = facetIndex.filter(withImages, ProductSort.PRICE_DESC,
+                ScrollPosition.keyset(), 2);
+        ProductDTO last = product(1L, "Mango", "kg", "4.50", true);
+        ProductFacetIndex.Result second = facetIndex.filter(withImages, ProductSort.PRICE_DESC,
+                ProductCursor.decode(ProductCursor.encode(ProductSort.PRICE_DESC, last), ProductSort.PRICE_DESC), 2);
+
+        assertEquals(List.of(4L, 1L), first.productIds());
+        assertTrue(first.hasNext());
+        assertEquals(List.of(3L), second.productIds());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void filter_MatchesBruteForceAfterRandomChanges() {
+        String[] units = {"kg", "box", "piece", null};
+        Random random = new Random(3);
+        Map<Long, ProductDTO> products = new HashMap<>();
+        facetIndex.rebuild(List.of());
+        for (int step = 0; step < 3000; step++) {
+            long id = 1 + random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                products.remove(id);
+                facetIndex.onProductsChanged(List.of(), List.of(id));
+            } else {
+                ProductDTO product = product(id, "P" + random.nextInt(50), units[random.nextInt(units.length)],
+                        BigDecimal.valueOf(random.nextInt(1000), 2).toPlainString(), random.nextBoolean());
+                products.put(id, product);
+                facetIndex.onProductsChanged(List.of(product), List.of());
+            }
+        }
+
+        ProductFilterDTO filter = new ProductFilterDTO(new BigDecimal("2.00"), new BigDecimal("7.50"),
+                List.of("kg", "box"), false);
+        List<Long> expected = products.values().stream()
+                .filter(product -> product.getPrice().compareTo(new BigDecimal("2.00")) >= 0
+                        && product.getPrice().compareTo(new BigDecimal("7.50")) <= 0
+                        && ("kg".equals(product.getUnit()) || "box".equals(product.getUnit()))
+                        && product.getImageUrls().isEmpty())
+                .sorted(Comparator.comparing(ProductDTO::getPrice).thenComparing(ProductDTO::getId))
+                .map(ProductDTO::getId)
+                .toList();
+        List<Long> actual = new ArrayList<>();
+        ProductFacetIndex.Result page = facetIndex.filter(filter, ProductSort.PRICE_ASC, ScrollPosition.keyset(), 7);
+        actual.addAll(page.productIds());
+        while (page.hasNext()) {
+            ProductDTO last = products.get(actual.get(actual.size() - 1));
+            page = facetIndex.filter(filter, ProductSort.PRICE_ASC,
+                    ProductCursor.decode(ProductCursor.encode(ProductSort.PRICE_ASC, last), ProductSort.PRICE_ASC), 7);
+            actual.addAll(page.productIds());
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), page.facets().getTotal());
+    }
+
+    private static ProductDTO product(Long id, String name, String unit, String price, boolean hasImages) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setUnit(unit);
+        product.setNameKey(ProductCollation.key(name));
+        product.setUnitKey(ProductCollation.key(unit));
+        product.setPrice(new BigDecimal(price));
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(id));
+        product.setImageUrls(hasImages ? List.of("/images/" + id + ".png") : List.of());
+        return product;
+    }
+}
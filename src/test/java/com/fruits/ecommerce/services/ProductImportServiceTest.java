@@ -0,0 +1,216 @@
+package com.fruits.ecommerce.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductImportSummaryDTO;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.services.Utils.ProductCache;
+import com.fruits.ecommerce.services.Utils.ProductChangeFeed;
+import com.fruits.ecommerce.services.Utils.IdAllocator;
+import com.fruits.ecommerce.services.Utils.ProductCollation;
+import com.fruits.ecommerce.services.implementations.ProductImportService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ProductImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductCache productCache;
+    private ProductChangeFeed productChangeFeed;
+    private ProductImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:product-import-" + UUID.randomUUID() + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, sku VARCHAR(64) UNIQUE, "
+                + "name VARCHAR(255) NOT NULL, unit VARCHAR(50), price DECIMAL(19, 2) NOT NULL, description TEXT, "
+                + "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL, "
+                + "name_key VARCHAR(255) NOT NULL, unit_key VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO products (id, sku, name, unit, price, description, created_at, updated_at, "
+                + "name_key, unit_key) VALUES (1, 'MANGO-1', 'Mango', 'kg', 3.50, 'Sweet', "
+                + "TIMESTAMP '2024-01-01 00:00:00', TIMESTAMP '2024-01-01 00:00:00', 'mango', 'kg')");
+        jdbcTemplate.execute("CREATE TABLE id_allocator (name VARCHAR(64) PRIMARY KEY, next_value BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO id_allocator VALUES ('products', 2)");
+
+        productCache = mock(ProductCache.class);
+        productChangeFeed = mock(ProductChangeFeed.class);
+        importService = new ProductImportService(new NamedParameterJdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), validator(), new ObjectMapper(), productCache,
+                productChangeFeed, new IdAllocator(jdbcTemplate, new DataSourceTransactionManager(dataSource)), 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void importCsv_UpsertsBySkuAndReportsEachFailure() throws IOException {
+        String csv = """
+                sku,name,unit,price
+                APPLE-1,Äpple,kg,2.10
+                mango-1,Mango Alphonso,,4.20
+                PEAR-1,Pear,kg,abc
+                ,No Sku,kg,1.00
+                "KIWI-1","Kiwi, gold",box,5
+                APPLE-1,Apple again,kg,2.20
+                PLUM-1,Plum,kg,-1
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ProductImportSummaryDTO summary = importService.importProducts(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), DataFormat.CSV, output);
+
+        assertEquals(7, summary.getTotal());
+        assertEquals(2, summary.getCreated());
+        assertEquals(2, summary.getUpdated());
+        assertEquals(3, summary.getFailed());
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(8, lines.size());
+        assertTrue(lines.get(0).contains("\"row\":2") && lines.get(0).contains("CREATED"));
+        assertTrue(lines.get(1).contains("UPDATED") && lines.get(1).contains("\"id\":1"));
+        assertTrue(lines.get(2).contains("Invalid price: abc"));
+        assertTrue(lines.get(3).contains("SKU is required."));
+        // Second chunk
+        assertTrue(lines.get(4).contains("\"row\":6") && lines.get(4).contains("CREATED"));
+        assertTrue(lines.get(5).contains("UPDATED"));
+        assertTrue(lines.get(6).contains("Price cannot be negative"));
+        assertTrue(lines.get(7).startsWith("{\"summary\""));
+
+        // An omitted unit or description keeps the stored one
+        Map<String, Object> mango = jdbcTemplate.queryForMap("SELECT * FROM products WHERE sku = 'MANGO-1'");
+        assertEquals("Mango Alphonso", mango.get("NAME"));
+        assertEquals("kg", mango.get("UNIT"));
+        assertEquals("Sweet", mango.get("DESCRIPTION"));
+        assertEquals(0, new BigDecimal("4.20").compareTo((BigDecimal) mango.get("PRICE")));
+        assertEquals(ProductCollation.key("Mango Alphonso"), mango.get("NAME_KEY"));
+        assertEquals(Timestamp.valueOf("2024-01-01 00:00:00"), mango.get("CREATED_AT"));
+        assertEquals("Kiwi, gold", jdbcTemplate.queryForObject(
+                "SELECT name FROM products WHERE sku = 'KIWI-1'", String.class));
+        assertEquals("apple again", jdbcTemplate.queryForObject(
+                "SELECT name_key FROM products WHERE sku = 'APPLE-1'", String.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+        // New products take the id reserved for their row; rows of existing SKUs leave theirs unused
+        assertEquals(List.of(1L, 2L, 4L), jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class));
+        verify(productCache).evictAfterCommit(argThat((Collection<Long> ids) -> ids.contains(1L)));
+        verify(productChangeFeed).publishAfterCommit(argThat((Collection<Long> ids) -> ids.contains(1L)));
+    }
+
+    @Test
+    void importNdjson_ReportsMalformedLinesAndRepeatedSkus() throws IOException {
+        String ndjson = """
+                {"sku":"FIG-1","name":"Fig","price":7.5,"description":"Dried"}
+                {"sku":"broken"
+                {"sku":"fig-1","name":"Fig","price":8}
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ProductImportSummaryDTO summary = importService.importProducts(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), DataFormat.NDJSON, output);
+
+        assertEquals(1, summary.getCreated());
+        assertEquals(2, summary.getFailed());
+        String results = output.toString(StandardCharsets.UTF_8);
+        assertTrue(results.contains("Malformed JSON"));
+        assertTrue(results.contains("SKU appears more than once in this import."));
+        assertEquals("Dried", jdbcTemplate.queryForObject(
+                "SELECT description FROM products WHERE sku = 'FIG-1'", String.class));
+    }
+
+    // Throughput benchmark: mvn test -Dtest=ProductImportServiceTest -Dbenchmark=true
+    // Compares the import with one product per request at the JDBC level: validate, then one insert
+    // with an id of its own, in its own transaction.
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_ImportThroughputAgainstSingleInserts() throws IOException {
+        int rows = 20_000;
+        StringBuilder csv = new StringBuilder("sku,name,unit,price,description\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("SKU-").append(i).append(",Fruit ").append(i).append(",kg,").append(i % 50 + 1)
+                    .append(".25,Fresh from the supplier\n");
+        }
+        ProductImportService service = new ProductImportService(
+                new NamedParameterJdbcTemplate(jdbcTemplate.getDataSource()),
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()), validator(), new ObjectMapper(),
+                productCache, productChangeFeed, new IdAllocator(jdbcTemplate,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource())), 0, 500);
+        try {
+            ProductImportSummaryDTO summary = service.importProducts(
+                    new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), DataFormat.CSV,
+                    new ByteArrayOutputStream());
+            assertEquals(rows, summary.getCreated());
+            System.out.printf("Bulk import: %d products in %d ms (%.0f rows/s)%n", summary.getCreated(),
+                    summary.getElapsedMillis(), summary.getRowsPerSecond());
+        } finally {
+            service.shutdown();
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        Validator validator = validator();
+        // As Hibernate hands them out: from a block reserved up front
+        long firstId = new IdAllocator(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()))
+                .reserve("products", rows);
+        long started = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            long id = firstId + i;
+            String name = "Single " + i;
+            BigDecimal price = BigDecimal.valueOf(i % 50 + 1.25);
+            validator.validate(new ProductDTO(null, null, name, "kg", price,
+                    "Fresh from the supplier", List.of(), null, null, null, null));
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement insert = connection.prepareStatement("INSERT INTO products (id, name, unit, "
+                            + "price, description, name_key, unit_key, created_at, updated_at) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+                    insert.setLong(1, id);
+                    insert.setString(2, name);
+                    insert.setString(3, "kg");
+                    insert.setBigDecimal(4, price);
+                    insert.setString(5, "Fresh from the supplier");
+                    insert.setString(6, ProductCollation.key(name));
+                    insert.setString(7, "kg");
+                    insert.setTimestamp(8, now);
+                    insert.setTimestamp(9, now);
+                    return insert;
+                });
+            });
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        System.out.printf("Single inserts: %d products in %d ms (%.0f rows/s)%n", rows, elapsedMillis,
+                rows * 1000.0 / elapsedMillis);
+    }
+
+    private static Validator validator() {
+        return Validation.buildDefaultValidatorFactory().getValidator();
+    }
+}
@@ -0,0 +1,125 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.services.Utils.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    private static final String[] WORDS = ("mango banana apple orange grape lemon lime peach pear plum cherry berry "
+            + "melon kiwi fresh organic sweet sour juicy ripe local imported dried frozen juice box kg bag").split(" ");
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex(1.2, 0.75, 3, new SimpleMeterRegistry());
+        searchIndex.rebuild(List.of(
+                product(1L, "Mango", "kg", "Sweet Alphonso mango from Egypt"),
+                product(2L, "Mango juice", "bottle", "Fresh juice"),
+                product(3L, "Banana", "kg", "Pairs well with mango in a smoothie, or with an açaí bowl"),
+                product(4L, "أناناس", "حبة", "أناناس طازج")));
+    }
+
+    @Test
+    void search_RanksNameMatchesFirst() {
+        ProductSearchIndex.Hits hits = searchIndex.search("MANGO", 10);
+
+        assertEquals(3, hits.matches());
+        // Name match in the shorter document first, the description-only match last
+        assertEquals(List.of(1L, 2L, 3L), hits.productIds());
+        assertEquals(List.of(1L), searchIndex.search("mango", 1).productIds());
+    }
+
+    @Test
+    void search_FoldsDiacriticsAndArabicLetterVariants() {
+        assertEquals(List.of(3L), searchIndex.search("acai", 10).productIds());
+        // Hamza-less alef and diacritics (fatha) in the query
+        assertEquals(List.of(4L), searchIndex.search("انَاناس", 10).productIds());
+        assertEquals(0, searchIndex.search("  ,;  ", 10).matches());
+    }
+
+    @Test
+    void onProductsChanged_ReindexesUpdatedAndDropsRemovedProducts() {
+        searchIndex.onProductsChanged(List.of(product(2L, "Guava juice", "bottle", null)), List.of(1L));
+
+        assertEquals(List.of(3L), searchIndex.search("mango", 10).productIds());
+        assertEquals(List.of(2L), searchIndex.search("guava", 10).productIds());
+    }
+
+    @Test
+    void search_CountsEveryMatchButReturnsOnlyTheTopHitsOfAGeneratedCatalog() {
+        Random random = new Random(7);
+        List<ProductDTO> products = catalog(1_000, random);
+        searchIndex.rebuild(products);
+
+        ProductSearchIndex.Hits hits = searchIndex.search("Mango ripe", 20);
+
+        long expected = products.stream()
+                .filter(product -> (product.getName() + " " + product.getUnit() + " " + product.getDescription())
+                        .matches("(?s).*\\b(mango|ripe)\\b.*"))
+                .count();
+        assertEquals(expected, hits.matches());
+        assertEquals(20, hits.productIds().size());
+        assertEquals(20, hits.productIds().stream().distinct().count());
+    }
+
+    // Wall-clock bound: run with -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void search_StaysFastOnALargeCatalog() {
+        Random random = new Random(42);
+        searchIndex.rebuild(catalog(20_000, random));
+
+        long[] nanos = new long[500];
+        for (int i = 0; i < nanos.length; i++) {
+            String query = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            long start = System.nanoTime();
+            searchIndex.search(query, 20);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p99Millis = nanos[(int) (nanos.length * 0.99)] / 1_000_000;
+        // Two common terms each match most of the 20k products: the worst case for an OR query
+        assertTrue(p99Millis < 100, "p99 " + p99Millis + " ms");
+    }
+
+    // Names are a fruit and an adjective, units one of three, descriptions 20 random words
+    private static List<ProductDTO> catalog(int size, Random random) {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            products.add(product(id, WORDS[random.nextInt(14)] + " " + WORDS[14 + random.nextInt(10)],
+                    WORDS[25 + random.nextInt(3)], sentence(random, 20)));
+        }
+        return products;
+    }
+
+    private static String sentence(Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return sentence.toString();
+    }
+
+    private static ProductDTO product(Long id, String name, String unit, String description) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setUnit(unit);
+        product.setDescription(description);
+        product.setPrice(BigDecimal.ONE);
+        return product;
+    }
+}
@@ -0,0 +1,123 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.ProductDTO;
+import com.fruits.ecommerce.models.dtos.ProductSuggestionDTO;
+import com.fruits.ecommerce.repository.ProductCatalogRepository;
+import com.fruits.ecommerce.services.Utils.ProductSuggestIndex;
+import com.fruits.ecommerce.services.Utils.ProductTextAnalyzer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProductSuggestIndexTest {
+
+    private ProductCatalogRepository catalogRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductSuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        catalogRepository = mock(ProductCatalogRepository.class);
+        // Carts holding each product
+        when(catalogRepository.countCartsByProduct()).thenReturn(Map.of(2L, 9L, 3L, 4L));
+        meterRegistry = new SimpleMeterRegistry();
+        suggestIndex = new ProductSuggestIndex(catalogRepository, 2, 4, 40, meterRegistry);
+        suggestIndex.rebuild(List.of(product(1L, "Mango"), product(2L, "Mango juice"), product(3L, "Mandarin"),
+                product(4L, "Green apple"), product(5L, "مانجو")));
+    }
+
+    @Test
+    void suggest_ReturnsMostPopularCompletionsUpToK() {
+        assertEquals(List.of(2L, 3L), ids(suggestIndex.suggest("Man", 10)));
+        assertEquals(List.of(2L, 1L), ids(suggestIndex.suggest("mango", 10)));
+        assertEquals(List.of(2L), ids(suggestIndex.suggest("mango j", 1)));
+        // Out-of-range limits are clamped, not passed to the stream
+        assertEquals(List.of(2L), ids(suggestIndex.suggest("man", -1)));
+        assertEquals(List.of(2L), ids(suggestIndex.suggest("man", 0)));
+        // From a later word of the name, and Arabic
+        assertEquals(List.of(4L), ids(suggestIndex.suggest("app", 10)));
+        assertEquals(List.of(5L), ids(suggestIndex.suggest("مان", 10)));
+        assertTrue(suggestIndex.suggest("kiwi", 10).isEmpty());
+        assertTrue(meterRegistry.get("products.suggest.memory.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void onProductsChanged_RenamesAndRemovesProducts() {
+        suggestIndex.onProductsChanged(List.of(product(2L, "Guava juice")), List.of(3L));
+
+        assertEquals(List.of(1L), ids(suggestIndex.suggest("man", 10)));
+        assertEquals(List.of(2L), ids(suggestIndex.suggest("gu", 10)));
+        assertEquals(List.of(2L), ids(suggestIndex.suggest("juice", 10)));
+    }
+
+    @Test
+    void suggest_MatchesBruteForceAfterRandomChanges() {
+        String[] words = {"man", "mango", "mandarin", "mangosteen", "apple", "apricot", "green", "red", "juice"};
+        Random random = new Random(7);
+        SimpleMeterRegistry changedRegistry = new SimpleMeterRegistry();
+        suggestIndex = new ProductSuggestIndex(catalogRepository, 3, 4, 40, changedRegistry);
+        suggestIndex.rebuild(List.of());
+        Map<Long, String> names = new HashMap<>();
+        for (int step = 0; step < 2000; step++) {
+            long id = 1 + random.nextInt(60);
+            if (random.nextInt(4) == 0) {
+                names.remove(id);
+                suggestIndex.onProductsChanged(List.of(), List.of(id));
+            } else {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                names.put(id, name);
+                suggestIndex.onProductsChanged(List.of(product(id, name)), List.of());
+            }
+        }
+
+        for (String prefix : List.of("m", "man", "mang", "mango s", "ap", "g", "juice", "red a", "x")) {
+            assertEquals(bruteForce(names, prefix, 3), ids(suggestIndex.suggest(prefix, 10)), prefix);
+        }
+        // The counters kept through the changes match a tree built from scratch
+        SimpleMeterRegistry rebuiltRegistry = new SimpleMeterRegistry();
+        new ProductSuggestIndex(catalogRepository, 3, 4, 40, rebuiltRegistry).rebuild(names.entrySet().stream()
+                .map(entry -> product(entry.getKey(), entry.getValue())).toList());
+        for (String gauge : List.of("products.suggest.nodes", "products.suggest.memory.bytes")) {
+            assertEquals(rebuiltRegistry.get(gauge).gauge().value(), changedRegistry.get(gauge).gauge().value(), gauge);
+        }
+    }
+
+    // Without popularity: shortest name first, then lowest id
+    private static List<Long> bruteForce(Map<Long, String> names, String prefix, int k) {
+        String key = String.join(" ", ProductTextAnalyzer.terms(prefix));
+        List<Map.Entry<Long, String>> matches = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            List<String> terms = ProductTextAnalyzer.terms(entry.getValue());
+            for (int word = 0; word < terms.size(); word++) {
+                if (String.join(" ", terms.subList(word, terms.size())).startsWith(key)) {
+                    matches.add(entry);
+                    break;
+                }
+            }
+        }
+        matches.sort(Map.Entry.<Long, String>comparingByValue((a, b) -> Integer.compare(a.length(), b.length()))
+                .thenComparing(Map.Entry.comparingByKey()));
+        return matches.stream().limit(k).map(Map.Entry::getKey).toList();
+    }
+
+    private static List<Long> ids(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDTO::getId).toList();
+    }
+
+    private static ProductDTO product(Long id, String name) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fruits.ecommerce.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests: accepts every message, rejects recipients starting with "reject".
+ */
+final class SmtpStandIn {
+    private final ServerSocket serverSocket = new ServerSocket(0);
+    final AtomicInteger connections = new AtomicInteger();
+    final List<String> messages = new CopyOnWriteArrayList<>();
+
+    SmtpStandIn() throws IOException {
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    Thread session = new Thread(() -> {
+                        try (socket) {
+                            converse(socket);
+                        } catch (IOException ignored) {
+                            // Client went away
+                        }
+                    }, "smtp-stand-in-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException ignored) {
+                    // Closed by the test
+                }
+            }
+        }, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void converse(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        reply(out, "220 localhost SMTP");
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("RCPT TO:<REJECT")) {
+                reply(out, "550 No such user");
+            } else if (command.equals("DATA")) {
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                StringBuilder message = new StringBuilder();
+                while (!(line = in.readLine()).equals(".")) {
+                    message.append(line).append('\n');
+                }
+                messages.add(message.toString());
+                reply(out, "250 OK");
+            } else if (command.equals("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else {
+                reply(out, "250 OK");
+            }
+        }
+    }
+
+    private static void reply(PrintWriter out, String line) {
+        out.print(line + "\r\n");
+        out.flush();
+    }
+
+    void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,138 @@
+package com.fruits.ecommerce.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fruits.ecommerce.models.dtos.UserDTO;
+import com.fruits.ecommerce.models.dtos.UserFilterDTO;
+import com.fruits.ecommerce.models.dtos.UserPageDTO;
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.repository.RoleRepository;
+import com.fruits.ecommerce.repository.UserDirectoryRepository;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.implementations.UserDirectoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserDirectoryServiceTest {
+
+    private UserDirectoryService directoryService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user-directory-" + UUID.randomUUID() + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, first_name VARCHAR(25), "
+                + "last_name VARCHAR(25), user_name VARCHAR(25), email VARCHAR(35), address VARCHAR(35), "
+                + "created_at TIMESTAMP, updated_at TIMESTAMP, last_login TIMESTAMP, is_active BOOLEAN, "
+                + "is_not_locked BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE roles (id INT PRIMARY KEY, name VARCHAR(25))");
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id INT NOT NULL, "
+                + "PRIMARY KEY (user_id, role_id))");
+        jdbcTemplate.execute("INSERT INTO roles VALUES (1, 'ADMIN'), (2, 'USER'), (3, 'CUSTOMER')");
+        // id, username, locked, roles
+        Object[][] users = {
+                {1, "admin", false, new int[]{1, 2}},
+                {2, "john_doe", false, new int[]{2, 3}},
+                {3, "johnXdoe", true, new int[]{3}},
+                {4, "jane", false, new int[]{3}},
+                {5, "john_smith", false, new int[]{2}},
+        };
+        for (Object[] user : users) {
+            jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, user_name, email, is_active, "
+                            + "is_not_locked) VALUES (?, 'First, Name', 'Last', ?, ?, TRUE, ?)",
+                    user[0], user[1], user[1] + "@example.com", !(Boolean) user[2]);
+            for (int roleId : (int[]) user[3]) {
+                jdbcTemplate.update("INSERT INTO user_roles VALUES (?, ?)", user[0], roleId);
+            }
+        }
+
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(List.of(role(1, RoleType.ADMIN), role(2, RoleType.USER),
+                role(3, RoleType.CUSTOMER)));
+        directoryService = new UserDirectoryService(new UserDirectoryRepository(dataSource, 2),
+                new RoleRegistry(roleRepository), new ObjectMapper().registerModule(new JavaTimeModule()), 2);
+    }
+
+    @Test
+    void listUsers_WalksPagesWithCursorAndCapsPageSize() {
+        UserFilterDTO noFilter = new UserFilterDTO();
+
+        UserPageDTO first = directoryService.listUsers(noFilter, null, 50);
+        assertEquals(List.of(1L, 2L), ids(first));
+        assertEquals(Set.of("ADMIN", "USER"), first.getUsers().get(0).getRoles());
+        assertEquals(2L, first.getNextCursor());
+
+        UserPageDTO second = directoryService.listUsers(noFilter, first.getNextCursor(), 2);
+        assertEquals(List.of(3L, 4L), ids(second));
+
+        UserPageDTO last = directoryService.listUsers(noFilter, second.getNextCursor(), 2);
+        assertEquals(List.of(5L), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void listUsers_AppliesRoleLockedAndLiteralPrefixFilters() {
+        assertEquals(List.of(2L, 3L), ids(directoryService.listUsers(
+                new UserFilterDTO(RoleType.CUSTOMER, null, null), null, 2)));
+        assertEquals(List.of(2L, 4L), ids(directoryService.listUsers(
+                new UserFilterDTO(RoleType.CUSTOMER, false, null), null, 2)));
+        // '_' matches only itself, so johnXdoe is not returned
+        assertEquals(List.of(2L, 5L), ids(directoryService.listUsers(
+                new UserFilterDTO(null, null, "john_"), null, 2)));
+    }
+
+    @Test
+    void exportUsers_WritesCsvAndNdjson() throws IOException {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        directoryService.exportUsers(new UserFilterDTO(RoleType.USER, null, null), DataFormat.CSV, csv);
+
+        List<String> lines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("id,"));
+        assertEquals("1,\"First, Name\",Last,admin,admin@example.com,,ADMIN|USER,true,true", lines.get(1));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        directoryService.exportUsers(new UserFilterDTO(), DataFormat.NDJSON, ndjson);
+
+        lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(2).contains("\"username\":\"johnXdoe\""));
+    }
+
+    @Test
+    void writeAllUsers_StreamsOneJsonArray() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        directoryService.writeAllUsers(new UserFilterDTO(RoleType.USER, null, null), output);
+
+        UserDTO[] users = new ObjectMapper().registerModule(new JavaTimeModule()).readValue(output.toByteArray(), UserDTO[].class);
+        assertEquals(3, users.length);
+        assertEquals("admin", users[0].getUsername());
+    }
+
+    private static List<Long> ids(UserPageDTO page) {
+        return page.getUsers().stream().map(UserDTO::getId).toList();
+    }
+
+    private static Role role(int id, RoleType name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+}
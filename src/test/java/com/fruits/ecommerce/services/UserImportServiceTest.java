@@ -0,0 +1,171 @@
+package com.fruits.ecommerce.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fruits.ecommerce.models.dtos.UserImportSummaryDTO;
+import com.fruits.ecommerce.models.entities.Role;
+import com.fruits.ecommerce.models.enums.DataFormat;
+import com.fruits.ecommerce.models.enums.RoleType;
+import com.fruits.ecommerce.repository.RoleRepository;
+import com.fruits.ecommerce.services.Utils.IdAllocator;
+import com.fruits.ecommerce.services.Utils.RoleRegistry;
+import com.fruits.ecommerce.services.implementations.UserImportService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:user-import-" + UUID.randomUUID() + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, first_name VARCHAR(25) NOT NULL, "
+                + "last_name VARCHAR(25) NOT NULL, user_name VARCHAR(25) NOT NULL UNIQUE, email VARCHAR(35) NOT NULL UNIQUE, "
+                + "password VARCHAR(255) NOT NULL, address VARCHAR(35), created_at TIMESTAMP, updated_at TIMESTAMP, "
+                + "last_login TIMESTAMP, is_active BOOLEAN, is_not_locked BOOLEAN, security_version INT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL, role_id INT NOT NULL, "
+                + "PRIMARY KEY (user_id, role_id))");
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, user_name, email, password) "
+                + "VALUES (1, 'Old', 'User', 'existing', 'existing@example.com', 'x')");
+        jdbcTemplate.execute("CREATE TABLE id_allocator (name VARCHAR(64) PRIMARY KEY, next_value BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO id_allocator VALUES ('users', 2)");
+
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(List.of(role(1, RoleType.ADMIN), role(2, RoleType.USER),
+                role(3, RoleType.CUSTOMER)));
+        importService = new UserImportService(new NamedParameterJdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), new RoleRegistry(roleRepository),
+                new IdAllocator(jdbcTemplate, new DataSourceTransactionManager(dataSource)),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 4, 2, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void importCsv_InsertsValidRowsAndReportsEachFailure() throws IOException {
+        String csv = """
+                firstName,lastName,username,email,password,roles
+                John,Doe,john_doe,john@example.com,password1,USER|CUSTOMER
+                Jane,Doe,jane_doe,not-an-email,password1,
+                "Smith, Jr",Doe,smith_jr,smith@example.com,password1,
+                Copy,Doe,JOHN_DOE,copy@example.com,password1,
+                Old,Again,existing_2,EXISTING@example.com,password1,
+                Bad,Role,bad_role,bad@example.com,password1,OWNER
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        UserImportSummaryDTO summary = importService.importUsers(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), DataFormat.CSV, output);
+
+        assertEquals(6, summary.getTotal());
+        assertEquals(2, summary.getCreated());
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(0).contains("\"row\":2") && lines.get(0).contains("CREATED"));
+        assertTrue(lines.get(1).contains("Invalid email format."));
+        assertTrue(lines.get(2).contains("CREATED"));
+        assertTrue(lines.get(3).contains("Username appears more than once in this import."));
+        assertTrue(lines.get(4).contains("Email already exists."));
+        assertTrue(lines.get(5).contains("Invalid Role: OWNER"));
+        assertTrue(lines.get(6).startsWith("{\"summary\""));
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_roles", Integer.class));
+        assertEquals("Smith, Jr", jdbcTemplate.queryForObject(
+                "SELECT first_name FROM users WHERE user_name = 'smith_jr'", String.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT password FROM users WHERE user_name = 'john_doe'",
+                String.class).startsWith("$2a$04$"));
+        // Imported users have never logged in
+        assertNull(jdbcTemplate.queryForObject("SELECT last_login FROM users WHERE user_name = 'john_doe'",
+                Timestamp.class));
+    }
+
+    @Test
+    void importNdjson_ReportsMalformedLinesAndDefaultsToUserRole() throws IOException {
+        String ndjson = """
+                {"firstName":"Ann","lastName":"Lee","username":"ann_lee","email":"ann@example.com","password":"password1"}
+                {"firstName":"broken"
+                """;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        UserImportSummaryDTO summary = importService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), DataFormat.NDJSON, output);
+
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getFailed());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Malformed JSON"));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT ur.role_id FROM user_roles ur JOIN users u ON u.id = ur.user_id WHERE u.user_name = 'ann_lee'",
+                Integer.class));
+    }
+
+    // Throughput benchmark: mvn test -Dtest=UserImportServiceTest -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark_ImportThroughput() throws IOException {
+        int rows = 20_000;
+        StringBuilder csv = new StringBuilder("firstName,lastName,username,email,password\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("First,Last,user_").append(i).append(",user").append(i).append("@example.com,password1\n");
+        }
+        UserImportService service = new UserImportService(importServiceJdbc(), transactionManager(),
+                registry(), new IdAllocator(jdbcTemplate, transactionManager()), Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                4, 0, 500);
+        try {
+            UserImportSummaryDTO summary = service.importUsers(
+                    new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), DataFormat.CSV,
+                    new ByteArrayOutputStream());
+            System.out.printf("Imported %d users in %d ms (%.0f rows/s)%n", summary.getCreated(),
+                    summary.getElapsedMillis(), summary.getRowsPerSecond());
+            assertEquals(rows, summary.getCreated());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private NamedParameterJdbcTemplate importServiceJdbc() {
+        return new NamedParameterJdbcTemplate(jdbcTemplate.getDataSource());
+    }
+
+    private DataSourceTransactionManager transactionManager() {
+        return new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+    }
+
+    private RoleRegistry registry() {
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(new ArrayList<>(List.of(role(2, RoleType.USER))));
+        return new RoleRegistry(roleRepository);
+    }
+
+    private static Role role(int id, RoleType name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+}
@@ -0,0 +1,119 @@
+package com.fruits.ecommerce.services;
+
+import com.fruits.ecommerce.models.dtos.CartItemDTO;
+import com.fruits.ecommerce.repository.CartLineRepository;
+import com.fruits.ecommerce.repository.CartViewRepository;
+import com.fruits.ecommerce.repository.StatementCountingDataSource;
+import com.fruits.ecommerce.services.Utils.WriteBehindCartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindCartStoreTest {
+
+    private AtomicInteger statements;
+    private StatementCountingDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private WriteBehindCartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new StatementCountingDataSource(
+                "jdbc:h2:mem:write-behind-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        statements = dataSource.getStatements();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "price DECIMAL(19, 2) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE product_images (id BIGINT PRIMARY KEY, image_url VARCHAR(255) NOT NULL, "
+                + "product_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT PRIMARY KEY, customer_id BIGINT NOT NULL, "
+                + "shipping_cost DECIMAL(10, 2) DEFAULT 0.00, discount DECIMAL(5, 2) DEFAULT 0.00)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (cart_id BIGINT, product_id BIGINT, quantity INT NOT NULL, "
+                + "PRIMARY KEY (cart_id, product_id), FOREIGN KEY (cart_id) REFERENCES carts (id), "
+                + "FOREIGN KEY (product_id) REFERENCES products (id))");
+        jdbcTemplate.update("INSERT INTO products VALUES (1, 'Mango', 2.10), (2, 'Kiwi', 0.99), (3, 'Fig', 4.00)");
+        jdbcTemplate.update("INSERT INTO carts VALUES (10, 7, 10.00, 2.00), (20, 8, 10.00, 2.00)");
+        jdbcTemplate.update("INSERT INTO cart_items VALUES (10, 1, 3), (10, 2, 1)");
+        cartStore = newStore();
+    }
+
+    @Test
+    void flush_WritesManyEditsOfManyCartsAsOneBatchPerKind() {
+        for (int add = 0; add < 50; add++) {
+            cartStore.modify(7, lines -> lines.merge(3L, 1, Integer::sum));
+            cartStore.modify(8, lines -> lines.merge(1L, 2, Integer::sum));
+        }
+        cartStore.modify(7, lines -> lines.remove(2L));
+        cartStore.modify(7, lines -> lines.put(1L, 5));
+        // Only the last quantity of a line is written, here a delete
+        cartStore.modify(8, lines -> lines.put(2L, 4));
+        cartStore.modify(8, lines -> lines.remove(2L));
+
+        assertEquals(Map.of(1L, 3, 2L, 1), quantities(10));
+        assertEquals(Map.of(1L, 5, 3L, 50), cartStore.find(7).orElseThrow().getItems().stream()
+                .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity)));
+
+        statements.set(0);
+        cartStore.flush();
+
+        assertEquals(2, statements.get());
+        assertEquals(Map.of(1L, 5, 3L, 50), quantities(10));
+        assertEquals(Map.of(1L, 100), quantities(20));
+        statements.set(0);
+        cartStore.flush();
+        assertEquals(0, statements.get());
+        assertFalse(cartStore.modify(9, lines -> lines.put(1L, 1)));
+    }
+
+    @Test
+    void crash_LosesOnlyTheEditsSinceTheLastFlush() {
+        cartStore.modify(7, lines -> lines.put(3L, 2));
+        cartStore.flush();
+        cartStore.modify(7, lines -> lines.put(3L, 9));
+        cartStore.modify(7, Map::clear);
+
+        // The process dies without a shutdown flush: a new instance reads back the flushed cart
+        WriteBehindCartStore restarted = newStore();
+
+        assertEquals(Map.of(1L, 3, 2L, 1, 3L, 2), restarted.find(7).orElseThrow().getItems().stream()
+                .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity)));
+        restarted.modify(7, lines -> lines.merge(3L, 1, Integer::sum));
+        restarted.flush();
+        assertEquals(Map.of(1L, 3, 2L, 1, 3L, 3), quantities(10));
+    }
+
+    @Test
+    void flush_DropsLinesTheDatabaseRejectsAndKeepsTheOthers() {
+        // As for a product deleted after it was put in the cart
+        cartStore.modify(7, lines -> lines.put(99L, 1));
+        cartStore.modify(8, lines -> lines.put(3L, 4));
+
+        cartStore.flush();
+
+        assertEquals(Map.of(1L, 3, 2L, 1), quantities(10));
+        assertEquals(Map.of(3L, 4), quantities(20));
+        // The rejected cart is read again from the database
+        assertEquals(2, cartStore.find(7).orElseThrow().getItems().size());
+    }
+
+    private WriteBehindCartStore newStore() {
+        return new WriteBehindCartStore(new CartViewRepository(dataSource), new CartLineRepository(dataSource),
+                true, 500, 1_800_000, 4);
+    }
+
+    private Map<Long, Integer> quantities(long cartId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?", resultSet -> {
+            quantities.put(resultSet.getLong(1), resultSet.getInt(2));
+        }, cartId);
+        return quantities;
+    }
+}